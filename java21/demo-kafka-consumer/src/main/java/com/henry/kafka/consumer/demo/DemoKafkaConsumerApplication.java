@@ -0,0 +1,13 @@
+package com.henry.kafka.consumer.demo;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class DemoKafkaConsumerApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(DemoKafkaConsumerApplication.class, args);
+	}
+
+}
@@ -0,0 +1,43 @@
+package com.henry.kafka.consumer.demo.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ContainerCustomizer;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+
+/**
+ * Batch listener containers ({@code spring.kafka.listener.type=batch}, {@code ack-mode=batch}) that commit
+ * each batch's offsets with {@code commitAsync}, so the consumer thread polls the next batch instead of
+ * waiting a broker round trip per batch.
+ * <p>
+ * A failed async commit is not retried: the next batch's commit covers the same partitions with later
+ * offsets. Until then a rebalance may redeliver the batch (at least once). Failures are counted in
+ * {@value #COMMIT_FAILURES}.
+ */
+@Configuration
+@Slf4j
+public class ListenerConfig {
+
+    public static final String COMMIT_FAILURES = "book.consumer.commit.failures";
+
+    @Bean
+    public ContainerCustomizer<Object, Object, ConcurrentMessageListenerContainer<Object, Object>> asyncCommits(MeterRegistry meterRegistry) {
+        Counter commitFailures = Counter.builder(COMMIT_FAILURES)
+                .description("Asynchronous offset commits the broker did not accept")
+                .register(meterRegistry);
+        return container -> {
+            ContainerProperties containerProperties = container.getContainerProperties();
+            containerProperties.setSyncCommits(false);
+            containerProperties.setCommitCallback((offsets, exception) -> {
+                if (exception != null) {
+                    commitFailures.increment();
+                    log.warn("Offset commit failed for {} : {}", offsets.keySet(), exception.getMessage());
+                }
+            });
+        };
+    }
+}
@@ -0,0 +1,10 @@
+package com.henry.kafka.consumer.demo.dto;
+
+/**
+ * A copy of the producer's {@code Book}, without its validation constraints.
+ */
+public record Book(
+        Integer bookId,
+        String bookName,
+        String bookAuthor) {
+}
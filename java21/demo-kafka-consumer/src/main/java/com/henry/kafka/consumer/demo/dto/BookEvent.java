@@ -0,0 +1,11 @@
+package com.henry.kafka.consumer.demo.dto;
+
+/**
+ * A copy of the producer's {@code BookEvent}, without its validation constraints.
+ */
+public record BookEvent(
+        Integer bookEventId,
+        BookEventType bookEventType,
+        Book book
+) {
+}
@@ -0,0 +1,9 @@
+package com.henry.kafka.consumer.demo.dto;
+
+/**
+ * A copy of the producer's {@code BookEventType}.
+ */
+public enum BookEventType {
+    NEW,
+    UPDATE
+}
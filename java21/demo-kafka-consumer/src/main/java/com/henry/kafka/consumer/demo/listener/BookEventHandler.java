@@ -0,0 +1,46 @@
+package com.henry.kafka.consumer.demo.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henry.kafka.consumer.demo.dto.BookEvent;
+import com.henry.kafka.consumer.demo.serializer.BookEventDeserializer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Handles one record: decodes the {@link BookEvent} (JSON or the binary encoding) and counts it per
+ * topic in {@value #EVENTS}. Called concurrently for different books, never concurrently for the
+ * same book.
+ */
+@Component
+@Slf4j
+public class BookEventHandler {
+
+    public static final String EVENTS = "book.consumer.events";
+
+    private final BookEventDeserializer deserializer;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> events = new ConcurrentHashMap<>();
+
+    public BookEventHandler(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.deserializer = new BookEventDeserializer(objectMapper);
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void handle(ConsumerRecord<Integer, byte[]> record) {
+        BookEvent bookEvent = deserializer.deserialize(record.topic(), record.value());
+        if (log.isDebugEnabled()) {
+            log.debug("Consumed {} from {}-{}@{}", bookEvent, record.topic(), record.partition(), record.offset());
+        }
+        events.computeIfAbsent(record.topic(), topic -> Counter.builder(EVENTS)
+                        .description("Events consumed and handled")
+                        .tag("topic", topic)
+                        .register(meterRegistry))
+                .increment();
+    }
+}
@@ -0,0 +1,47 @@
+package com.henry.kafka.consumer.demo.listener;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batch listener for {@code book-events} and {@code user-events}. Each consumer thread of the container
+ * owns some of the partitions; each poll batch is fanned out by book over the {@link KeyOrderedDispatcher}
+ * lanes. The container commits the batch's offsets asynchronously once this method returns.
+ */
+@Component
+public class BookEventsListener {
+
+    public static final String BATCH_SIZE = "book.consumer.batch.size";
+    public static final String BATCH_TIME = "book.consumer.batch.time";
+
+    private final KeyOrderedDispatcher dispatcher;
+    private final BookEventHandler bookEventHandler;
+    private final DistributionSummary batchSize;
+    private final Timer batchTime;
+
+    public BookEventsListener(KeyOrderedDispatcher dispatcher, BookEventHandler bookEventHandler, MeterRegistry meterRegistry) {
+        this.dispatcher = dispatcher;
+        this.bookEventHandler = bookEventHandler;
+        this.batchSize = DistributionSummary.builder(BATCH_SIZE)
+                .description("Records per poll batch")
+                .register(meterRegistry);
+        this.batchTime = Timer.builder(BATCH_TIME)
+                .description("Time to handle one poll batch")
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(topics = {"${spring.kafka.topic}", "${spring.kafka.topic2}"})
+    public void onBatch(List<ConsumerRecord<Integer, byte[]>> records) {
+        long start = System.nanoTime();
+        dispatcher.dispatch(records, bookEventHandler::handle);
+        batchTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        batchSize.record(records.size());
+    }
+}
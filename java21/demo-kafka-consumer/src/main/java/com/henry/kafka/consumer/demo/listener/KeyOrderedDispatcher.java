@@ -0,0 +1,130 @@
+package com.henry.kafka.consumer.demo.listener;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Processes a poll batch on up to {@code app.consumer.key-parallelism} lanes at once.
+ * <p>
+ * A record's lane follows from its key, so all events of a book are handled by one lane in offset
+ * order while different books proceed in parallel. Keyless records are laned by partition, which
+ * keeps their partition order. The first lane runs on the consumer thread itself; the others on a
+ * pool shared by all consumer threads ({@code (key-parallelism - 1) * spring.kafka.listener.concurrency}
+ * threads).
+ * <p>
+ * {@link #dispatch} returns once every lane is done. A lane stops at its first failure, and the batch
+ * then fails with a {@link BatchListenerFailedException} at the lowest failed index: every record
+ * before it has been handled, so the container commits up to there and redelivers the rest. Records
+ * of other lanes after that index are handled again (at least once).
+ */
+@Component
+public class KeyOrderedDispatcher implements DisposableBean {
+
+    private final int lanes;
+    private final ExecutorService executor;
+
+    public KeyOrderedDispatcher(@Value("${app.consumer.key-parallelism:4}") int lanes,
+                                @Value("${spring.kafka.listener.concurrency:1}") int consumerThreads) {
+        this.lanes = Math.max(1, lanes);
+        this.executor = this.lanes == 1 ? null
+                : Executors.newFixedThreadPool((this.lanes - 1) * Math.max(1, consumerThreads), new CustomizableThreadFactory("key-lane-"));
+    }
+
+    public <K, V> void dispatch(List<ConsumerRecord<K, V>> records, Consumer<ConsumerRecord<K, V>> handler) {
+        if (lanes == 1 || records.size() < 2) {
+            fail(runLane(records, null, handler));
+            return;
+        }
+        int[][] laneIndexes = split(records);
+        List<Future<Failure>> others = new ArrayList<>(lanes - 1);
+        for (int lane = 1; lane < lanes; lane++) {
+            int[] indexes = laneIndexes[lane];
+            if (indexes.length > 0) {
+                others.add(executor.submit(() -> runLane(records, indexes, handler)));
+            }
+        }
+        Failure first = runLane(records, laneIndexes[0], handler);
+        for (Future<Failure> other : others) {
+            Failure failure = await(other);
+            if (failure != null && (first == null || failure.index() < first.index())) {
+                first = failure;
+            }
+        }
+        fail(first);
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    // counting sort of the batch indexes by lane, keeping batch order within a lane
+    private <K, V> int[][] split(List<ConsumerRecord<K, V>> records) {
+        int[] laneOf = new int[records.size()];
+        int[] counts = new int[lanes];
+        for (int i = 0; i < laneOf.length; i++) {
+            ConsumerRecord<K, V> record = records.get(i);
+            K key = record.key();
+            laneOf[i] = Math.floorMod(key != null ? key.hashCode() : record.partition(), lanes);
+            counts[laneOf[i]]++;
+        }
+        int[][] laneIndexes = new int[lanes][];
+        for (int lane = 0; lane < lanes; lane++) {
+            laneIndexes[lane] = new int[counts[lane]];
+            counts[lane] = 0;
+        }
+        for (int i = 0; i < laneOf.length; i++) {
+            laneIndexes[laneOf[i]][counts[laneOf[i]]++] = i;
+        }
+        return laneIndexes;
+    }
+
+    // indexes == null: the whole batch in order
+    private static <K, V> Failure runLane(List<ConsumerRecord<K, V>> records, int[] indexes,
+                                          Consumer<ConsumerRecord<K, V>> handler) {
+        int count = indexes == null ? records.size() : indexes.length;
+        for (int i = 0; i < count; i++) {
+            int index = indexes == null ? i : indexes[i];
+            try {
+                handler.accept(records.get(index));
+            } catch (RuntimeException e) {
+                return new Failure(index, e);
+            }
+        }
+        return null;
+    }
+
+    private static Failure await(Future<Failure> lane) {
+        try {
+            return lane.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the key lanes", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Key lane failed", e.getCause());
+        }
+    }
+
+    private static void fail(Failure failure) {
+        if (failure != null) {
+            throw new BatchListenerFailedException(failure.cause().getMessage(), failure.cause(), failure.index());
+        }
+    }
+
+    private record Failure(int index, RuntimeException cause) {
+    }
+}
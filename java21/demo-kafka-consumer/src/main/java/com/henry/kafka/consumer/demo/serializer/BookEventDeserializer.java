@@ -0,0 +1,45 @@
+package com.henry.kafka.consumer.demo.serializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.henry.kafka.consumer.demo.dto.BookEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+
+/**
+ * Counterpart of the producer's {@code BookEventSerializer}. Reads both wire formats: the
+ * binary encoding of {@link BookEventBinaryCodec}, recognised by its leading schema version
+ * byte, and plain JSON.
+ * <p>
+ * A copy of the producer's {@code BookEventDeserializer}, reading into this module's DTOs; see
+ * {@link BookEventBinaryCodec} for how the two are kept compatible.
+ */
+public class BookEventDeserializer implements Deserializer<BookEvent> {
+
+    private final ObjectReader reader;
+
+    public BookEventDeserializer() {
+        this(new ObjectMapper());
+    }
+
+    public BookEventDeserializer(ObjectMapper objectMapper) {
+        this.reader = objectMapper.readerFor(BookEvent.class);
+    }
+
+    @Override
+    public BookEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (BookEventBinaryCodec.isBinary(data)) {
+            return BookEventBinaryCodec.decode(data);
+        }
+        try {
+            return reader.readValue(data);
+        } catch (IOException e) {
+            throw new SerializationException("Error deserializing BookEvent from topic " + topic, e);
+        }
+    }
+}
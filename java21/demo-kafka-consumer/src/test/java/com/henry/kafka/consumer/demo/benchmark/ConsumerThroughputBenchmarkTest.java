@@ -0,0 +1,140 @@
+package com.henry.kafka.consumer.demo.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henry.kafka.consumer.demo.dto.Book;
+import com.henry.kafka.consumer.demo.dto.BookEvent;
+import com.henry.kafka.consumer.demo.dto.BookEventType;
+import com.henry.kafka.consumer.demo.listener.BookEventHandler;
+import com.henry.kafka.consumer.demo.listener.BookEventsListener;
+import com.henry.kafka.consumer.demo.listener.KeyOrderedDispatcher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.IntegerDeserializer;
+import org.apache.kafka.common.serialization.IntegerSerializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Records/sec of the listener (decode, count, async batch commits) against the embedded broker for
+ * a few {@code max.poll.records} / {@code fetch.min.bytes} / key lane / partition combinations. Each
+ * run reads the same preloaded topic from the beginning with a fresh consumer group, one consumer
+ * thread per partition.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test -Dtest=ConsumerThroughputBenchmarkTest}
+ * ({@code -Dbenchmark.records=N} to change the record count).
+ */
+@Tag("benchmark")
+@EmbeddedKafka(topics = ConsumerThroughputBenchmarkTest.TOPIC, partitions = 3)
+class ConsumerThroughputBenchmarkTest {
+
+    static final String TOPIC = "book-events-benchmark";
+    static final String TOPIC_6 = "book-events-benchmark-6";
+
+    private static final int RECORDS = Integer.getInteger("benchmark.records", 200_000);
+
+    private record Scenario(String topic, int partitions, int maxPollRecords, int fetchMinBytes, int keyParallelism) {
+    }
+
+    @Test
+    void consumerThroughput(EmbeddedKafkaBroker broker) throws Exception {
+        broker.addTopics(new NewTopic(TOPIC_6, 6, (short) 1));
+        preload(broker, TOPIC);
+        preload(broker, TOPIC_6);
+
+        List<Scenario> scenarios = List.of(
+                new Scenario(TOPIC, 3, 500, 1, 4),
+                new Scenario(TOPIC, 3, 500, 65_536, 4),
+                new Scenario(TOPIC, 3, 2_000, 1, 4),
+                new Scenario(TOPIC, 3, 2_000, 65_536, 4),
+                new Scenario(TOPIC, 3, 2_000, 65_536, 1),
+                new Scenario(TOPIC_6, 6, 2_000, 65_536, 4));
+
+        // warm up the decode path once, unreported
+        run(broker, scenarios.get(0));
+        StringBuilder report = new StringBuilder(String.format("%n%-11s %16s %15s %9s %14s%n",
+                "partitions", "max.poll.records", "fetch.min.bytes", "lanes", "records/sec"));
+        for (Scenario scenario : scenarios) {
+            report.append(String.format("%-11d %,16d %,15d %9d %,14.0f%n", scenario.partitions(), scenario.maxPollRecords(),
+                    scenario.fetchMinBytes(), scenario.keyParallelism(), run(broker, scenario)));
+        }
+        System.out.println(report);
+    }
+
+    private static void preload(EmbeddedKafkaBroker broker, String topic) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, Object> configs = Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+                ProducerConfig.LINGER_MS_CONFIG, 5,
+                ProducerConfig.BATCH_SIZE_CONFIG, 65_536);
+        try (KafkaProducer<Integer, byte[]> producer = new KafkaProducer<>(configs, new IntegerSerializer(), new ByteArraySerializer())) {
+            for (int i = 0; i < RECORDS; i++) {
+                int bookId = i % 10_000;
+                BookEvent bookEvent = new BookEvent(i, BookEventType.UPDATE, new Book(bookId, "Kafka Deep Dive", "Henry Xiloj"));
+                producer.send(new ProducerRecord<>(topic, bookId, objectMapper.writeValueAsBytes(bookEvent)));
+            }
+            producer.flush();
+        }
+    }
+
+    private static double run(EmbeddedKafkaBroker broker, Scenario scenario) throws InterruptedException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        KeyOrderedDispatcher dispatcher = new KeyOrderedDispatcher(scenario.keyParallelism(), scenario.partitions());
+        BookEventsListener listener = new BookEventsListener(dispatcher, new BookEventHandler(new ObjectMapper(), meterRegistry), meterRegistry);
+
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        configs.put(ConsumerConfig.GROUP_ID_CONFIG, "benchmark-" + UUID.randomUUID());
+        configs.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        configs.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, scenario.maxPollRecords());
+        configs.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, scenario.fetchMinBytes());
+        configs.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, 100);
+
+        ContainerProperties containerProperties = new ContainerProperties(scenario.topic());
+        containerProperties.setAckMode(ContainerProperties.AckMode.BATCH);
+        containerProperties.setSyncCommits(false);
+        containerProperties.setMessageListener((BatchMessageListener<Integer, byte[]>) listener::onBatch);
+        ConcurrentMessageListenerContainer<Integer, byte[]> container = new ConcurrentMessageListenerContainer<>(
+                new DefaultKafkaConsumerFactory<>(configs, new IntegerDeserializer(), new ByteArrayDeserializer()),
+                containerProperties);
+        container.setConcurrency(scenario.partitions());
+
+        long start = System.nanoTime();
+        container.start();
+        try {
+            long deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(2);
+            while (consumed(meterRegistry) < RECORDS) {
+                assertTrue(System.currentTimeMillis() < deadline, "consumed " + consumed(meterRegistry) + " of " + RECORDS);
+                Thread.sleep(5);
+            }
+            return RECORDS * 1e9 / (System.nanoTime() - start);
+        } finally {
+            container.stop();
+            dispatcher.destroy();
+        }
+    }
+
+    private static double consumed(SimpleMeterRegistry meterRegistry) {
+        return meterRegistry.find(BookEventHandler.EVENTS).counters().stream().mapToDouble(Counter::count).sum();
+    }
+}
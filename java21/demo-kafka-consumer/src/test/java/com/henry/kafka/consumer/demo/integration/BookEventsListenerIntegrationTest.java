@@ -0,0 +1,104 @@
+package com.henry.kafka.consumer.demo.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henry.kafka.consumer.demo.dto.Book;
+import com.henry.kafka.consumer.demo.dto.BookEvent;
+import com.henry.kafka.consumer.demo.dto.BookEventType;
+import com.henry.kafka.consumer.demo.listener.BookEventHandler;
+import com.henry.kafka.consumer.demo.listener.BookEventsListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.search.MeterNotFoundException;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.IntegerSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.TestPropertySource;
+
+import static com.henry.kafka.consumer.demo.serializer.BookEventBinaryCodec.encode;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@EmbeddedKafka(topics = {"book-events", "user-events"}, partitions = 3)
+@TestPropertySource(properties = {
+        "spring.kafka.consumer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.topic=book-events",
+        "spring.kafka.topic2=user-events"
+})
+class BookEventsListenerIntegrationTest {
+
+    @Autowired
+    EmbeddedKafkaBroker embeddedKafkaBroker;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void consumesBothTopicsAndCommitsTheirOffsets() throws Exception {
+        try (Producer<Integer, byte[]> producer = new DefaultKafkaProducerFactory<>(
+                KafkaTestUtils.producerProps(embeddedKafkaBroker), new IntegerSerializer(), new ByteArraySerializer()
+        ).createProducer()) {
+            for (int i = 0; i < 100; i++) {
+                BookEvent bookEvent = new BookEvent(i, BookEventType.NEW, new Book(i % 7, "Kafka Deep Dive", "Henry Xiloj"));
+                // both wire formats on one topic: the handler tells them apart
+                byte[] value = i % 2 == 0 ? objectMapper.writeValueAsBytes(bookEvent) : encode(bookEvent);
+                producer.send(new ProducerRecord<>("book-events", bookEvent.book().bookId(), value));
+            }
+            for (int i = 0; i < 10; i++) {
+                producer.send(new ProducerRecord<>("user-events", i,
+                        objectMapper.writeValueAsBytes(new BookEvent(i, BookEventType.UPDATE, new Book(i, "Kafka", "Henry")))));
+            }
+        }
+
+        awaitCount("book-events", 100);
+        awaitCount("user-events", 10);
+        assertTrue(meterRegistry.get(BookEventsListener.BATCH_SIZE).summary().count() > 0);
+
+        // commits are asynchronous: they land shortly after the batch
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (committed("book-events") < 100 || committed("user-events") < 10) {
+            assertTrue(System.currentTimeMillis() < deadline, "offsets not committed");
+            Thread.sleep(100);
+        }
+        assertEquals(100, committed("book-events"));
+        assertEquals(10, committed("user-events"));
+    }
+
+    private void awaitCount(String topic, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (count(topic) < expected) {
+            assertTrue(System.currentTimeMillis() < deadline, "consumed " + count(topic) + " of " + expected + " from " + topic);
+            Thread.sleep(100);
+        }
+        assertEquals(expected, count(topic));
+    }
+
+    private double count(String topic) {
+        try {
+            return meterRegistry.get(BookEventHandler.EVENTS).tag("topic", topic).counter().count();
+        } catch (MeterNotFoundException e) {
+            return 0;
+        }
+    }
+
+    private long committed(String topic) throws Exception {
+        long committed = 0;
+        for (int partition = 0; partition < 3; partition++) {
+            OffsetAndMetadata offset = KafkaTestUtils.getCurrentOffset(
+                    embeddedKafkaBroker.getBrokersAsString(), "book-events-consumer", topic, partition);
+            committed += offset == null ? 0 : offset.offset();
+        }
+        return committed;
+    }
+}
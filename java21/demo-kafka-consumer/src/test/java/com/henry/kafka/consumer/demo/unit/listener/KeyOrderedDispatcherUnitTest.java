@@ -0,0 +1,106 @@
+package com.henry.kafka.consumer.demo.unit.listener;
+
+import com.henry.kafka.consumer.demo.listener.KeyOrderedDispatcher;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyOrderedDispatcherUnitTest {
+
+    KeyOrderedDispatcher dispatcher = new KeyOrderedDispatcher(4, 1);
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.destroy();
+    }
+
+    @Test
+    void eventsOfABookKeepTheirOrder() {
+        List<ConsumerRecord<Integer, String>> records = new ArrayList<>();
+        for (int offset = 0; offset < 1_000; offset++) {
+            records.add(record(offset % 10, offset));
+        }
+        Map<Integer, List<Long>> seen = new ConcurrentHashMap<>();
+
+        dispatcher.dispatch(records, record -> seen
+                .computeIfAbsent(record.key(), key -> Collections.synchronizedList(new ArrayList<>()))
+                .add(record.offset()));
+
+        assertEquals(10, seen.size());
+        seen.forEach((key, offsets) -> {
+            assertEquals(100, offsets.size());
+            for (int i = 0; i < offsets.size(); i++) {
+                assertEquals(key + 10L * i, offsets.get(i));
+            }
+        });
+    }
+
+    @Test
+    void differentBooksRunInParallel() {
+        // book 1 waits for book 2: finishes only if their lanes run at the same time
+        CountDownLatch book2Started = new CountDownLatch(1);
+        List<ConsumerRecord<Integer, String>> records = List.of(record(1, 0), record(2, 1));
+
+        dispatcher.dispatch(records, record -> {
+            if (record.key() == 2) {
+                book2Started.countDown();
+            } else {
+                try {
+                    assertTrue(book2Started.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+    }
+
+    @Test
+    void failsAtTheLowestFailedIndex() {
+        List<ConsumerRecord<Integer, String>> records = new ArrayList<>();
+        for (int offset = 0; offset < 100; offset++) {
+            records.add(record(offset % 4, offset));
+        }
+
+        BatchListenerFailedException exception = assertThrows(BatchListenerFailedException.class,
+                () -> dispatcher.dispatch(records, record -> {
+                    if (record.offset() == 37 || record.offset() == 62) {
+                        throw new IllegalStateException("bad record " + record.offset());
+                    }
+                }));
+
+        assertEquals(37, exception.getIndex());
+        assertEquals("bad record 37", exception.getCause().getMessage());
+    }
+
+    @Test
+    void singleLaneRunsOnTheCallingThread() {
+        KeyOrderedDispatcher single = new KeyOrderedDispatcher(1, 3);
+        Thread caller = Thread.currentThread();
+        List<Long> offsets = new ArrayList<>();
+
+        single.dispatch(List.of(record(1, 0), record(2, 1), record(null, 2)), record -> {
+            assertEquals(caller, Thread.currentThread());
+            offsets.add(record.offset());
+        });
+
+        assertEquals(List.of(0L, 1L, 2L), offsets);
+        single.destroy();
+    }
+
+    private static ConsumerRecord<Integer, String> record(Integer key, long offset) {
+        return new ConsumerRecord<>("book-events", 0, offset, key, "value-" + offset);
+    }
+}
@@ -0,0 +1,52 @@
+package com.henry.kafka.consumer.demo.unit.serializer;
+
+import com.henry.kafka.consumer.demo.dto.Book;
+import com.henry.kafka.consumer.demo.dto.BookEvent;
+import com.henry.kafka.consumer.demo.dto.BookEventType;
+import com.henry.kafka.consumer.demo.serializer.BookEventBinaryCodec;
+import com.henry.kafka.consumer.demo.serializer.BookEventDeserializer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookEventDeserializerUnitTest {
+
+    // written by the producer's BookEventSerializer; its BookEventBinaryCodecUnitTest keeps the file current
+    private static final Path PRODUCER_FIXTURE = Path.of("../demo-kafka-producer/src/test/resources/wire-format/book-events.hex");
+
+    // the producer's BookEventBinaryCodecUnitTest.WIRE_FORMAT_EVENTS
+    private static final List<BookEvent> EVENTS = List.of(
+            new BookEvent(null, BookEventType.NEW, new Book(456, "Kafka Using Spring Boot", "Henry Xiloj")),
+            new BookEvent(123, BookEventType.UPDATE, new Book(-7, "Ünïcödé 書籍 📖", "Henry Xiloj")),
+            new BookEvent(Integer.MAX_VALUE, null, new Book(Integer.MIN_VALUE, null, "")),
+            new BookEvent(-42, null, null));
+
+    BookEventDeserializer deserializer = new BookEventDeserializer();
+
+    @Test
+    void deserialize_readsWhatTheProducerWrites() throws Exception {
+        List<byte[]> payloads = Files.readAllLines(PRODUCER_FIXTURE).stream()
+                .filter(line -> !line.startsWith("#"))
+                .map(HexFormat.of()::parseHex)
+                .toList();
+
+        assertEquals(EVENTS.size() * 2, payloads.size());
+        for (int i = 0; i < EVENTS.size(); i++) {
+            byte[] binary = payloads.get(2 * i);
+            byte[] json = payloads.get(2 * i + 1);
+            assertTrue(BookEventBinaryCodec.isBinary(binary));
+            assertFalse(BookEventBinaryCodec.isBinary(json));
+            assertEquals(EVENTS.get(i), deserializer.deserialize("book-events", binary));
+            assertEquals(EVENTS.get(i), deserializer.deserialize("book-events", json));
+            // the copy still encodes byte for byte like the producer
+            assertEquals(HexFormat.of().formatHex(binary), HexFormat.of().formatHex(BookEventBinaryCodec.encode(EVENTS.get(i))));
+        }
+    }
+}
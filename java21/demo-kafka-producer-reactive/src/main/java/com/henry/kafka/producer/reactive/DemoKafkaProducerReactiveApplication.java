@@ -0,0 +1,13 @@
+package com.henry.kafka.producer.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class DemoKafkaProducerReactiveApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(DemoKafkaProducerReactiveApplication.class, args);
+	}
+
+}
@@ -0,0 +1,30 @@
+package com.henry.kafka.producer.reactive.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
+
+/**
+ * The {@link KafkaSender} shared by both controllers, configured from the same
+ * {@code spring.kafka.producer.*} properties as the servlet application.
+ * <p>
+ * {@code app.sender.max-in-flight} caps the records of one send pipeline that are not yet acked;
+ * beyond it the sender stops requesting from upstream, which for a streamed request body means
+ * the connection is no longer read. A failed record does not cancel the rest of its pipeline, it
+ * is reported in its own {@code SenderResult}.
+ */
+@Configuration
+public class ReactiveKafkaConfig {
+
+    @Bean(destroyMethod = "close")
+    public KafkaSender<Integer, byte[]> kafkaSender(KafkaProperties properties,
+                                                   @Value("${app.sender.max-in-flight:1024}") int maxInFlight) {
+        SenderOptions<Integer, byte[]> senderOptions = SenderOptions.<Integer, byte[]>create(properties.buildProducerProperties())
+                .maxInFlight(maxInFlight)
+                .stopOnError(false);
+        return KafkaSender.create(senderOptions);
+    }
+}
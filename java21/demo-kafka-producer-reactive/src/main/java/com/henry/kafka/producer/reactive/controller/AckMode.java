@@ -0,0 +1,25 @@
+package com.henry.kafka.producer.reactive.controller;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * When a single-event request is answered, selected with the {@code ack} query parameter.
+ */
+public enum AckMode {
+
+    // answer at once with the event, the send completes in the background
+    NONE,
+    // answer with the partition and offset once the broker acked the record
+    BROKER;
+
+    public static AckMode from(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new UnknownAckModeException("Unknown ack mode '" + name + "', expected one of "
+                    + Arrays.stream(values()).map(m -> m.name().toLowerCase(Locale.ROOT)).collect(Collectors.joining(", ")), e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.henry.kafka.producer.reactive.controller;
+
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.KafkaException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.support.WebExchangeBindException;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@ControllerAdvice
+@Slf4j
+public class BookEventControllerAdvice {
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<?> handleRequestBody(WebExchangeBindException ex) {
+
+        List<FieldError> errorList = ex.getBindingResult().getFieldErrors();
+        String errorMessage = errorList.stream()
+                .map(fieldError -> fieldError.getField() + " - " + fieldError.getDefaultMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+        log.info("errorMessage : {} ", errorMessage);
+        return new ResponseEntity<>(errorMessage, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(UnknownAckModeException.class)
+    public ResponseEntity<?> handleUnknownAckMode(UnknownAckModeException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    // ack=broker and the send failed
+    @ExceptionHandler(KafkaException.class)
+    public ResponseEntity<?> handleSendFailure(KafkaException ex) {
+        log.info("errorMessage : {} ", ex.getMessage());
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_GATEWAY);
+    }
+}
@@ -0,0 +1,166 @@
+package com.henry.kafka.producer.reactive.controller;
+
+import com.henry.kafka.producer.reactive.dto.BookEvent;
+import com.henry.kafka.producer.reactive.dto.BookEventResult;
+import com.henry.kafka.producer.reactive.dto.BookEventType;
+import com.henry.kafka.producer.reactive.dto.StreamIngestResult;
+import com.henry.kafka.producer.reactive.producer.ReactiveEventProducer;
+import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.codec.CodecException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+@RestController
+@Slf4j
+public class BookEventsController {
+
+    private static final String SOURCE = "scanner";
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final ReactiveEventProducer eventProducer;
+    private final Validator validator;
+
+    @Value("${spring.kafka.topic}")
+    public String topic;
+
+    public BookEventsController(ReactiveEventProducer eventProducer, Validator validator) {
+        this.eventProducer = eventProducer;
+        this.validator = validator;
+    }
+
+    @PostMapping("/v1/bookevent")
+    public Mono<ResponseEntity<?>> postBookEvent(@RequestBody @Valid BookEvent bookEvent,
+                                                 @RequestParam(defaultValue = "none") String ack) {
+
+        if (BookEventType.NEW != bookEvent.bookEventType()) {
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Only NEW event type is supported"));
+        }
+        return send(bookEvent, AckMode.from(ack), HttpStatus.CREATED);
+    }
+
+    //PUT
+    @PutMapping("/v1/bookevent")
+    public Mono<ResponseEntity<?>> putBookEvent(@RequestBody @Valid BookEvent bookEvent,
+                                                @RequestParam(defaultValue = "none") String ack) {
+
+        if (bookEvent.bookEventId() == null) {
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please pass the LibraryEventId"));
+        }
+        if (BookEventType.UPDATE != bookEvent.bookEventType()) {
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Only UPDATE event type is supported"));
+        }
+        return send(bookEvent, AckMode.from(ack), HttpStatus.OK);
+    }
+
+    /**
+     * NDJSON body, one NEW BookEvent per line. Events are sent while the body is read, and the body is
+     * only read as fast as the broker acks ({@code app.sender.max-in-flight}), so a slow cluster
+     * pushes back on the client's connection instead of piling up in memory. Answered once every
+     * record is acked.
+     */
+    @PostMapping(value = "/v1/bookevent/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<StreamIngestResult>> postBookEventStream(@RequestBody Flux<BookEvent> bookEvents) {
+
+        AtomicLong line = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        AtomicLong accepted = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+        Flux<Tuple2<Long, BookEvent>> validEvents = bookEvents
+                .map(bookEvent -> Tuples.of(line.incrementAndGet(), bookEvent))
+                .filter(numbered -> {
+                    String errorMessage = validate(numbered.getT2());
+                    if (errorMessage != null) {
+                        rejected.incrementAndGet();
+                        addError(errors, "[" + numbered.getT1() + "] " + errorMessage);
+                    }
+                    return errorMessage == null;
+                })
+                // a malformed line cannot be skipped reliably, so the stream stops here
+                .onErrorResume(CodecException.class, e -> {
+                    log.info("Stopped reading the stream at line {} : {}", line.get() + 1, e.getMessage());
+                    addError(errors, "[" + (line.get() + 1) + "] " + e.getMessage());
+                    return Flux.empty();
+                });
+
+        return eventProducer.sendAll(topic, SOURCE, validEvents)
+                .doOnNext(result -> {
+                    if (result.exception() != null) {
+                        failed.incrementAndGet();
+                        addError(errors, "[" + result.correlationMetadata() + "] " + result.exception().getMessage());
+                    } else {
+                        accepted.incrementAndGet();
+                    }
+                })
+                .then(Mono.fromSupplier(() -> {
+                    StreamIngestResult result = new StreamIngestResult(accepted.get(), rejected.get(), failed.get(), List.copyOf(errors));
+                    log.info("Stream ingested : accepted={}, rejected={}, failed={}", result.accepted(), result.rejected(), result.failed());
+                    HttpStatus status = result.rejected() == 0 && result.failed() == 0 && result.errors().isEmpty()
+                            ? HttpStatus.CREATED
+                            : HttpStatus.MULTI_STATUS;
+                    return ResponseEntity.status(status).body(result);
+                }));
+    }
+
+    private Mono<ResponseEntity<?>> send(BookEvent bookEvent, AckMode ackMode, HttpStatus status) {
+        if (ackMode == AckMode.NONE) {
+            // failures are logged and counted by the producer
+            if (!eventProducer.trySendDetached(topic, SOURCE, bookEvent)) {
+                return Mono.just(tooManyInFlight());
+            }
+            return Mono.just(ResponseEntity.status(status).body(bookEvent));
+        }
+        return eventProducer.send(topic, SOURCE, bookEvent)
+                .map(metadata -> ResponseEntity.status(status).body(BookEventResult.success(0, metadata.partition(), metadata.offset())));
+    }
+
+    /**
+     * {@code ack=none} answer while {@code app.sender.ack-none-max-in-flight} sends are unacked.
+     */
+    static ResponseEntity<?> tooManyInFlight() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Too many unacknowledged sends, retry later");
+    }
+
+    private String validate(BookEvent bookEvent) {
+        if (BookEventType.NEW != bookEvent.bookEventType()) {
+            return "Only NEW event type is supported";
+        }
+        var violations = validator.validate(bookEvent);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " - " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private static void addError(List<String> errors, String error) {
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(error);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.henry.kafka.producer.reactive.controller;
+
+/**
+ * Thrown by {@link AckMode#from} for an {@code ack} value it does not know; answered with 400.
+ */
+public class UnknownAckModeException extends RuntimeException {
+
+    public UnknownAckModeException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,62 @@
+package com.henry.kafka.producer.reactive.controller;
+
+import com.henry.kafka.producer.reactive.dto.BookEvent;
+import com.henry.kafka.producer.reactive.dto.BookEventResult;
+import com.henry.kafka.producer.reactive.dto.BookEventType;
+import com.henry.kafka.producer.reactive.producer.ReactiveEventProducer;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+@RestController
+@Slf4j
+public class UserEventsController {
+
+    private static final String SOURCE = "user-api";
+
+    private final ReactiveEventProducer eventProducer;
+
+    @Value("${spring.kafka.topic2}")
+    public String topic2;
+
+    public UserEventsController(ReactiveEventProducer eventProducer) {
+        this.eventProducer = eventProducer;
+    }
+
+    @PostMapping("/v1/userevent")
+    public Mono<ResponseEntity<?>> postUserEvent(@RequestBody @Valid BookEvent event,
+                                                 @RequestParam(defaultValue = "none") String ack) {
+        if (BookEventType.NEW != event.bookEventType()) {
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Only NEW event type is supported"));
+        }
+        return send(event, AckMode.from(ack), HttpStatus.CREATED);
+    }
+
+    @PutMapping("/v1/userevent")
+    public Mono<ResponseEntity<?>> putUserEvent(@RequestBody @Valid BookEvent event,
+                                                @RequestParam(defaultValue = "none") String ack) {
+        if (event.bookEventId() == null) {
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please pass the LibraryEventId"));
+        }
+        if (BookEventType.UPDATE != event.bookEventType()) {
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Only UPDATE event type is supported"));
+        }
+        return send(event, AckMode.from(ack), HttpStatus.OK);
+    }
+
+    // see BookEventsController#send
+    private Mono<ResponseEntity<?>> send(BookEvent event, AckMode ackMode, HttpStatus status) {
+        if (ackMode == AckMode.NONE) {
+            if (!eventProducer.trySendDetached(topic2, SOURCE, event)) {
+                return Mono.just(BookEventsController.tooManyInFlight());
+            }
+            return Mono.just(ResponseEntity.status(status).body(event));
+        }
+        return eventProducer.send(topic2, SOURCE, event)
+                .map(metadata -> ResponseEntity.status(status).body(BookEventResult.success(0, metadata.partition(), metadata.offset())));
+    }
+}
@@ -0,0 +1,13 @@
+package com.henry.kafka.producer.reactive.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+public record Book(
+        @NotNull
+        Integer bookId,
+        @NotBlank
+        String bookName,
+        @NotBlank
+        String bookAuthor) {
+}
@@ -0,0 +1,13 @@
+package com.henry.kafka.producer.reactive.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+
+public record BookEvent(
+        Integer bookEventId,
+        BookEventType bookEventType,
+        @NotNull
+        @Valid
+        Book book
+) {
+}
@@ -0,0 +1,19 @@
+package com.henry.kafka.producer.reactive.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BookEventResult(
+        int index,
+        Integer partition,
+        Long offset,
+        String error) {
+
+    public static BookEventResult success(int index, int partition, long offset) {
+        return new BookEventResult(index, partition, offset, null);
+    }
+
+    public static BookEventResult failure(int index, String error) {
+        return new BookEventResult(index, null, null, error);
+    }
+}
@@ -0,0 +1,6 @@
+package com.henry.kafka.producer.reactive.dto;
+
+public enum BookEventType {
+    NEW,
+    UPDATE
+}
@@ -0,0 +1,10 @@
+package com.henry.kafka.producer.reactive.dto;
+
+import java.util.List;
+
+public record StreamIngestResult(
+        long accepted,
+        long rejected,
+        long failed,
+        List<String> errors) {
+}
@@ -0,0 +1,104 @@
+package com.henry.kafka.producer.reactive.producer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henry.kafka.producer.reactive.dto.BookEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
+import reactor.util.function.Tuple2;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Sends BookEvents as JSON through the {@link KafkaSender}, keyed by {@code book.bookId} like the
+ * servlet application. Nothing here blocks: the returned publishers signal on the broker ack.
+ */
+@Component
+@Slf4j
+public class ReactiveEventProducer {
+
+    public static final String DETACHED_FAILED = "book.producer.detached.failed";
+
+    private final KafkaSender<Integer, byte[]> kafkaSender;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore detachedPermits;
+    private final Map<String, Counter> detachedFailed = new ConcurrentHashMap<>();
+
+    public ReactiveEventProducer(KafkaSender<Integer, byte[]> kafkaSender, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                 @Value("${app.sender.ack-none-max-in-flight:1024}") int detachedMaxInFlight) {
+        this.kafkaSender = kafkaSender;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.detachedPermits = new Semaphore(detachedMaxInFlight);
+    }
+
+    /**
+     * Emits the metadata of the acked record, or an error when the event cannot be serialized or sent.
+     */
+    public Mono<RecordMetadata> send(String topic, String source, BookEvent event) {
+        return Mono.fromCallable(() -> SenderRecord.create(buildProducerRecord(topic, source, event), event.book().bookId()))
+                .flatMap(senderRecord -> kafkaSender.send(Mono.just(senderRecord)).next())
+                .flatMap(result -> result.exception() != null
+                        ? Mono.<RecordMetadata>error(result.exception())
+                        : Mono.just(result.recordMetadata()))
+                .doOnError(ex -> log.error("Error Sending the Message to {} for the key : {} and the exception is {}",
+                        topic, event.book().bookId(), ex.getMessage()));
+    }
+
+    /**
+     * Sends the event with nobody waiting for the ack, for {@code ack=none}. At most
+     * {@code app.sender.ack-none-max-in-flight} of these are unacked at a time, across all requests;
+     * returns false without sending when that many are. A failed send is logged by {@link #send}
+     * and counted in {@value #DETACHED_FAILED}.
+     */
+    public boolean trySendDetached(String topic, String source, BookEvent event) {
+        if (!detachedPermits.tryAcquire()) {
+            return false;
+        }
+        send(topic, source, event)
+                .doFinally(signal -> detachedPermits.release())
+                .subscribe(metadata -> { }, ex -> detachedFailed.computeIfAbsent(topic, t -> Counter.builder(DETACHED_FAILED)
+                        .description("ack=none sends that failed after the response was sent")
+                        .tag("topic", t)
+                        .register(meterRegistry)).increment());
+        return true;
+    }
+
+    /**
+     * Sends the events in order, one {@link SenderResult} per event correlated by the number it
+     * came with, with at most {@code app.sender.max-in-flight} unacked records: upstream is only
+     * requested from as acks come back.
+     */
+    public Flux<SenderResult<Long>> sendAll(String topic, String source, Flux<Tuple2<Long, BookEvent>> numberedEvents) {
+        return kafkaSender.send(numberedEvents.map(numbered -> {
+            try {
+                return SenderRecord.create(buildProducerRecord(topic, source, numbered.getT2()), numbered.getT1());
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException(e.getOriginalMessage(), e);
+            }
+        }));
+    }
+
+    private ProducerRecord<Integer, byte[]> buildProducerRecord(String topic, String source, BookEvent event)
+            throws JsonProcessingException {
+
+        List<Header> recordHeaders = List.of(new RecordHeader("event-source", source.getBytes()));
+        return new ProducerRecord<>(topic, null, event.book().bookId(), objectMapper.writeValueAsBytes(event), recordHeaders);
+    }
+}
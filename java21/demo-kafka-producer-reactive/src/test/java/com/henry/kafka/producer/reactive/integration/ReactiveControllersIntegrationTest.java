@@ -0,0 +1,122 @@
+package com.henry.kafka.producer.reactive.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henry.kafka.producer.reactive.dto.Book;
+import com.henry.kafka.producer.reactive.dto.BookEvent;
+import com.henry.kafka.producer.reactive.dto.BookEventType;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.serialization.IntegerDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EmbeddedKafka(topics = {"book-events", "user-events"}, partitions = 3)
+@TestPropertySource(properties = {
+        "spring.kafka.producer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.admin.properties.bootstrap.servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.topic=book-events",
+        "spring.kafka.topic2=user-events"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ReactiveControllersIntegrationTest {
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    EmbeddedKafkaBroker embeddedKafkaBroker;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    private Consumer<Integer, String> consumer;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, Object> configs =
+                new HashMap<>(KafkaTestUtils.consumerProps("group1", "true", embeddedKafkaBroker));
+        configs.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        consumer = new DefaultKafkaConsumerFactory<>(
+                configs, new IntegerDeserializer(), new StringDeserializer()
+        ).createConsumer();
+        embeddedKafkaBroker.consumeFromAllEmbeddedTopics(consumer);
+    }
+
+    @AfterEach
+    void tearDown() {
+        consumer.close();
+    }
+
+    @Test
+    void postBookEvent_ackBroker() throws Exception {
+        BookEvent bookEvent = new BookEvent(null, BookEventType.NEW, new Book(101, "Kafka Deep Dive", "Henry Xiloj"));
+
+        webTestClient.post().uri("/v1/bookevent?ack=broker")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(bookEvent)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.partition").isNumber()
+                .jsonPath("$.offset").isNumber();
+
+        ConsumerRecords<Integer, String> records = KafkaTestUtils.getRecords(consumer);
+        assertEquals(1, records.count());
+        var record = records.iterator().next();
+        assertEquals(101, record.key());
+        assertEquals(bookEvent, objectMapper.readValue(record.value(), BookEvent.class));
+    }
+
+    @Test
+    void postUserEvent() {
+        webTestClient.post().uri("/v1/userevent")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new BookEvent(null, BookEventType.NEW, new Book(102, "Reactive Streams", "Henry Xiloj")))
+                .exchange()
+                .expectStatus().isCreated();
+
+        ConsumerRecords<Integer, String> records = KafkaTestUtils.getRecords(consumer);
+        assertEquals(1, records.count());
+        assertEquals("user-events", records.iterator().next().topic());
+    }
+
+    @Test
+    void postBookEventStream_sendsValidLinesAndReportsTheRest() {
+        String body = """
+                {"bookEventId":null,"bookEventType":"NEW","book":{"bookId":1,"bookName":"A","bookAuthor":"Henry Xiloj"}}
+                {"bookEventId":null,"bookEventType":"NEW","book":{"bookId":null,"bookName":"B","bookAuthor":"Henry Xiloj"}}
+                {"bookEventId":null,"bookEventType":"NEW","book":{"bookId":3,"bookName":"C","bookAuthor":"Henry Xiloj"}}
+                """;
+
+        webTestClient.post().uri("/v1/bookevent/stream")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isEqualTo(207)
+                .expectBody()
+                .jsonPath("$.accepted").isEqualTo(2)
+                .jsonPath("$.rejected").isEqualTo(1)
+                .jsonPath("$.errors[0]").isEqualTo("[2] book.bookId - must not be null");
+
+        assertEquals(2, KafkaTestUtils.getRecords(consumer).count());
+    }
+}
@@ -0,0 +1,108 @@
+package com.henry.kafka.producer.reactive.unit.controller;
+
+import com.henry.kafka.producer.reactive.controller.BookEventsController;
+import com.henry.kafka.producer.reactive.dto.Book;
+import com.henry.kafka.producer.reactive.dto.BookEvent;
+import com.henry.kafka.producer.reactive.dto.BookEventType;
+import com.henry.kafka.producer.reactive.producer.ReactiveEventProducer;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(controllers = BookEventsController.class)
+class BookEventsControllerUnitTest {
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @MockitoBean
+    ReactiveEventProducer eventProducer;
+
+    @Test
+    void postBookEvent_answersWithoutWaitingForTheAck() {
+        when(eventProducer.trySendDetached(anyString(), anyString(), any(BookEvent.class))).thenReturn(true);
+
+        webTestClient.post().uri("/v1/bookevent")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(newEvent())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody().jsonPath("$.book.bookId").isEqualTo(101);
+        verify(eventProducer, never()).send(anyString(), anyString(), any(BookEvent.class));
+    }
+
+    @Test
+    void postBookEvent_429_whenTooManyAckNoneSendsAreInFlight() {
+        when(eventProducer.trySendDetached(anyString(), anyString(), any(BookEvent.class))).thenReturn(false);
+
+        webTestClient.post().uri("/v1/bookevent")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(newEvent())
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "1");
+    }
+
+    @Test
+    void postBookEvent_ackBrokerReturnsPartitionAndOffset() {
+        when(eventProducer.send(anyString(), anyString(), any(BookEvent.class)))
+                .thenReturn(Mono.just(new RecordMetadata(new TopicPartition("book-events", 2), 41, 0, 0, 4, 100)));
+
+        webTestClient.post().uri("/v1/bookevent?ack=broker")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(newEvent())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.partition").isEqualTo(2)
+                .jsonPath("$.offset").isEqualTo(41);
+    }
+
+    @Test
+    void postBookEvent_4xx_validationErrors() {
+        webTestClient.post().uri("/v1/bookevent")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new BookEvent(null, BookEventType.NEW, new Book(null, "", "Henry Xiloj")))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class).isEqualTo("book.bookId - must not be null, book.bookName - must not be blank");
+        verify(eventProducer, never()).send(anyString(), anyString(), any(BookEvent.class));
+    }
+
+    @Test
+    void postBookEvent_4xx_unknownAckMode() {
+        webTestClient.post().uri("/v1/bookevent?ack=quorum")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(newEvent())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void putBookEvent_4xx_missingBookEventId() {
+        webTestClient.put().uri("/v1/bookevent")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new BookEvent(null, BookEventType.UPDATE, new Book(101, "Kafka Deep Dive", "Henry Xiloj")))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class).isEqualTo("Please pass the LibraryEventId");
+    }
+
+    private static BookEvent newEvent() {
+        return new BookEvent(null, BookEventType.NEW, new Book(101, "Kafka Deep Dive", "Henry Xiloj"));
+    }
+}
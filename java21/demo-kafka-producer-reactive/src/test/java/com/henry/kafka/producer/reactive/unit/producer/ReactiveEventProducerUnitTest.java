@@ -0,0 +1,50 @@
+package com.henry.kafka.producer.reactive.unit.producer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henry.kafka.producer.reactive.dto.Book;
+import com.henry.kafka.producer.reactive.dto.BookEvent;
+import com.henry.kafka.producer.reactive.dto.BookEventType;
+import com.henry.kafka.producer.reactive.producer.ReactiveEventProducer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveEventProducerUnitTest {
+
+    private static final BookEvent EVENT = new BookEvent(null, BookEventType.NEW, new Book(101, "Kafka Deep Dive", "Henry Xiloj"));
+
+    @Mock
+    KafkaSender<Integer, byte[]> kafkaSender;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void trySendDetached_refusesOnceMaxInFlightSendsAreUnacked() {
+        Sinks.Many<SenderResult<Integer>> acks = Sinks.many().unicast().onBackpressureBuffer();
+        when(kafkaSender.<Integer>send(any())).thenReturn(acks.asFlux());
+        ReactiveEventProducer producer = new ReactiveEventProducer(kafkaSender, new ObjectMapper(), meterRegistry, 1);
+
+        assertTrue(producer.trySendDetached("book-events", "scanner", EVENT));
+        assertFalse(producer.trySendDetached("book-events", "scanner", EVENT));
+
+        // the failed ack frees the slot and is counted
+        acks.tryEmitError(new TimeoutException("brokers gone"));
+        when(kafkaSender.<Integer>send(any())).thenReturn(Flux.never());
+        assertTrue(producer.trySendDetached("book-events", "scanner", EVENT));
+        assertEquals(1, meterRegistry.get(ReactiveEventProducer.DETACHED_FAILED).tags("topic", "book-events").counter().count());
+    }
+}
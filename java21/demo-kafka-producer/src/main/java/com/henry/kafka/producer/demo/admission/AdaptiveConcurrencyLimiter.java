@@ -0,0 +1,95 @@
+package com.henry.kafka.producer.demo.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AIMD concurrency limit of one topic, driven by the ack latency of the sends it admitted.
+ * <p>
+ * An ack within the latency threshold while at least half the limit is in use grows the limit by
+ * one (additive increase); an ack above the threshold or a failed send shrinks it by
+ * {@code backoffRatio} (multiplicative decrease), at most once per threshold interval so one slow
+ * burst of acks does not collapse the limit to the floor.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+    private long lastDecreaseNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                                      long latencyThresholdNanos) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Expected 1 <= min-limit <= initial-limit <= max-limit, got "
+                    + minLimit + " <= " + initialLimit + " <= " + maxLimit);
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoff-ratio must be between 0 and 1, got " + backoffRatio);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.limit = initialLimit;
+        this.lastDecreaseNanos = System.nanoTime() - latencyThresholdNanos;
+    }
+
+    /**
+     * Takes {@code permits} slots if they fit under the current limit. An idle limiter always admits,
+     * so a batch larger than the limit is not rejected forever.
+     */
+    public boolean tryAcquire(int permits) {
+        while (true) {
+            int current = inFlight.get();
+            if (current > 0 && current + permits > (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + permits)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Frees one slot and feeds its outcome into the limit.
+     */
+    public void release(long latencyNanos, boolean failed) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        if (failed || latencyNanos > latencyThresholdNanos) {
+            decrease();
+        } else if (inFlightBefore * 2 >= limit) {
+            increase();
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * True when the limit has backed off to its floor, i.e. the brokers are struggling rather than just busy.
+     */
+    public boolean isAtMinimum() {
+        return (int) limit <= minLimit;
+    }
+
+    private synchronized void increase() {
+        limit = Math.min(maxLimit, limit + 1);
+    }
+
+    private synchronized void decrease() {
+        long now = System.nanoTime();
+        if (now - lastDecreaseNanos >= latencyThresholdNanos) {
+            lastDecreaseNanos = now;
+            limit = Math.max(minLimit, limit * backoffRatio);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.henry.kafka.producer.demo.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Admission control in front of the producers: one {@link AdaptiveConcurrencyLimiter} per topic,
+ * so a burst on one topic cannot take the capacity of another.
+ * <p>
+ * A request takes a {@link Permit} per record before handing it to the producer and gives it back
+ * when the send completes. When the topic's limit is used up the request is rejected at once with
+ * {@link AdmissionRejectedException} instead of queueing behind a full {@code buffer.memory}.
+ */
+@Component
+public class AdmissionControl {
+
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejections = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.admission.enabled:true}")
+    public boolean enabled = true;
+
+    @Value("${app.admission.initial-limit:100}")
+    public int initialLimit = 100;
+
+    @Value("${app.admission.min-limit:10}")
+    public int minLimit = 10;
+
+    @Value("${app.admission.max-limit:2000}")
+    public int maxLimit = 2000;
+
+    @Value("${app.admission.backoff-ratio:0.9}")
+    public double backoffRatio = 0.9;
+
+    @Value("${app.admission.latency-threshold-ms:500}")
+    public long latencyThresholdMs = 500;
+
+    @Value("${app.admission.retry-after-seconds:1}")
+    public long retryAfterSeconds = 1;
+
+    public AdmissionControl(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Admits {@code permits} records for {@code topic}, or throws {@link AdmissionRejectedException}.
+     */
+    public Permit acquire(String topic, int permits) {
+        if (!enabled) {
+            return Permit.NONE;
+        }
+        AdaptiveConcurrencyLimiter limiter = limiter(topic);
+        if (!limiter.tryAcquire(permits)) {
+            rejections.computeIfAbsent(topic, t -> Counter.builder("book.admission.rejected")
+                            .description("Requests rejected by the topic's concurrency limit")
+                            .tag("topic", t)
+                            .register(meterRegistry))
+                    .increment(permits);
+            throw new AdmissionRejectedException(topic, limiter.isAtMinimum(), retryAfterSeconds);
+        }
+        return new Permit(limiter, System.nanoTime());
+    }
+
+    /**
+     * Admits one record for {@code topic}, sends it and gives the slot back when the send completes.
+     */
+    public <T> CompletableFuture<T> admit(String topic, Supplier<CompletableFuture<T>> send) {
+        return admitAll(topic, 1, () -> List.of(send.get())).get(0);
+    }
+
+    /**
+     * Admits {@code count} records for {@code topic} at once, sends them and gives one slot back per completed send.
+     */
+    public <T> List<CompletableFuture<T>> admitAll(String topic, int count, Supplier<List<CompletableFuture<T>>> send) {
+        Permit permit = acquire(topic, count);
+        List<CompletableFuture<T>> futures;
+        try {
+            futures = send.get();
+        } catch (RuntimeException e) {
+            for (int i = 0; i < count; i++) {
+                permit.release(e);
+            }
+            throw e;
+        }
+        List<CompletableFuture<T>> released = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            released.add(future.whenComplete((result, throwable) -> permit.release(throwable)));
+        }
+        return released;
+    }
+
+    AdaptiveConcurrencyLimiter limiter(String topic) {
+        return limiters.computeIfAbsent(topic, t -> {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit,
+                    backoffRatio, TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs));
+            Gauge.builder("book.admission.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .description("Current concurrency limit of the topic")
+                    .tag("topic", t)
+                    .register(meterRegistry);
+            Gauge.builder("book.admission.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .description("Admitted records not yet acked or failed")
+                    .tag("topic", t)
+                    .register(meterRegistry);
+            return limiter;
+        });
+    }
+
+    /**
+     * Slots taken from a topic's limiter; release one per admitted record when its send completes.
+     */
+    public static final class Permit {
+
+        static final Permit NONE = new Permit(null, 0);
+
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final long startNanos;
+
+        private Permit(AdaptiveConcurrencyLimiter limiter, long startNanos) {
+            this.limiter = limiter;
+            this.startNanos = startNanos;
+        }
+
+        public void release(Throwable failure) {
+            if (limiter != null) {
+                limiter.release(System.nanoTime() - startNanos, failure != null);
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.henry.kafka.producer.demo.admission;
+
+/**
+ * Thrown when a topic's concurrency limit is used up; answered with 429, or 503 when the limit
+ * has backed off to its floor, and a {@code Retry-After} header.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final String topic;
+    private final boolean overloaded;
+    private final long retryAfterSeconds;
+
+    public AdmissionRejectedException(String topic, boolean overloaded, long retryAfterSeconds) {
+        super("Too many in-flight records for " + topic + ", retry after " + retryAfterSeconds + "s");
+        this.topic = topic;
+        this.overloaded = overloaded;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public boolean isOverloaded() {
+        return overloaded;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -17,18 +17,63 @@ public class AutoCreateConfig {
     @Value("${spring.kafka.topic2}")
     public String topic2;
 
+    @Value("${app.topics.partitions:6}")
+    public int partitions;
+
+    @Value("${app.topics.compact-book-events:false}")
+    public boolean compactBookEvents;
+
+    @Value("${app.dlt.suffix:.DLT}")
+    public String deadLetterSuffix;
+
+    @Value("${app.dlt.retry.parking-suffix:.PARKED}")
+    public String parkingSuffix;
+
     @Bean
     public NewTopic bookEvents(){
-        return TopicBuilder.name(topic)
-                .partitions(3)
-                .replicas(3)
-                .build();
+        TopicBuilder builder = TopicBuilder.name(topic)
+                .partitions(partitions)
+                .replicas(3);
+        // keeps the latest event per book: enough to rebuild the book view, whatever the topic's age
+        return compactBookEvents ? builder.compact().build() : builder.build();
     }
 
     @Bean
     public NewTopic userEvents() {
         return TopicBuilder.name(topic2)
-                .partitions(3)
+                .partitions(partitions)
+                .replicas(3)
+                .build();
+    }
+
+    @Bean
+    public NewTopic bookEventsDeadLetters() {
+        return TopicBuilder.name(topic + deadLetterSuffix)
+                .partitions(partitions)
+                .replicas(3)
+                .build();
+    }
+
+    @Bean
+    public NewTopic userEventsDeadLetters() {
+        return TopicBuilder.name(topic2 + deadLetterSuffix)
+                .partitions(partitions)
+                .replicas(3)
+                .build();
+    }
+
+    @Bean
+    public NewTopic bookEventsParked() {
+        return TopicBuilder.name(topic + parkingSuffix)
+                .partitions(partitions)
+                .replicas(3)
+                .build();
+    }
+
+    @Bean
+    public NewTopic userEventsParked() {
+        return TopicBuilder.name(topic2 + parkingSuffix)
+                .partitions(partitions)
                 .replicas(3)
                 .build();
     }
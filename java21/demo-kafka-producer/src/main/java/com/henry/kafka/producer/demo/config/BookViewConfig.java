@@ -0,0 +1,54 @@
+package com.henry.kafka.producer.demo.config;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.IntegerDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Consumer side of the optional book view ({@code app.book-view.enabled=true}): a single-threaded
+ * batch container in a consumer group of its own, {@code <spring.application.name>-book-view-<uuid>}.
+ * Being the only member, it is assigned every partition of the topic, including partitions added
+ * while it runs (seen within {@code app.book-view.metadata-max-age-ms}). Nothing is ever committed:
+ * the view resumes from the offsets of its snapshot, or reads from the beginning without one.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.book-view.enabled", havingValue = "true")
+public class BookViewConfig {
+
+    public static final String CONTAINER_FACTORY = "bookViewContainerFactory";
+
+    @Bean(name = CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<Integer, byte[]> bookViewContainerFactory(
+            KafkaProperties properties,
+            @Value("${spring.application.name}") String applicationName,
+            @Value("${app.book-view.metadata-max-age-ms:30000}") int metadataMaxAgeMs) {
+        // not a ConsumerFactory bean of its own, which would replace Boot's default one
+        Map<String, Object> configs = properties.buildConsumerProperties();
+        // every instance needs every book: a group no other instance joins
+        configs.put(ConsumerConfig.GROUP_ID_CONFIG, applicationName + "-book-view-" + UUID.randomUUID());
+        configs.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        // no committed offsets: new partitions, and a snapshot offset the topic no longer holds
+        // (retention, compaction), are read from the start instead of skipped
+        configs.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        configs.put(ConsumerConfig.METADATA_MAX_AGE_CONFIG, metadataMaxAgeMs);
+
+        ConcurrentKafkaListenerContainerFactory<Integer, byte[]> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(configs, new IntegerDeserializer(), new ByteArrayDeserializer()));
+        factory.setBatchListener(true);
+        factory.setConcurrency(1);
+        // the listener never acknowledges, so the throwaway group never commits
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+}
@@ -0,0 +1,33 @@
+package com.henry.kafka.producer.demo.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaTemplate;
+
+/**
+ * Active when {@code spring.kafka.producer.transaction-id-prefix} is set (the {@code exactly-once}
+ * profile), which makes the {@code KafkaTemplate} transactional.
+ * <p>
+ * Batches are sent in a transaction by {@code BookEventProducer.sendBookEvents}. Single-record
+ * sends and spill replays stay outside transactions: they are still idempotent, but a one-record
+ * transaction would double their cost for no atomicity gain.
+ */
+@Configuration
+@ConditionalOnProperty("spring.kafka.producer.transaction-id-prefix")
+public class ExactlyOnceConfig {
+
+    @Bean
+    public static BeanPostProcessor nonTransactionalSendsPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof KafkaTemplate<?, ?> kafkaTemplate && kafkaTemplate.isTransactional()) {
+                    kafkaTemplate.setAllowNonTransactional(true);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package com.henry.kafka.producer.demo.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executor for the send callbacks of the producers.
+ * <p>
+ * With {@code spring.threads.virtual.enabled=true} (the {@code virtual-threads} profile) every
+ * callback runs on its own virtual thread, so slow callback work never delays the producer's
+ * network thread. Otherwise callbacks keep running inline on the producer's network thread.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    public static final String PRODUCER_CALLBACK_EXECUTOR = "producerCallbackExecutor";
+
+    @Bean(PRODUCER_CALLBACK_EXECUTOR)
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public ExecutorService virtualThreadCallbackExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @Bean(PRODUCER_CALLBACK_EXECUTOR)
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public Executor inlineCallbackExecutor() {
+        return Runnable::run;
+    }
+}
@@ -0,0 +1,45 @@
+package com.henry.kafka.producer.demo.config;
+
+import com.henry.kafka.producer.demo.pool.PooledKafkaProducerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
+import org.springframework.boot.autoconfigure.kafka.KafkaConnectionDetails;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+/**
+ * Active with {@code app.producer.pool.size} &gt; 1: replaces Boot's producer factory with a
+ * {@link PooledKafkaProducerFactory}, built the way Boot builds its own, so both producers and the
+ * spill replay send through the pool behind the same {@code KafkaTemplate}.
+ */
+@Configuration
+@ConditionalOnExpression("${app.producer.pool.size:1} > 1")
+@Slf4j
+public class ProducerPoolConfig {
+
+    @Bean
+    public PooledKafkaProducerFactory<Object, Object> pooledKafkaProducerFactory(
+            KafkaProperties properties,
+            KafkaConnectionDetails connectionDetails,
+            ObjectProvider<DefaultKafkaProducerFactoryCustomizer> customizers,
+            @Value("${app.producer.pool.size}") int poolSize) {
+
+        if (properties.getProducer().getTransactionIdPrefix() != null) {
+            throw new IllegalStateException("app.producer.pool.size cannot be combined with "
+                    + "spring.kafka.producer.transaction-id-prefix: every concurrent transaction already gets its own producer");
+        }
+        Map<String, Object> configs = properties.buildProducerProperties();
+        configs.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, connectionDetails.getProducer().getBootstrapServers());
+        PooledKafkaProducerFactory<Object, Object> producerFactory = new PooledKafkaProducerFactory<>(configs, poolSize);
+        customizers.orderedStream().forEach(customizer -> customizer.customize(producerFactory));
+        log.info("Sending through a pool of {} producers", poolSize);
+        return producerFactory;
+    }
+}
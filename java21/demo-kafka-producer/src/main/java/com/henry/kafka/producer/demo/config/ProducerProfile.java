@@ -0,0 +1,101 @@
+package com.henry.kafka.producer.demo.config;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.record.CompressionType;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Named bundles of the producer settings that trade latency for throughput.
+ * <p>
+ * Selected with {@code app.producer.profile}. A setting given explicitly under
+ * {@code spring.kafka.producer.properties} wins over the profile value.
+ */
+public enum ProducerProfile {
+
+    // send as soon as possible, small uncompressed batches
+    LATENCY(0, 16_384, CompressionType.NONE, 5),
+    // wait a little to fill large compressed batches
+    THROUGHPUT(20, 262_144, CompressionType.ZSTD, 5),
+    // a few ms of linger is enough to batch under load without hurting idle latency
+    BALANCED(5, 65_536, CompressionType.LZ4, 5);
+
+    static final int MAX_IN_FLIGHT_WITH_IDEMPOTENCE = 5;
+
+    private final int lingerMs;
+    private final int batchSize;
+    private final CompressionType compressionType;
+    private final int maxInFlightRequestsPerConnection;
+
+    ProducerProfile(int lingerMs, int batchSize, CompressionType compressionType, int maxInFlightRequestsPerConnection) {
+        this.lingerMs = lingerMs;
+        this.batchSize = batchSize;
+        this.compressionType = compressionType;
+        this.maxInFlightRequestsPerConnection = maxInFlightRequestsPerConnection;
+    }
+
+    public static ProducerProfile from(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown producer profile '" + name + "', expected one of "
+                    + Arrays.stream(values()).map(p -> p.name().toLowerCase(Locale.ROOT)).collect(Collectors.joining(", ")), e);
+        }
+    }
+
+    public Map<String, Object> producerConfigs() {
+        Map<String, Object> configs = new LinkedHashMap<>();
+        configs.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        configs.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        configs.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType.name);
+        configs.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, maxInFlightRequestsPerConnection);
+        return configs;
+    }
+
+    /**
+     * The profile settings merged under the given producer configuration (explicit values win),
+     * validated as a whole.
+     */
+    public Map<String, Object> effectiveConfigs(Map<String, Object> explicitConfigs) {
+        Map<String, Object> effective = producerConfigs();
+        effective.replaceAll((key, value) -> explicitConfigs.getOrDefault(key, value));
+        validate(effective, explicitConfigs);
+        return effective;
+    }
+
+    private static void validate(Map<String, Object> effective, Map<String, Object> explicitConfigs) {
+        int lingerMs = intValue(effective, ProducerConfig.LINGER_MS_CONFIG);
+        int batchSize = intValue(effective, ProducerConfig.BATCH_SIZE_CONFIG);
+        int maxInFlight = intValue(effective, ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION);
+        String compression = String.valueOf(effective.get(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+
+        if (lingerMs < 0) {
+            throw new IllegalArgumentException("linger.ms must not be negative but was " + lingerMs);
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batch.size must be positive but was " + batchSize);
+        }
+        if (Arrays.stream(CompressionType.values()).noneMatch(type -> type.name.equals(compression))) {
+            throw new IllegalArgumentException("Unknown compression.type " + compression);
+        }
+        boolean idempotent = !"false".equals(String.valueOf(
+                explicitConfigs.getOrDefault(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "true")));
+        if (maxInFlight < 1 || (idempotent && maxInFlight > MAX_IN_FLIGHT_WITH_IDEMPOTENCE)) {
+            throw new IllegalArgumentException("max.in.flight.requests.per.connection must be between 1 and "
+                    + MAX_IN_FLIGHT_WITH_IDEMPOTENCE + " for an idempotent producer but was " + maxInFlight);
+        }
+    }
+
+    private static int intValue(Map<String, Object> configs, String key) {
+        Object value = configs.get(key);
+        try {
+            return value instanceof Number number ? number.intValue() : Integer.parseInt(String.valueOf(value).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " must be an integer but was " + value, e);
+        }
+    }
+}
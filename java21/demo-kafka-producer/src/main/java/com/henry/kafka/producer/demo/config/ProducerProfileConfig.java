@@ -0,0 +1,26 @@
+package com.henry.kafka.producer.demo.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+@Configuration
+@Slf4j
+public class ProducerProfileConfig {
+
+    @Bean
+    public DefaultKafkaProducerFactoryCustomizer producerProfileCustomizer(
+            @Value("${app.producer.profile:balanced}") String profileName) {
+
+        ProducerProfile profile = ProducerProfile.from(profileName);
+        return producerFactory -> {
+            Map<String, Object> effective = profile.effectiveConfigs(producerFactory.getConfigurationProperties());
+            producerFactory.updateConfigs(effective);
+            log.info("Producer profile {} : effective settings {}", profile, effective);
+        };
+    }
+}
@@ -0,0 +1,49 @@
+package com.henry.kafka.producer.demo.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.task.SimpleAsyncTaskSchedulerBuilder;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Schedulers for the {@code @Scheduled} jobs.
+ * <p>
+ * {@value #TASK_SCHEDULER} is Boot's default one, declared here because a second scheduler would make
+ * Boot back off. It runs the short periodic jobs (ack group flush, coalescing flush, send summaries,
+ * spill fsync) on {@code spring.task.scheduling.pool.size} threads. The jobs that can block for tens
+ * of seconds (spill replay, dead-letter retries, book view snapshots) name {@value #BLOCKING_TASK_SCHEDULER},
+ * one thread each, so the linger flushes never queue behind them.
+ */
+@Configuration
+public class SchedulingConfig {
+
+    public static final String TASK_SCHEDULER = "taskScheduler";
+    public static final String BLOCKING_TASK_SCHEDULER = "blockingTaskScheduler";
+
+    // SpillReplayer.replay, DeadLetterRetrier.retry, BookViewSnapshots.snapshot
+    private static final int BLOCKING_JOBS = 3;
+
+    @Bean(TASK_SCHEDULER)
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(TASK_SCHEDULER)
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskScheduler taskSchedulerVirtualThreads(SimpleAsyncTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(BLOCKING_TASK_SCHEDULER)
+    public ThreadPoolTaskScheduler blockingTaskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(BLOCKING_JOBS);
+        scheduler.setThreadNamePrefix("blocking-scheduling-");
+        return scheduler;
+    }
+}
@@ -0,0 +1,24 @@
+package com.henry.kafka.producer.demo.controller;
+
+import java.util.Locale;
+
+/**
+ * When a request with {@code ?ack=} is answered.
+ */
+public enum AckMode {
+
+    /** As soon as the record is handed to the producer; the body echoes the event. */
+    NONE,
+    /** Once the broker has acked the record, with its partition and offset. */
+    BROKER,
+    /** Once every record of the record's ack group (see {@code AckBatcher}) has been acked or failed. */
+    BATCH;
+
+    public static AckMode from(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new UnknownAckModeException(value, e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.henry.kafka.producer.demo.controller;
+
+import com.henry.kafka.producer.demo.dto.BookEventResult;
+import com.henry.kafka.producer.demo.producer.AckBatcher;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Turns a send into the response for {@code ?ack=none|broker|batch}. The response is a Servlet async
+ * {@link DeferredResult} completed from the send's callback, so waiting for an ack does not hold a
+ * request thread.
+ * <ul>
+ *     <li>acked: {@code status} with the record's partition and offset</li>
+ *     <li>spilled to the journal (Kafka unavailable): {@code 202 Accepted}, partition and offset -1</li>
+ *     <li>failed: {@code 502 Bad Gateway}</li>
+ *     <li>no ack within {@code app.sync.ack-timeout-ms}: {@code 504 Gateway Timeout}</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class AckResponder {
+
+    private final AckBatcher ackBatcher;
+
+    @Value("${app.sync.ack-timeout-ms:1000}")
+    public long ackTimeoutMs = 1000;
+
+    public AckResponder(AckBatcher ackBatcher) {
+        this.ackBatcher = ackBatcher;
+    }
+
+    public DeferredResult<ResponseEntity<?>> respond(AckMode ackMode, CompletableFuture<SendResult<Integer, byte[]>> send,
+                                                     HttpStatus status, Object event) {
+        if (ackMode == AckMode.NONE) {
+            return completed(ResponseEntity.status(status).body(event));
+        }
+        DeferredResult<ResponseEntity<?>> deferredResult = new DeferredResult<>(ackTimeoutMs,
+                () -> ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body("Timed out waiting for the broker ack"));
+        CompletableFuture<SendResult<Integer, byte[]>> ack = ackMode == AckMode.BATCH ? ackBatcher.join(send) : send;
+        ack.whenComplete((sendResult, throwable) -> deferredResult.setResult(toResponse(sendResult, throwable, status)));
+        return deferredResult;
+    }
+
+    public DeferredResult<ResponseEntity<?>> completed(ResponseEntity<?> response) {
+        DeferredResult<ResponseEntity<?>> deferredResult = new DeferredResult<>();
+        deferredResult.setResult(response);
+        return deferredResult;
+    }
+
+    private static ResponseEntity<?> toResponse(SendResult<Integer, byte[]> sendResult, Throwable throwable, HttpStatus status) {
+        if (throwable != null) {
+            if (throwable instanceof CompletionException && throwable.getCause() != null) {
+                throwable = throwable.getCause();
+            }
+            log.info("errorMessage : {} ", throwable.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(throwable.getMessage());
+        }
+        RecordMetadata metadata = sendResult.getRecordMetadata();
+        return ResponseEntity.status(metadata.partition() < 0 ? HttpStatus.ACCEPTED : status)
+                .body(BookEventResult.success(0, metadata.partition(), metadata.offset()));
+    }
+}
@@ -0,0 +1,30 @@
+package com.henry.kafka.producer.demo.controller;
+
+import com.henry.kafka.producer.demo.dto.Book;
+import com.henry.kafka.producer.demo.view.BookView;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Current state of a book from the {@link BookView} ({@code app.book-view.enabled=true}). The view
+ * trails the topic, so a book just posted may not be found yet.
+ */
+@RestController
+@ConditionalOnProperty(name = "app.book-view.enabled", havingValue = "true")
+public class BookController {
+
+    private final BookView bookView;
+
+    public BookController(BookView bookView) {
+        this.bookView = bookView;
+    }
+
+    @GetMapping("/v1/book/{id}")
+    public ResponseEntity<Book> getBook(@PathVariable int id) {
+        Book book = bookView.get(id);
+        return book != null ? ResponseEntity.ok(book) : ResponseEntity.notFound().build();
+    }
+}
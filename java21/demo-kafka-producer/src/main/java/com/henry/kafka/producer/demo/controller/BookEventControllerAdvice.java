@@ -1,30 +1,50 @@
 package com.henry.kafka.producer.demo.controller;
 
 
+import com.henry.kafka.producer.demo.admission.AdmissionRejectedException;
+import com.henry.kafka.producer.demo.idempotency.InvalidIdempotencyKeyException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.validation.FieldError;
-import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 
 @ControllerAdvice
 @Slf4j
 public class BookEventControllerAdvice {
 
-    @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<?> handleRequestBody(MethodArgumentNotValidException ex) {
+    // 503 when the limit has backed off to its floor (brokers struggling), 429 when the topic is just busy
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<?> handleAdmissionRejected(AdmissionRejectedException ex) {
+        return ResponseEntity.status(ex.isOverloaded() ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+                .body(ex.getMessage());
+    }
+
+    @ExceptionHandler(UnknownAckModeException.class)
+    public ResponseEntity<?> handleUnknownAckMode(UnknownAckModeException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidIdempotencyKeyException.class)
+    public ResponseEntity<?> handleInvalidIdempotencyKey(InvalidIdempotencyKeyException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<?> handleAckTimeout(TimeoutException ex) {
+        log.info("Timed out waiting for the broker ack");
+        return new ResponseEntity<>("Timed out waiting for the broker ack", HttpStatus.GATEWAY_TIMEOUT);
+    }
 
-        List<FieldError> errorList = ex.getBindingResult().getFieldErrors();
-        String errorMessage = errorList.stream()
-                .map(fieldError -> fieldError.getField() + " - " + fieldError.getDefaultMessage())
-                .sorted()
-                .collect(Collectors.joining(", "));
+    @ExceptionHandler(ExecutionException.class)
+    public ResponseEntity<?> handleSendFailure(ExecutionException ex) {
+        String errorMessage = ex.getCause() != null ? ex.getCause().getMessage() : ex.getMessage();
         log.info("errorMessage : {} ", errorMessage);
-        return new ResponseEntity<>(errorMessage, HttpStatus.BAD_REQUEST);
+        return new ResponseEntity<>(errorMessage, HttpStatus.BAD_GATEWAY);
     }
 }
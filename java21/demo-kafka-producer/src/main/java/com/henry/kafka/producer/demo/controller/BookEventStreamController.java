@@ -0,0 +1,37 @@
+package com.henry.kafka.producer.demo.controller;
+
+import com.henry.kafka.producer.demo.dto.StreamIngestResult;
+import com.henry.kafka.producer.demo.producer.BookEventStreamIngester;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+@RestController
+@Slf4j
+public class BookEventStreamController {
+
+    private final BookEventStreamIngester bookEventStreamIngester;
+
+    public BookEventStreamController(BookEventStreamIngester bookEventStreamIngester) {
+        this.bookEventStreamIngester = bookEventStreamIngester;
+    }
+
+    // the raw request stream is read directly so the body is never buffered as a whole
+    @PostMapping(value = "/v1/bookevent/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<?> postBookEventStream(HttpServletRequest request) throws IOException, InterruptedException {
+
+        StreamIngestResult result = bookEventStreamIngester.ingest(request.getInputStream());
+        log.info("Stream ingested : accepted={}, rejected={}, failed={}", result.accepted(), result.rejected(), result.failed());
+
+        HttpStatus status = result.rejected() == 0 && result.failed() == 0 && result.errors().isEmpty()
+                ? HttpStatus.CREATED
+                : HttpStatus.MULTI_STATUS;
+        return ResponseEntity.status(status).body(result);
+    }
+}
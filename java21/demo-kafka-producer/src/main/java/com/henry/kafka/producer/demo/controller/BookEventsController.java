@@ -1,52 +1,236 @@
 package com.henry.kafka.producer.demo.controller;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.henry.kafka.producer.demo.admission.AdmissionControl;
 import com.henry.kafka.producer.demo.dto.BookEvent;
+import com.henry.kafka.producer.demo.dto.BookEventResult;
 import com.henry.kafka.producer.demo.dto.BookEventType;
+import com.henry.kafka.producer.demo.idempotency.IdempotencyCache;
 import com.henry.kafka.producer.demo.producer.BookEventProducer;
-import jakarta.validation.Valid;
+import com.henry.kafka.producer.demo.producer.UpdateCoalescer;
+import com.henry.kafka.producer.demo.validation.BookEventValidator;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @Slf4j
 public class BookEventsController {
 
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
     private final BookEventProducer bookEventProducer;
+    private final AdmissionControl admissionControl;
+    private final UpdateCoalescer updateCoalescer;
+    private final AckResponder ackResponder;
+    private final IdempotencyCache idempotencyCache;
+
+    @Value("${app.batch.max-size:1000}")
+    public int batchMaxSize;
 
-    public BookEventsController(BookEventProducer bookEventProducer) {
+    @Value("${spring.kafka.topic}")
+    public String topic;
+
+    public BookEventsController(BookEventProducer bookEventProducer, AdmissionControl admissionControl,
+                                UpdateCoalescer updateCoalescer, AckResponder ackResponder, IdempotencyCache idempotencyCache) {
         this.bookEventProducer = bookEventProducer;
+        this.admissionControl = admissionControl;
+        this.updateCoalescer = updateCoalescer;
+        this.ackResponder = ackResponder;
+        this.idempotencyCache = idempotencyCache;
     }
 
     @PostMapping("/v1/bookevent")
-    public ResponseEntity<?> postBookEvent(@RequestBody @Valid BookEvent bookEvent) throws JsonProcessingException {
+    public ResponseEntity<?> postBookEvent(@RequestBody BookEvent bookEvent,
+                                           @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
 
+        ResponseEntity<String> invalid = BookEventValidator.badRequest(bookEvent);
+        if (invalid != null) {
+            return invalid;
+        }
         if (BookEventType.NEW != bookEvent.bookEventType()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Only NEW event type is supported");
         }
+        IdempotencyCache.Original original = idempotencyCache.claim(idempotencyKey, bookEvent.toString());
+        if (original != null) {
+            return replay(original, AckMode.NONE, bookEvent);
+        }
         //invoke kafka producer
-        bookEventProducer.sendBookEvent_Approach2(bookEvent);
+        sendNew(bookEvent, idempotencyKey);
         return ResponseEntity.status(HttpStatus.CREATED).body(bookEvent);
     }
 
+    //POST with ?ack=none|broker|batch, answered from the send callback instead of a waiting request thread
+    @PostMapping(value = "/v1/bookevent", params = "ack")
+    public DeferredResult<ResponseEntity<?>> postBookEventWithAck(@RequestBody BookEvent bookEvent,
+                                                                  @RequestParam String ack,
+                                                                  @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+
+        ResponseEntity<String> invalid = BookEventValidator.badRequest(bookEvent);
+        if (invalid != null) {
+            return ackResponder.completed(invalid);
+        }
+        AckMode ackMode = AckMode.from(ack);
+        if (BookEventType.NEW != bookEvent.bookEventType()) {
+            return ackResponder.completed(ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Only NEW event type is supported"));
+        }
+        IdempotencyCache.Original original = idempotencyCache.claim(idempotencyKey, bookEvent.toString());
+        if (original != null) {
+            return ackResponder.completed(replay(original, ackMode, bookEvent));
+        }
+        return ackResponder.respond(ackMode, sendNew(bookEvent, idempotencyKey), HttpStatus.CREATED, bookEvent);
+    }
+
+    // a request that is not admitted forgets its Idempotency-Key too, so the client's retry is sent
+    private CompletableFuture<SendResult<Integer, byte[]>> sendNew(BookEvent bookEvent, String idempotencyKey) {
+        return idempotencyCache.send(idempotencyKey,
+                () -> admissionControl.admit(topic, () -> bookEventProducer.sendBookEvent_Approach2(bookEvent)));
+    }
+
+    // the retry of a request already sent: the original answer again, without touching Kafka. The key is
+    // bound to its event, so the event echoed for ack=none is the original one.
+    private static ResponseEntity<?> replay(IdempotencyCache.Original original, AckMode ackMode, BookEvent bookEvent) {
+        if (!original.sameRequest()) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body("This Idempotency-Key was already used for a different book event");
+        }
+        if (ackMode == AckMode.NONE) {
+            return ResponseEntity.status(HttpStatus.CREATED).header(IDEMPOTENT_REPLAYED, "true").body(bookEvent);
+        }
+        if (original.inFlight()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("A request with this Idempotency-Key is still in flight");
+        }
+        return ResponseEntity.status(original.partition() < 0 ? HttpStatus.ACCEPTED : HttpStatus.CREATED)
+                .header(IDEMPOTENT_REPLAYED, "true")
+                .body(BookEventResult.success(0, original.partition(), original.offset()));
+    }
+
+    //POST, answered only after the broker has acked the record
+    @PostMapping("/v1/bookevent/sync")
+    public ResponseEntity<?> postBookEventSynchronous(@RequestBody BookEvent bookEvent)
+            throws ExecutionException, InterruptedException, TimeoutException {
+
+        ResponseEntity<String> invalid = BookEventValidator.badRequest(bookEvent);
+        if (invalid != null) {
+            return invalid;
+        }
+        if (BookEventType.NEW != bookEvent.bookEventType()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Only NEW event type is supported");
+        }
+        AdmissionControl.Permit permit = admissionControl.acquire(topic, 1);
+        Exception failure = null;
+        RecordMetadata metadata;
+        try {
+            metadata = bookEventProducer.sendBookEventSynchronous(bookEvent).getRecordMetadata();
+        } catch (ExecutionException | InterruptedException | TimeoutException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            permit.release(failure);
+        }
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(BookEventResult.success(0, metadata.partition(), metadata.offset()));
+    }
+
     //PUT
     @PutMapping("/v1/bookevent")
-    public ResponseEntity<?> putBookEvent(@RequestBody @Valid BookEvent bookEvent) throws JsonProcessingException {
+    public ResponseEntity<?> putBookEvent(@RequestBody BookEvent bookEvent) {
 
+        ResponseEntity<String> invalid = BookEventValidator.badRequest(bookEvent);
+        if (invalid != null) {
+            return invalid;
+        }
 
         ResponseEntity<String> BAD_REQUEST = validateLibraryEvent(bookEvent);
         if (BAD_REQUEST != null) return BAD_REQUEST;
 
-        bookEventProducer.sendBookEvent_Approach2(bookEvent);
+        admissionControl.admit(topic, () -> updateCoalescer.sendUpdate(bookEvent));
         log.info("after produce call");
         return ResponseEntity.status(HttpStatus.OK).body(bookEvent);
     }
 
+    //POST batch
+    @PostMapping("/v1/bookevents/batch")
+    public CompletableFuture<ResponseEntity<?>> postBookEvents(@RequestBody List<BookEvent> bookEvents) {
+
+        String errorMessage = validateBatch(bookEvents);
+        if (errorMessage != null) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorMessage));
+        }
+
+        //invoke kafka producer for the whole batch, then answer once every send has completed
+        List<CompletableFuture<SendResult<Integer, byte[]>>> futures =
+                admissionControl.admitAll(topic, bookEvents.size(), () -> bookEventProducer.sendBookEvents(bookEvents));
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .handle((ignored, throwable) -> toBatchResponse(futures));
+    }
+
+    private String validateBatch(List<BookEvent> bookEvents) {
+        if (bookEvents == null || bookEvents.isEmpty()) {
+            return "Please pass at least one BookEvent";
+        }
+        if (bookEvents.size() > batchMaxSize) {
+            return "Batch size must not exceed " + batchMaxSize;
+        }
+
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < bookEvents.size(); i++) {
+            BookEvent bookEvent = bookEvents.get(i);
+            if (bookEvent == null) {
+                errors.add("[" + i + "] must not be null");
+                continue;
+            }
+            String violations = BookEventValidator.validate(bookEvent, "[" + i + "] ");
+            if (violations != null) {
+                errors.add(violations);
+            }
+            if (BookEventType.NEW != bookEvent.bookEventType()) {
+                errors.add("[" + i + "] Only NEW event type is supported");
+            }
+        }
+        return errors.isEmpty() ? null : String.join(", ", errors);
+    }
+
+    private static ResponseEntity<?> toBatchResponse(List<CompletableFuture<SendResult<Integer, byte[]>>> futures) {
+        List<BookEventResult> results = new ArrayList<>(futures.size());
+        boolean allSent = true;
+        for (int i = 0; i < futures.size(); i++) {
+            CompletableFuture<SendResult<Integer, byte[]>> future = futures.get(i);
+            if (future.isCompletedExceptionally()) {
+                allSent = false;
+                results.add(BookEventResult.failure(i, rootMessage(future.exceptionNow())));
+            } else {
+                var metadata = future.resultNow().getRecordMetadata();
+                results.add(BookEventResult.success(i, metadata.partition(), metadata.offset()));
+            }
+        }
+        return ResponseEntity.status(allSent ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(results);
+    }
+
+    private static String rootMessage(Throwable throwable) {
+        if (throwable instanceof CompletionException && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        return throwable.getMessage();
+    }
+
     private static ResponseEntity<String> validateLibraryEvent(BookEvent libraryEvent) {
         if (libraryEvent.bookEventId() == null) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please pass the LibraryEventId");
@@ -0,0 +1,11 @@
+package com.henry.kafka.producer.demo.controller;
+
+/**
+ * Thrown by {@link AckMode#from} for an {@code ?ack=} value it does not know; answered with 400.
+ */
+public class UnknownAckModeException extends RuntimeException {
+
+    public UnknownAckModeException(String value, Throwable cause) {
+        super("Unknown ack mode: " + value + " (expected none, broker or batch)", cause);
+    }
+}
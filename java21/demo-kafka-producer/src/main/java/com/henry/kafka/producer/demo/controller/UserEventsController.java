@@ -1,43 +1,76 @@
 package com.henry.kafka.producer.demo.controller;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.henry.kafka.producer.demo.admission.AdmissionControl;
 import com.henry.kafka.producer.demo.dto.BookEvent;
 import com.henry.kafka.producer.demo.dto.BookEventType;
 import com.henry.kafka.producer.demo.producer.UserEventProducer;
-import jakarta.validation.Valid;
+import com.henry.kafka.producer.demo.validation.BookEventValidator;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
 @RestController
 @Slf4j
 public class UserEventsController {
 
     private final UserEventProducer userEventProducer;
+    private final AdmissionControl admissionControl;
+    private final AckResponder ackResponder;
 
-    public UserEventsController(UserEventProducer userEventProducer) {
+    @Value("${spring.kafka.topic2}")
+    public String topic2;
+
+    public UserEventsController(UserEventProducer userEventProducer, AdmissionControl admissionControl,
+                                AckResponder ackResponder) {
         this.userEventProducer = userEventProducer;
+        this.admissionControl = admissionControl;
+        this.ackResponder = ackResponder;
     }
 
     @PostMapping("/v1/userevent")
-    public ResponseEntity<?> postUserEvent(@RequestBody @Valid BookEvent event) throws JsonProcessingException {
+    public ResponseEntity<?> postUserEvent(@RequestBody BookEvent event) {
+        ResponseEntity<String> invalid = BookEventValidator.badRequest(event);
+        if (invalid != null) {
+            return invalid;
+        }
         if (BookEventType.NEW != event.bookEventType()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Only NEW event type is supported");
         }
-        userEventProducer.sendUserEvent(event);
+        admissionControl.admit(topic2, () -> userEventProducer.sendUserEvent(event));
         return ResponseEntity.status(HttpStatus.CREATED).body(event);
     }
 
+    // see BookEventsController#postBookEventWithAck
+    @PostMapping(value = "/v1/userevent", params = "ack")
+    public DeferredResult<ResponseEntity<?>> postUserEventWithAck(@RequestBody BookEvent event, @RequestParam String ack) {
+        ResponseEntity<String> invalid = BookEventValidator.badRequest(event);
+        if (invalid != null) {
+            return ackResponder.completed(invalid);
+        }
+        AckMode ackMode = AckMode.from(ack);
+        if (BookEventType.NEW != event.bookEventType()) {
+            return ackResponder.completed(ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Only NEW event type is supported"));
+        }
+        var send = admissionControl.admit(topic2, () -> userEventProducer.sendUserEvent(event));
+        return ackResponder.respond(ackMode, send, HttpStatus.CREATED, event);
+    }
+
     @PutMapping("/v1/userevent")
-    public ResponseEntity<?> putUserEvent(@RequestBody @Valid BookEvent event) throws JsonProcessingException {
+    public ResponseEntity<?> putUserEvent(@RequestBody BookEvent event) {
+        ResponseEntity<String> invalid = BookEventValidator.badRequest(event);
+        if (invalid != null) {
+            return invalid;
+        }
         if (event.bookEventId() == null) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please pass the LibraryEventId");
         }
         if (BookEventType.UPDATE != event.bookEventType()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Only UPDATE event type is supported");
         }
-        userEventProducer.sendUserEvent(event);
+        admissionControl.admit(topic2, () -> userEventProducer.sendUserEvent(event));
         return ResponseEntity.ok(event);
     }
 }
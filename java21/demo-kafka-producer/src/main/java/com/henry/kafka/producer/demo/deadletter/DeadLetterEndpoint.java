@@ -0,0 +1,99 @@
+package com.henry.kafka.producer.demo.deadletter;
+
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * {@code GET /actuator/deadletters}: per dead-letter topic, the records the {@link DeadLetterRetrier}
+ * has not handled yet (end offsets minus the retry group's committed offsets) and the dead letters
+ * published, replayed, parked and lost since startup, plus the send rate of the last retry round. The
+ * depth is -1 while the brokers cannot be asked.
+ */
+@Component
+@Endpoint(id = "deadletters")
+public class DeadLetterEndpoint {
+
+    private static final long ADMIN_TIMEOUT_MS = 5000;
+
+    private final KafkaAdmin kafkaAdmin;
+    private final DeadLetterPublisher publisher;
+    private final DeadLetterRetrier retrier;
+
+    public DeadLetterEndpoint(KafkaAdmin kafkaAdmin, DeadLetterPublisher publisher, DeadLetterRetrier retrier) {
+        this.kafkaAdmin = kafkaAdmin;
+        this.publisher = publisher;
+        this.retrier = retrier;
+    }
+
+    @ReadOperation
+    public Report deadLetters() {
+        Map<String, Long> depths = depths();
+        Map<String, TopicReport> topics = new LinkedHashMap<>();
+        for (String deadLetterTopic : retrier.deadLetterTopics()) {
+            String topic = deadLetterTopic.substring(0, deadLetterTopic.length() - publisher.suffix.length());
+            topics.put(deadLetterTopic, new TopicReport(topic, depths.getOrDefault(deadLetterTopic, -1L),
+                    publisher.published(topic), retrier.replayed(topic), retrier.parked(topic), publisher.lost(topic)));
+        }
+        return new Report(retrier.enabled, topics, retrier.lastRound());
+    }
+
+    private Map<String, Long> depths() {
+        try (Admin admin = Admin.create(kafkaAdmin.getConfigurationProperties())) {
+            Map<String, TopicDescription> descriptions = admin.describeTopics(retrier.deadLetterTopics())
+                    .allTopicNames().get(ADMIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            List<TopicPartition> partitions = descriptions.values().stream()
+                    .flatMap(description -> description.partitions().stream()
+                            .map(partition -> new TopicPartition(description.name(), partition.partition())))
+                    .toList();
+            Map<TopicPartition, Long> ends = offsets(admin, partitions, OffsetSpec.latest());
+            Map<TopicPartition, Long> starts = offsets(admin, partitions, OffsetSpec.earliest());
+            Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(retrier.groupId())
+                    .partitionsToOffsetAndMetadata().get(ADMIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            Map<String, Long> depths = new HashMap<>();
+            for (TopicPartition partition : partitions) {
+                OffsetAndMetadata offset = committed.get(partition);
+                long position = offset != null ? offset.offset() : starts.get(partition);
+                depths.merge(partition.topic(), Math.max(ends.get(partition) - position, 0), Long::sum);
+            }
+            return depths;
+        } catch (ExecutionException | TimeoutException | RuntimeException e) {
+            return Map.of();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Map.of();
+        }
+    }
+
+    private static Map<TopicPartition, Long> offsets(Admin admin, List<TopicPartition> partitions, OffsetSpec spec)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> offsets = admin
+                .listOffsets(partitions.stream().collect(Collectors.toMap(Function.identity(), partition -> spec)))
+                .all().get(ADMIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        return offsets.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().offset()));
+    }
+
+    public record Report(boolean retryEnabled, Map<String, TopicReport> topics, DeadLetterRetrier.Round lastRetryRound) {
+    }
+
+    public record TopicReport(String originalTopic, long depth, double published, double replayed, double parked,
+                              double lost) {
+    }
+}
@@ -0,0 +1,169 @@
+package com.henry.kafka.producer.demo.deadletter;
+
+import com.henry.kafka.producer.demo.spill.SpillJournal;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps records the brokers refused from vanishing. A failed send that the {@link SpillJournal} did
+ * not take (a non-retriable error, or a full or disabled journal) is published to
+ * {@code <topic><app.dlt.suffix>} with its original key, value and headers, plus:
+ * <ul>
+ *     <li>{@code kafka_dlt-original-topic}, {@code kafka_dlt-exception-fqcn} and
+ *     {@code kafka_dlt-exception-message}, the headers Spring Kafka's own recoverer writes</li>
+ *     <li>{@value #ATTEMPTS}: failed sends so far, as a 4-byte int</li>
+ * </ul>
+ * The record timestamp is the time of the failure. While Kafka is unavailable the dead letter goes
+ * to the spill journal like any other record and reaches the DLT on replay. The
+ * {@link DeadLetterRetrier} sends dead letters back to their topic.
+ * <p>
+ * Publishing does not block the caller (a send callback). The returned future completes once the dead
+ * letter is published or spilled: send callbacks ignore it, the retrier waits for it before it commits.
+ * A dead letter that cannot be published or spilled either is logged and counted in {@value #LOST}.
+ */
+@Component
+@Slf4j
+public class DeadLetterPublisher {
+
+    public static final String PUBLISHED = "book.dlt.published";
+    public static final String LOST = "book.dlt.lost";
+    public static final String ATTEMPTS = "dlt-attempts";
+
+    private final KafkaTemplate<Integer, byte[]> kafkaTemplate;
+    private final SpillJournal spillJournal;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> published = new ConcurrentHashMap<>();
+    private final Map<String, Counter> lost = new ConcurrentHashMap<>();
+
+    @Value("${app.dlt.enabled:true}")
+    public boolean enabled = true;
+
+    @Value("${app.dlt.suffix:.DLT}")
+    public String suffix = ".DLT";
+
+    public DeadLetterPublisher(KafkaTemplate<Integer, byte[]> kafkaTemplate, SpillJournal spillJournal, MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.spillJournal = spillJournal;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public String deadLetterTopic(String topic) {
+        return topic + suffix;
+    }
+
+    /**
+     * Dead-letters a record after its first failed send.
+     */
+    public CompletableFuture<SendResult<Integer, byte[]>> publish(ProducerRecord<Integer, byte[]> failed, Throwable cause) {
+        return publish(failed, cause, 1);
+    }
+
+    /**
+     * Dead-letters a record after its {@code attempts}-th failed send. The future fails when the dead
+     * letter is lost, or dead-lettering is disabled.
+     */
+    public CompletableFuture<SendResult<Integer, byte[]>> publish(ProducerRecord<Integer, byte[]> failed, Throwable cause,
+                                                                  int attempts) {
+        if (!enabled) {
+            return CompletableFuture.failedFuture(new IllegalStateException("dead-lettering is disabled", cause));
+        }
+        String topic = failed.topic();
+        if (topic.endsWith(suffix)) {
+            // a dead letter that failed itself: no DLT of a DLT
+            lost(topic, cause);
+            return CompletableFuture.failedFuture(cause);
+        }
+        ProducerRecord<Integer, byte[]> deadLetter = new ProducerRecord<>(deadLetterTopic(topic), null,
+                System.currentTimeMillis(), failed.key(), failed.value(), headers(failed, cause, attempts));
+        return sendOrSpill(deadLetter).whenComplete((result, ex) -> {
+            if (ex != null) {
+                lost(topic, ex);
+            } else {
+                counter(published, PUBLISHED, "Failed sends published to the dead-letter topic", topic).increment();
+            }
+        });
+    }
+
+    public double published(String topic) {
+        Counter counter = published.get(topic);
+        return counter != null ? counter.count() : 0;
+    }
+
+    public double lost(String topic) {
+        Counter counter = lost.get(topic);
+        return counter != null ? counter.count() : 0;
+    }
+
+    /**
+     * Failed sends of a dead letter, from its {@value #ATTEMPTS} header (1 without one).
+     */
+    public static int attempts(Headers headers) {
+        Header header = headers.lastHeader(ATTEMPTS);
+        return header != null && header.value().length == Integer.BYTES ? ByteBuffer.wrap(header.value()).getInt() : 1;
+    }
+
+    /**
+     * True for the headers added by {@link #publish}, which are dropped again when the record is retried.
+     */
+    public static boolean isDeadLetterHeader(String key) {
+        return key.equals(ATTEMPTS) || key.startsWith(KafkaHeaders.PREFIX + "dlt-");
+    }
+
+    // see BookEventProducer#sendOrSpill
+    private CompletableFuture<SendResult<Integer, byte[]>> sendOrSpill(ProducerRecord<Integer, byte[]> deadLetter) {
+        if (spillJournal.isSpilling()) {
+            return spillJournal.spill(deadLetter, null);
+        }
+        try {
+            return kafkaTemplate.send(deadLetter).exceptionallyCompose(ex -> spillJournal.spill(deadLetter, ex));
+        } catch (RuntimeException e) {
+            return spillJournal.spill(deadLetter, e);
+        }
+    }
+
+    private static Headers headers(ProducerRecord<Integer, byte[]> failed, Throwable cause, int attempts) {
+        Headers headers = new RecordHeaders();
+        for (Header header : failed.headers()) {
+            if (!isDeadLetterHeader(header.key())) {
+                headers.add(header);
+            }
+        }
+        Throwable root = cause;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        headers.add(KafkaHeaders.DLT_ORIGINAL_TOPIC, failed.topic().getBytes(StandardCharsets.UTF_8));
+        headers.add(KafkaHeaders.DLT_EXCEPTION_FQCN, root.getClass().getName().getBytes(StandardCharsets.UTF_8));
+        headers.add(KafkaHeaders.DLT_EXCEPTION_MESSAGE, String.valueOf(root.getMessage()).getBytes(StandardCharsets.UTF_8));
+        headers.add(ATTEMPTS, ByteBuffer.allocate(Integer.BYTES).putInt(attempts).array());
+        return headers;
+    }
+
+    private void lost(String topic, Throwable cause) {
+        counter(lost, LOST, "Failed sends that could neither be dead-lettered nor spilled", topic).increment();
+        log.error("Could not dead-letter a record of {} : {}", topic, cause.getMessage());
+    }
+
+    private Counter counter(Map<String, Counter> counters, String name, String description, String topic) {
+        return counters.computeIfAbsent(topic, t -> Counter.builder(name)
+                .description(description)
+                .tag("topic", t)
+                .register(meterRegistry));
+    }
+}
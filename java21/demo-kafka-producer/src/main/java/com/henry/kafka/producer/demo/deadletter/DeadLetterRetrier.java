@@ -0,0 +1,365 @@
+package com.henry.kafka.producer.demo.deadletter;
+
+import com.henry.kafka.producer.demo.config.SchedulingConfig;
+import com.henry.kafka.producer.demo.spill.SpillJournal;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.IntegerDeserializer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Sends dead letters back to their original topic, in bulk and off the request path.
+ * <p>
+ * Every {@code app.dlt.retry.interval-ms} a scheduler thread polls up to {@code app.dlt.retry.batch-size}
+ * records from the dead-letter topics of {@code spring.kafka.topic} and {@code spring.kafka.topic2}
+ * (consumer group {@code <spring.application.name>-dlt-retry}). A dead letter is due once
+ * {@code app.dlt.retry.initial-backoff-ms * 2^(attempts-1)}, capped at {@code app.dlt.retry.max-backoff-ms},
+ * has passed since it was dead-lettered. Partitions are handled in offset order: the first record that
+ * is not due yet ends its partition for this round, and the next round polls it again.
+ * <p>
+ * Due records are resent without the dead-letter headers, paced to {@code app.dlt.retry.rate-per-second}
+ * so a backlog does not crowd out live traffic, and all of them are in flight before the round waits for
+ * the acks. A resend that fails is dead-lettered again with one more attempt. A dead letter that has
+ * failed {@code app.dlt.retry.max-attempts} times is not resent but parked, as it is, on
+ * {@code <topic><app.dlt.retry.parking-suffix>}, which nothing reads: a non-retriable error would
+ * otherwise be retried forever.
+ * <p>
+ * A partition's offset is committed up to its first record that is neither acked, dead-lettered again
+ * nor parked; the consumer is sent back to that record for the next round. Delivery is at least once.
+ * Nothing is retried while the {@link SpillJournal} is spilling: Kafka is down and the round would only fail.
+ */
+@Component
+@Slf4j
+public class DeadLetterRetrier implements DisposableBean {
+
+    public static final String REPLAYED = "book.dlt.replayed";
+    public static final String PARKED = "book.dlt.parked";
+
+    private final Supplier<Consumer<Integer, byte[]>> consumerFactory;
+    private final KafkaTemplate<Integer, byte[]> kafkaTemplate;
+    private final DeadLetterPublisher publisher;
+    private final SpillJournal spillJournal;
+    private final MeterRegistry meterRegistry;
+    private final String groupId;
+    private final List<String> deadLetterTopics;
+    private final Map<String, Counter> replayed = new ConcurrentHashMap<>();
+    private final Map<String, Counter> parked = new ConcurrentHashMap<>();
+    private Consumer<Integer, byte[]> consumer;
+    private volatile Round lastRound;
+
+    @Value("${app.dlt.retry.enabled:false}")
+    public boolean enabled;
+
+    @Value("${app.dlt.retry.rate-per-second:5000}")
+    public int ratePerSecond = 5000;
+
+    @Value("${app.dlt.retry.initial-backoff-ms:5000}")
+    public long initialBackoffMs = 5000;
+
+    @Value("${app.dlt.retry.max-backoff-ms:600000}")
+    public long maxBackoffMs = 600_000;
+
+    @Value("${app.dlt.retry.ack-timeout-ms:30000}")
+    public long ackTimeoutMs = 30_000;
+
+    @Value("${app.dlt.retry.poll-timeout-ms:1000}")
+    public long pollTimeoutMs = 1000;
+
+    // 0 or less: retried forever
+    @Value("${app.dlt.retry.max-attempts:10}")
+    public int maxAttempts = 10;
+
+    @Value("${app.dlt.retry.parking-suffix:.PARKED}")
+    public String parkingSuffix = ".PARKED";
+
+    @Autowired
+    public DeadLetterRetrier(KafkaProperties kafkaProperties,
+                             @Value("${spring.application.name}-dlt-retry") String groupId,
+                             @Value("${app.dlt.retry.batch-size:2000}") int batchSize,
+                             @Value("${spring.kafka.topic}") String topic,
+                             @Value("${spring.kafka.topic2}") String topic2,
+                             KafkaTemplate<Integer, byte[]> kafkaTemplate,
+                             DeadLetterPublisher publisher,
+                             SpillJournal spillJournal,
+                             MeterRegistry meterRegistry) {
+        this(() -> new KafkaConsumer<>(consumerProperties(kafkaProperties, groupId, batchSize)), groupId,
+                List.of(publisher.deadLetterTopic(topic), publisher.deadLetterTopic(topic2)),
+                kafkaTemplate, publisher, spillJournal, meterRegistry);
+    }
+
+    public DeadLetterRetrier(Supplier<Consumer<Integer, byte[]>> consumerFactory,
+                             String groupId,
+                             List<String> deadLetterTopics,
+                             KafkaTemplate<Integer, byte[]> kafkaTemplate,
+                             DeadLetterPublisher publisher,
+                             SpillJournal spillJournal,
+                             MeterRegistry meterRegistry) {
+        this.consumerFactory = consumerFactory;
+        this.groupId = groupId;
+        this.deadLetterTopics = deadLetterTopics;
+        this.kafkaTemplate = kafkaTemplate;
+        this.publisher = publisher;
+        this.spillJournal = spillJournal;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public String groupId() {
+        return groupId;
+    }
+
+    public List<String> deadLetterTopics() {
+        return deadLetterTopics;
+    }
+
+    @Scheduled(initialDelayString = "${app.dlt.retry.interval-ms:10000}",
+            fixedDelayString = "${app.dlt.retry.interval-ms:10000}",
+            scheduler = SchedulingConfig.BLOCKING_TASK_SCHEDULER)
+    public synchronized void retry() {
+        if (!enabled || spillJournal.isSpilling()) {
+            return;
+        }
+        if (consumer == null) {
+            consumer = consumerFactory.get();
+            consumer.subscribe(deadLetterTopics);
+        }
+        ConsumerRecords<Integer, byte[]> records = consumer.poll(Duration.ofMillis(pollTimeoutMs));
+        if (records.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+        long nanosPerRecord = ratePerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / ratePerSecond : 0;
+        List<Resend> resends = new ArrayList<>(records.count());
+        for (TopicPartition partition : records.partitions()) {
+            for (ConsumerRecord<Integer, byte[]> record : records.records(partition)) {
+                int attempts = DeadLetterPublisher.attempts(record.headers());
+                boolean park = maxAttempts > 0 && attempts >= maxAttempts;
+                if (!park && !isDue(record.timestamp(), attempts, now)) {
+                    consumer.seek(partition, record.offset());
+                    break;
+                }
+                // pace against the start of the round instead of sleeping a fixed gap per record
+                long sendAt = start + resends.size() * nanosPerRecord;
+                for (long wait = sendAt - System.nanoTime(); wait > 0; wait = sendAt - System.nanoTime()) {
+                    LockSupport.parkNanos(wait);
+                }
+                resends.add(send(partition, record.offset(), park ? toParking(record) : toRetry(record), attempts, park));
+            }
+        }
+        List<CompletableFuture<?>> settled = new ArrayList<>(resends.size());
+        int failed = awaitAcks(resends, settled);
+        Map<TopicPartition, OffsetAndMetadata> handled = awaitSettled(resends, settled);
+        if (!handled.isEmpty()) {
+            consumer.commitSync(handled);
+        }
+        if (!resends.isEmpty()) {
+            long elapsedNanos = System.nanoTime() - start;
+            lastRound = new Round(Instant.now(), resends.size(), failed,
+                    resends.size() * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(elapsedNanos, 1));
+            log.info("Retried {} dead letters ({} failed again) at {} records/s",
+                    resends.size(), failed, Math.round(lastRound.recordsPerSecond()));
+        }
+    }
+
+    /**
+     * Delay before the {@code attempts}-th retry: doubles per attempt from {@code initial-backoff-ms}
+     * up to {@code max-backoff-ms}.
+     */
+    public long backoffMs(int attempts) {
+        int doublings = Math.max(attempts - 1, 0);
+        if (doublings >= Long.numberOfLeadingZeros(initialBackoffMs) - 1) {
+            // the shift would overflow
+            return maxBackoffMs;
+        }
+        return Math.min(initialBackoffMs << doublings, maxBackoffMs);
+    }
+
+    public boolean isDue(long deadLetteredAt, int attempts, long now) {
+        return now - deadLetteredAt >= backoffMs(attempts);
+    }
+
+    public Round lastRound() {
+        return lastRound;
+    }
+
+    public double replayed(String topic) {
+        Counter counter = replayed.get(topic);
+        return counter != null ? counter.count() : 0;
+    }
+
+    public double parked(String topic) {
+        Counter counter = parked.get(topic);
+        return counter != null ? counter.count() : 0;
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (consumer != null) {
+            consumer.close(Duration.ofSeconds(5));
+            consumer = null;
+        }
+    }
+
+    private Resend send(TopicPartition partition, long offset, ProducerRecord<Integer, byte[]> record, int attempts,
+                        boolean park) {
+        CompletableFuture<SendResult<Integer, byte[]>> future;
+        try {
+            future = kafkaTemplate.send(record);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return new Resend(partition, offset, record, attempts, park, future);
+    }
+
+    // adds, per resend, what has to complete before its offset may be committed; returns the resends that failed
+    private int awaitAcks(List<Resend> resends, List<CompletableFuture<?>> settled) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ackTimeoutMs);
+        int failed = 0;
+        for (Resend resend : resends) {
+            Throwable error = await(resend.future(), deadline);
+            if (error == null && resend.park()) {
+                String topic = resend.record().topic();
+                counter(parked, PARKED, "Dead letters parked after app.dlt.retry.max-attempts failed sends",
+                        topic.substring(0, topic.length() - parkingSuffix.length())).increment();
+                settled.add(resend.future());
+            } else if (error == null) {
+                counter(replayed, REPLAYED, "Dead letters sent back to their topic", resend.record().topic()).increment();
+                settled.add(resend.future());
+            } else if (resend.park()) {
+                // still on the DLT: parked again next round
+                log.warn("Could not park a dead letter on {} : {}", resend.record().topic(), error.getMessage());
+                settled.add(resend.future());
+            } else {
+                failed++;
+                settled.add(publisher.publish(resend.record(), error, resend.attempts() + 1));
+            }
+        }
+        return failed;
+    }
+
+    // per partition, the offset after the last record that is settled with all records before it
+    private Map<TopicPartition, OffsetAndMetadata> awaitSettled(List<Resend> resends, List<CompletableFuture<?>> settled) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ackTimeoutMs);
+        Map<TopicPartition, OffsetAndMetadata> handled = new HashMap<>();
+        Set<TopicPartition> unsettled = new HashSet<>();
+        for (int i = 0; i < resends.size(); i++) {
+            Resend resend = resends.get(i);
+            if (unsettled.contains(resend.partition())) {
+                continue;
+            }
+            if (await(settled.get(i), deadline) == null) {
+                handled.put(resend.partition(), new OffsetAndMetadata(resend.offset() + 1));
+            } else {
+                unsettled.add(resend.partition());
+                consumer.seek(resend.partition(), resend.offset());
+            }
+        }
+        return handled;
+    }
+
+    // null once the future completed normally, else why it did not
+    private static Throwable await(CompletableFuture<?> future, long deadline) {
+        try {
+            future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (TimeoutException e) {
+            return e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return e;
+        }
+    }
+
+    private Counter counter(Map<String, Counter> counters, String name, String description, String topic) {
+        return counters.computeIfAbsent(topic, t -> Counter.builder(name)
+                .description(description)
+                .tag("topic", t)
+                .register(meterRegistry));
+    }
+
+    private ProducerRecord<Integer, byte[]> toRetry(ConsumerRecord<Integer, byte[]> deadLetter) {
+        Headers headers = new RecordHeaders();
+        for (Header header : deadLetter.headers()) {
+            if (!DeadLetterPublisher.isDeadLetterHeader(header.key())) {
+                headers.add(header);
+            }
+        }
+        return new ProducerRecord<>(originalTopic(deadLetter), null, deadLetter.key(), deadLetter.value(), headers);
+    }
+
+    // keeps the dead-letter headers and timestamp: the parked record says why and since when it failed
+    private ProducerRecord<Integer, byte[]> toParking(ConsumerRecord<Integer, byte[]> deadLetter) {
+        return new ProducerRecord<>(originalTopic(deadLetter) + parkingSuffix, null, deadLetter.timestamp(),
+                deadLetter.key(), deadLetter.value(), deadLetter.headers());
+    }
+
+    private String originalTopic(ConsumerRecord<Integer, byte[]> deadLetter) {
+        Header originalTopic = deadLetter.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC);
+        if (originalTopic != null) {
+            return new String(originalTopic.value(), StandardCharsets.UTF_8);
+        }
+        String topic = deadLetter.topic();
+        return topic.endsWith(publisher.suffix) ? topic.substring(0, topic.length() - publisher.suffix.length()) : topic;
+    }
+
+    private static Map<String, Object> consumerProperties(KafkaProperties kafkaProperties, String groupId, int batchSize) {
+        Map<String, Object> properties = kafkaProperties.buildConsumerProperties();
+        properties.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        properties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, IntegerDeserializer.class);
+        properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        properties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchSize);
+        return properties;
+    }
+
+    /**
+     * The last round that resent anything: when, how many, how many failed again, and its send rate.
+     */
+    public record Round(Instant at, int records, int failed, double recordsPerSecond) {
+    }
+
+    private record Resend(TopicPartition partition, long offset, ProducerRecord<Integer, byte[]> record, int attempts,
+                          boolean park, CompletableFuture<SendResult<Integer, byte[]>> future) {
+    }
+}
@@ -0,0 +1,280 @@
+package com.henry.kafka.producer.demo.idempotency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the {@code Idempotency-Key}s of recent requests and the result of their send, so a client
+ * retry is answered from here instead of producing the record again. Each key is bound to the request it
+ * came with: reusing it for a different request is reported, not replayed.
+ * <p>
+ * Keys are stored as a 128-bit fingerprint, with a 64-bit fingerprint of their request, in fixed 48-byte
+ * slots of {@link #STRIPES} lock-striped tables. Each table is 8-way set-associative: a fingerprint maps
+ * to one bucket of 8 slots, and a new key takes an empty or expired slot of its bucket or else evicts the oldest. There is no object per
+ * key, so the cache holds {@code app.idempotency.max-keys} keys in {@code 48 * max-keys} bytes. With
+ * {@code app.idempotency.off-heap=true} the tables are direct buffers outside the Java heap (size
+ * {@code -XX:MaxDirectMemorySize} to fit), so tens of millions of keys add nothing to GC work.
+ * <p>
+ * A failed send forgets its key, so the retry of a request that did not reach Kafka is sent again.
+ */
+@Component
+public class IdempotencyCache {
+
+    public static final String HITS = "book.idempotency.hits";
+    public static final String MISSES = "book.idempotency.misses";
+    public static final String EVICTIONS = "book.idempotency.evictions";
+    public static final String KEYS = "book.idempotency.keys";
+
+    static final int STRIPES = 64;
+    static final int WAYS = 8;
+    private static final int MAX_KEY_LENGTH = 255;
+
+    // slot: long fingerprint1, long fingerprint2, long createdAtMs (0 = empty), long offset, int partition, int state,
+    // long request
+    private static final int SLOT_BYTES = 48;
+    private static final int FINGERPRINT1 = 0;
+    private static final int FINGERPRINT2 = 8;
+    private static final int CREATED_AT = 16;
+    private static final int OFFSET = 24;
+    private static final int PARTITION = 32;
+    private static final int STATE = 36;
+    private static final int REQUEST = 40;
+    private static final int IN_FLIGHT = 1;
+    private static final int SENT = 2;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final long ttlMs;
+    private final LongSupplier clock;
+    private final AtomicLong keys = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expiredEvictions;
+
+    @Autowired
+    public IdempotencyCache(@Value("${app.idempotency.max-keys:100000}") int maxKeys,
+                            @Value("${app.idempotency.ttl-ms:3600000}") long ttlMs,
+                            @Value("${app.idempotency.off-heap:false}") boolean offHeap,
+                            MeterRegistry meterRegistry) {
+        this(maxKeys, ttlMs, offHeap, meterRegistry, System::currentTimeMillis);
+    }
+
+    public IdempotencyCache(int maxKeys, long ttlMs, boolean offHeap, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.ttlMs = ttlMs;
+        this.clock = clock;
+        int bucketsPerStripe = Math.max(1, (int) Math.ceil((double) maxKeys / (STRIPES * WAYS)));
+        for (int i = 0; i < STRIPES; i++) {
+            int bytes = bucketsPerStripe * WAYS * SLOT_BYTES;
+            stripes[i] = new Stripe(offHeap ? ByteBuffer.allocateDirect(bytes) : ByteBuffer.allocate(bytes), bucketsPerStripe);
+        }
+        this.hits = Counter.builder(HITS)
+                .description("Requests whose Idempotency-Key was seen before and that were not sent again")
+                .register(meterRegistry);
+        this.misses = Counter.builder(MISSES)
+                .description("Requests with a new Idempotency-Key")
+                .register(meterRegistry);
+        this.sizeEvictions = Counter.builder(EVICTIONS)
+                .description("Keys dropped before their TTL to make room, or after it")
+                .tag("cause", "size")
+                .register(meterRegistry);
+        this.expiredEvictions = Counter.builder(EVICTIONS)
+                .description("Keys dropped before their TTL to make room, or after it")
+                .tag("cause", "expired")
+                .register(meterRegistry);
+        Gauge.builder(KEYS, keys, AtomicLong::get)
+                .description("Idempotency-Keys currently remembered")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Remembers {@code idempotencyKey} and returns {@code null} when it is new (or absent): the caller then
+     * sends through {@link #send}. When the key was seen within the TTL, returns what the original request
+     * produced and the caller must not send. {@code request} is the request in a canonical form: the original
+     * is only {@link Original#sameRequest() the same request} when it was claimed with an equal one.
+     */
+    public Original claim(String idempotencyKey, String request) {
+        if (idempotencyKey == null) {
+            return null;
+        }
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException(MAX_KEY_LENGTH);
+        }
+        long fingerprint1 = fingerprint1(idempotencyKey);
+        long fingerprint2 = fingerprint2(idempotencyKey);
+        Original original = stripe(fingerprint1).claim(fingerprint1, fingerprint2, fingerprint1(request), clock.getAsLong());
+        if (original != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return original;
+    }
+
+    /**
+     * Runs {@code send} for a key just claimed, then records its result for later retries, or forgets
+     * the key when the send fails (or is not even admitted) so a retry goes to Kafka again.
+     */
+    public CompletableFuture<SendResult<Integer, byte[]>> send(String idempotencyKey,
+                                                               Supplier<CompletableFuture<SendResult<Integer, byte[]>>> send) {
+        if (idempotencyKey == null) {
+            return send.get();
+        }
+        long fingerprint1 = fingerprint1(idempotencyKey);
+        long fingerprint2 = fingerprint2(idempotencyKey);
+        Stripe stripe = stripe(fingerprint1);
+        CompletableFuture<SendResult<Integer, byte[]>> sent;
+        try {
+            sent = send.get();
+        } catch (RuntimeException e) {
+            stripe.forget(fingerprint1, fingerprint2);
+            throw e;
+        }
+        return sent.whenComplete((sendResult, throwable) -> {
+            if (throwable != null) {
+                stripe.forget(fingerprint1, fingerprint2);
+            } else {
+                RecordMetadata metadata = sendResult.getRecordMetadata();
+                stripe.complete(fingerprint1, fingerprint2, metadata.partition(), metadata.offset());
+            }
+        });
+    }
+
+    public long size() {
+        return keys.get();
+    }
+
+    private Stripe stripe(long fingerprint1) {
+        return stripes[(int) (fingerprint1 >>> 58)];
+    }
+
+    static long fingerprint1(String key) {
+        return fingerprint(key, 0xcbf29ce484222325L, 0x100000001b3L);
+    }
+
+    static long fingerprint2(String key) {
+        return fingerprint(key, 0x84222325cbf29ce4L, 0x9e3779b97f4a7c15L);
+    }
+
+    // FNV-1a over the chars, finished with MurmurHash3's fmix64
+    private static long fingerprint(String key, long seed, long prime) {
+        long h = seed ^ key.length();
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * prime;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * What the first request with the key produced: still in flight, or sent to {@code partition} at
+     * {@code offset} (-1/-1 when it went to the spill journal). {@code sameRequest} is false when the key
+     * came with a different request this time.
+     */
+    public record Original(boolean sameRequest, boolean inFlight, int partition, long offset) {
+    }
+
+    private final class Stripe {
+
+        private final ByteBuffer table;
+        private final int buckets;
+
+        Stripe(ByteBuffer table, int buckets) {
+            this.table = table;
+            this.buckets = buckets;
+        }
+
+        synchronized Original claim(long fingerprint1, long fingerprint2, long request, long now) {
+            int bucket = bucket(fingerprint1);
+            int free = -1;
+            int oldest = -1;
+            long oldestCreatedAt = Long.MAX_VALUE;
+            for (int way = 0; way < WAYS; way++) {
+                int slot = bucket + way * SLOT_BYTES;
+                long createdAt = table.getLong(slot + CREATED_AT);
+                if (createdAt != 0 && now - createdAt >= ttlMs) {
+                    clear(slot);
+                    expiredEvictions.increment();
+                    createdAt = 0;
+                }
+                if (createdAt == 0) {
+                    if (free < 0) {
+                        free = slot;
+                    }
+                } else if (table.getLong(slot + FINGERPRINT1) == fingerprint1 && table.getLong(slot + FINGERPRINT2) == fingerprint2) {
+                    return new Original(table.getLong(slot + REQUEST) == request, table.getInt(slot + STATE) == IN_FLIGHT,
+                            table.getInt(slot + PARTITION), table.getLong(slot + OFFSET));
+                } else if (createdAt < oldestCreatedAt) {
+                    oldest = slot;
+                    oldestCreatedAt = createdAt;
+                }
+            }
+            int slot = free;
+            if (slot < 0) {
+                slot = oldest;
+                clear(slot);
+                sizeEvictions.increment();
+            }
+            table.putLong(slot + FINGERPRINT1, fingerprint1);
+            table.putLong(slot + FINGERPRINT2, fingerprint2);
+            table.putLong(slot + CREATED_AT, now);
+            table.putInt(slot + STATE, IN_FLIGHT);
+            table.putLong(slot + REQUEST, request);
+            keys.incrementAndGet();
+            return null;
+        }
+
+        synchronized void complete(long fingerprint1, long fingerprint2, int partition, long offset) {
+            int slot = find(fingerprint1, fingerprint2);
+            if (slot >= 0) {
+                table.putInt(slot + PARTITION, partition);
+                table.putLong(slot + OFFSET, offset);
+                table.putInt(slot + STATE, SENT);
+            }
+        }
+
+        synchronized void forget(long fingerprint1, long fingerprint2) {
+            int slot = find(fingerprint1, fingerprint2);
+            if (slot >= 0) {
+                clear(slot);
+            }
+        }
+
+        private int find(long fingerprint1, long fingerprint2) {
+            int bucket = bucket(fingerprint1);
+            for (int way = 0; way < WAYS; way++) {
+                int slot = bucket + way * SLOT_BYTES;
+                if (table.getLong(slot + CREATED_AT) != 0
+                        && table.getLong(slot + FINGERPRINT1) == fingerprint1 && table.getLong(slot + FINGERPRINT2) == fingerprint2) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        private void clear(int slot) {
+            table.putLong(slot + CREATED_AT, 0);
+            keys.decrementAndGet();
+        }
+
+        private int bucket(long fingerprint1) {
+            // the top bits picked the stripe, so the bucket comes from the low bits
+            return (int) Long.remainderUnsigned(fingerprint1, buckets) * WAYS * SLOT_BYTES;
+        }
+    }
+}
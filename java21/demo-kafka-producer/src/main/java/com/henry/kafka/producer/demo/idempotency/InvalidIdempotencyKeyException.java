@@ -0,0 +1,11 @@
+package com.henry.kafka.producer.demo.idempotency;
+
+/**
+ * Thrown by {@link IdempotencyCache#claim} for an empty or too long {@code Idempotency-Key}; answered with 400.
+ */
+public class InvalidIdempotencyKeyException extends IllegalArgumentException {
+
+    public InvalidIdempotencyKeyException(int maxLength) {
+        super("Idempotency-Key must have 1 to " + maxLength + " characters");
+    }
+}
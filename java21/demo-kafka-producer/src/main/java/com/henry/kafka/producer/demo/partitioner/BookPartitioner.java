@@ -0,0 +1,85 @@
+package com.henry.kafka.producer.demo.partitioner;
+
+import org.apache.kafka.clients.producer.Partitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.utils.Utils;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Partitions BookEvents by their key, the {@code book.bookId}, so every event of a book goes to
+ * the same partition and stays ordered. The hash is the default partitioner's murmur2 of the key
+ * bytes.
+ * <p>
+ * With {@value #HOT_PARTITIONS_CONFIG} = H &gt; 0, the last H partitions of a topic are dedicated
+ * to hot books: ordinary keys hash over the first N - H partitions, and a key detected as hot by
+ * the {@link PartitionSkewTracker} is spread round-robin over the H dedicated ones, so one busy
+ * book can no longer pin a single partition (and its leader broker). A hot book gives up its
+ * ordering while it is hot; with H = 0 (the default) keys are never spread and hot books are
+ * only reported.
+ * <p>
+ * Configured through the producer properties {@value #HOT_PARTITIONS_CONFIG},
+ * {@value #HOT_KEY_SHARE_CONFIG} and {@value #WINDOW_MS_CONFIG}. Tests can pass a
+ * {@code LongSupplier} of milliseconds as {@value #CLOCK_CONFIG} to move the windows themselves.
+ */
+public class BookPartitioner implements Partitioner {
+
+    public static final String HOT_PARTITIONS_CONFIG = "book.partitioner.hot.partitions";
+    public static final String HOT_KEY_SHARE_CONFIG = "book.partitioner.hot.key.share";
+    public static final String WINDOW_MS_CONFIG = "book.partitioner.window.ms";
+    public static final String CLOCK_CONFIG = "book.partitioner.clock";
+
+    private final AtomicInteger hotCounter = new AtomicInteger();
+    private int hotPartitions;
+    private double hotKeyShare;
+    private long windowMs;
+    private LongSupplier clock = System::currentTimeMillis;
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        hotPartitions = Integer.parseInt(config(configs, HOT_PARTITIONS_CONFIG, "0"));
+        hotKeyShare = Double.parseDouble(config(configs, HOT_KEY_SHARE_CONFIG, "0.1"));
+        windowMs = Long.parseLong(config(configs, WINDOW_MS_CONFIG, "1000"));
+        if (hotPartitions < 0 || hotKeyShare <= 0 || hotKeyShare > 1 || windowMs <= 0) {
+            throw new IllegalArgumentException("Invalid BookPartitioner settings: " + HOT_PARTITIONS_CONFIG + "=" + hotPartitions
+                    + ", " + HOT_KEY_SHARE_CONFIG + "=" + hotKeyShare + ", " + WINDOW_MS_CONFIG + "=" + windowMs);
+        }
+        if (configs.get(CLOCK_CONFIG) instanceof LongSupplier configured) {
+            clock = configured;
+        }
+    }
+
+    @Override
+    public int partition(String topic, Object key, byte[] keyBytes, Object value, byte[] valueBytes, Cluster cluster) {
+        int numPartitions = cluster.partitionsForTopic(topic).size();
+        PartitionSkewTracker.TopicSkew skew = PartitionSkewTracker.topic(topic, numPartitions, windowMs, hotKeyShare, clock);
+        Integer bookId = (Integer) key;
+        int partition = partition(bookId, keyBytes, numPartitions, skew);
+        skew.record(bookId, partition);
+        return partition;
+    }
+
+    int partition(Integer bookId, byte[] keyBytes, int numPartitions, PartitionSkewTracker.TopicSkew skew) {
+        // spreading needs at least one ordinary partition left
+        int dedicated = hotPartitions < numPartitions ? hotPartitions : 0;
+        if (keyBytes == null) {
+            return ThreadLocalRandom.current().nextInt(numPartitions - dedicated);
+        }
+        if (dedicated > 0 && skew.isHot(bookId)) {
+            return numPartitions - dedicated + Utils.toPositive(hotCounter.getAndIncrement()) % dedicated;
+        }
+        return Utils.toPositive(Utils.murmur2(keyBytes)) % (numPartitions - dedicated);
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static String config(Map<String, ?> configs, String key, String defaultValue) {
+        Object value = configs.get(key);
+        return value == null ? defaultValue : String.valueOf(value).trim();
+    }
+}
@@ -0,0 +1,27 @@
+package com.henry.kafka.producer.demo.partitioner;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/partitionskew}: records per partition, max/mean ratio and hot books per topic,
+ * as seen by the {@link BookPartitioner} since startup; {@code DELETE} starts counting again.
+ */
+@Component
+@Endpoint(id = "partitionskew")
+public class PartitionSkewEndpoint {
+
+    @ReadOperation
+    public Map<String, PartitionSkewTracker.TopicReport> partitionSkew() {
+        return PartitionSkewTracker.report();
+    }
+
+    @DeleteOperation
+    public void reset() {
+        PartitionSkewTracker.reset();
+    }
+}
@@ -0,0 +1,135 @@
+package com.henry.kafka.producer.demo.partitioner;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Per-topic partition counts and hot-key detection, shared by every {@link BookPartitioner}
+ * instance in the JVM (each Kafka producer creates its own partitioner).
+ * <p>
+ * Hot keys are found per window of {@code windowMs}: a key is hot for the next window when it had
+ * at least {@code hotKeyShare} of the window's records (and the window had at least
+ * {@value #MIN_WINDOW_RECORDS} records). At most {@value #MAX_TRACKED_KEYS} distinct keys are
+ * counted per window, which is plenty to find keys with a large share.
+ */
+public final class PartitionSkewTracker {
+
+    static final int MIN_WINDOW_RECORDS = 100;
+    static final int MAX_TRACKED_KEYS = 10_000;
+
+    private static final Map<String, TopicSkew> TOPICS = new ConcurrentHashMap<>();
+
+    private PartitionSkewTracker() {
+    }
+
+    static TopicSkew topic(String topic, int numPartitions, long windowMs, double hotKeyShare, LongSupplier clock) {
+        TopicSkew skew = TOPICS.computeIfAbsent(topic, t -> new TopicSkew(numPartitions, windowMs, hotKeyShare, clock));
+        if (skew.partitionCounts.length() != numPartitions) {
+            // partitions were added: start counting again with the new layout
+            skew = new TopicSkew(numPartitions, windowMs, hotKeyShare, clock);
+            TOPICS.put(topic, skew);
+        }
+        return skew;
+    }
+
+    /**
+     * Records per partition, the max/mean skew and the current hot keys of every topic seen so far.
+     */
+    public static Map<String, TopicReport> report() {
+        Map<String, TopicReport> report = new LinkedHashMap<>();
+        TOPICS.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> report.put(entry.getKey(), entry.getValue().report()));
+        return report;
+    }
+
+    public static void reset() {
+        TOPICS.clear();
+    }
+
+    public record TopicReport(long records, List<Long> recordsPerPartition, double maxToMeanRatio, Set<Integer> hotKeys) {
+    }
+
+    static final class TopicSkew {
+
+        final AtomicLongArray partitionCounts;
+        private final long windowMs;
+        private final double hotKeyShare;
+        private final LongSupplier clock;
+        private final Map<Integer, LongAdder> windowCounts = new ConcurrentHashMap<>();
+        private final LongAdder windowRecords = new LongAdder();
+        private volatile long windowStart;
+        private volatile Set<Integer> hotKeys = Set.of();
+
+        TopicSkew(int numPartitions, long windowMs, double hotKeyShare, LongSupplier clock) {
+            this.partitionCounts = new AtomicLongArray(numPartitions);
+            this.windowMs = windowMs;
+            this.hotKeyShare = hotKeyShare;
+            this.clock = clock;
+            this.windowStart = clock.getAsLong();
+        }
+
+        // rolls the window first, so the decision for a record already uses the last window's hot keys
+        boolean isHot(Integer key) {
+            if (clock.getAsLong() - windowStart >= windowMs) {
+                rollWindow();
+            }
+            return hotKeys.contains(key);
+        }
+
+        void record(Integer key, int partition) {
+            partitionCounts.incrementAndGet(partition);
+            if (clock.getAsLong() - windowStart >= windowMs) {
+                rollWindow();
+            }
+            if (key != null) {
+                LongAdder count = windowCounts.get(key);
+                if (count == null && windowCounts.size() < MAX_TRACKED_KEYS) {
+                    count = windowCounts.computeIfAbsent(key, k -> new LongAdder());
+                }
+                if (count != null) {
+                    count.increment();
+                }
+            }
+            windowRecords.increment();
+        }
+
+        private synchronized void rollWindow() {
+            if (clock.getAsLong() - windowStart < windowMs) {
+                return;
+            }
+            long total = windowRecords.sumThenReset();
+            if (total >= MIN_WINDOW_RECORDS) {
+                long threshold = (long) Math.ceil(total * hotKeyShare);
+                hotKeys = windowCounts.entrySet().stream()
+                        .filter(entry -> entry.getValue().sum() >= threshold)
+                        .map(Map.Entry::getKey)
+                        .collect(Collectors.toUnmodifiableSet());
+            } else {
+                hotKeys = Set.of();
+            }
+            windowCounts.clear();
+            windowStart = clock.getAsLong();
+        }
+
+        TopicReport report() {
+            long[] counts = new long[partitionCounts.length()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = partitionCounts.get(i);
+            }
+            long total = Arrays.stream(counts).sum();
+            long max = Arrays.stream(counts).max().orElse(0);
+            double mean = counts.length == 0 ? 0 : (double) total / counts.length;
+            return new TopicReport(total, Arrays.stream(counts).boxed().toList(),
+                    mean == 0 ? 0 : max / mean, hotKeys);
+        }
+    }
+}
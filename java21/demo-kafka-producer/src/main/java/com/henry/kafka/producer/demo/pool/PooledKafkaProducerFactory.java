@@ -0,0 +1,59 @@
+package com.henry.kafka.producer.demo.pool;
+
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link DefaultKafkaProducerFactory} whose shared producer is a {@link PooledProducer} of
+ * {@code poolSize} KafkaProducers. One KafkaProducer has a single sender I/O thread, which caps a
+ * busy instance at about one core; N of them send in parallel.
+ * <p>
+ * Everything else is the default factory: the {@code KafkaTemplate}, the customizers (producer
+ * profile, Micrometer listener) and producer post processors apply unchanged, the latter to every
+ * member. With a {@code client.id} configured, every member gets its own {@code -<n>} suffix, so
+ * their metrics do not collide.
+ */
+public class PooledKafkaProducerFactory<K, V> extends DefaultKafkaProducerFactory<K, V> {
+
+    private final int poolSize;
+
+    public PooledKafkaProducerFactory(Map<String, Object> configs, int poolSize) {
+        super(configs);
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("app.producer.pool.size must be at least 1 but was " + poolSize);
+        }
+        this.poolSize = poolSize;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    @Override
+    protected Producer<K, V> createRawProducer(Map<String, Object> rawConfigs) {
+        if (poolSize == 1 || rawConfigs.containsKey(ProducerConfig.TRANSACTIONAL_ID_CONFIG)) {
+            return super.createRawProducer(rawConfigs);
+        }
+        Object clientId = rawConfigs.get(ProducerConfig.CLIENT_ID_CONFIG);
+        List<Producer<K, V>> members = new ArrayList<>(poolSize);
+        try {
+            for (int i = 0; i < poolSize; i++) {
+                Map<String, Object> memberConfigs = new HashMap<>(rawConfigs);
+                if (clientId != null && !clientId.toString().isBlank()) {
+                    memberConfigs.put(ProducerConfig.CLIENT_ID_CONFIG, clientId + "-" + i);
+                }
+                members.add(super.createRawProducer(memberConfigs));
+            }
+        } catch (RuntimeException e) {
+            members.forEach(Producer::close);
+            throw e;
+        }
+        return new PooledProducer<>(members);
+    }
+}
@@ -0,0 +1,150 @@
+package com.henry.kafka.producer.demo.pool;
+
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.Uuid;
+import org.apache.kafka.common.utils.Utils;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link Producer} that spreads the sends over several independent producers, each with its own
+ * accumulator and sender I/O thread.
+ * <p>
+ * A record with an explicit partition always goes to the same member ({@code partition % N}),
+ * otherwise a keyed record goes to the member picked by its key's hash, so the records of one key
+ * (one book) stay in one producer and keep their order. Records without key and partition are
+ * spread round-robin.
+ * <p>
+ * Transactions are not supported: a transactional producer is already checked out per concurrent
+ * transaction by the producer factory.
+ */
+public class PooledProducer<K, V> implements Producer<K, V> {
+
+    private final List<Producer<K, V>> members;
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    public PooledProducer(List<Producer<K, V>> members) {
+        if (members.isEmpty()) {
+            throw new IllegalArgumentException("A producer pool needs at least one producer");
+        }
+        this.members = List.copyOf(members);
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    /**
+     * The member that sends the record.
+     */
+    public Producer<K, V> memberFor(ProducerRecord<K, V> record) {
+        int size = members.size();
+        if (size == 1) {
+            return members.get(0);
+        }
+        int index;
+        if (record.partition() != null) {
+            index = record.partition() % size;
+        } else if (record.key() != null) {
+            index = Utils.toPositive(record.key().hashCode()) % size;
+        } else {
+            index = Utils.toPositive(roundRobin.getAndIncrement()) % size;
+        }
+        return members.get(index);
+    }
+
+    @Override
+    public Future<RecordMetadata> send(ProducerRecord<K, V> record) {
+        return send(record, null);
+    }
+
+    @Override
+    public Future<RecordMetadata> send(ProducerRecord<K, V> record, Callback callback) {
+        return memberFor(record).send(record, callback);
+    }
+
+    @Override
+    public void flush() {
+        members.forEach(Producer::flush);
+    }
+
+    @Override
+    public List<PartitionInfo> partitionsFor(String topic) {
+        return members.get(0).partitionsFor(topic);
+    }
+
+    /**
+     * The metrics of every member; they are told apart by their {@code client-id} tag.
+     */
+    @Override
+    public Map<MetricName, ? extends Metric> metrics() {
+        Map<MetricName, Metric> metrics = new LinkedHashMap<>();
+        members.forEach(member -> metrics.putAll(member.metrics()));
+        return metrics;
+    }
+
+    @Override
+    public Uuid clientInstanceId(Duration timeout) {
+        return members.get(0).clientInstanceId(timeout);
+    }
+
+    @Override
+    public void close() {
+        members.forEach(Producer::close);
+    }
+
+    @Override
+    public void close(Duration timeout) {
+        members.forEach(member -> member.close(timeout));
+    }
+
+    @Override
+    public void initTransactions() {
+        throw transactionsNotSupported();
+    }
+
+    @Override
+    public void beginTransaction() {
+        throw transactionsNotSupported();
+    }
+
+    // deprecated in Producer, still part of the interface
+    @Deprecated
+    @Override
+    public void sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets, String consumerGroupId) {
+        throw transactionsNotSupported();
+    }
+
+    @Override
+    public void sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets, ConsumerGroupMetadata groupMetadata) {
+        throw transactionsNotSupported();
+    }
+
+    @Override
+    public void commitTransaction() {
+        throw transactionsNotSupported();
+    }
+
+    @Override
+    public void abortTransaction() {
+        throw transactionsNotSupported();
+    }
+
+    private static UnsupportedOperationException transactionsNotSupported() {
+        return new UnsupportedOperationException("Transactions are not supported by a producer pool");
+    }
+}
@@ -0,0 +1,71 @@
+package com.henry.kafka.producer.demo.producer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Hands acks on in groups ({@code ?ack=batch}): a send joins the open group, and its result is released
+ * only once every send of that group has completed. A group closes when it holds {@code app.ack.batch-size}
+ * sends or at the next {@code app.ack.batch-linger-ms} tick, whichever comes first.
+ * <p>
+ * A caller answered this way knows that everything admitted in its group alongside it is acknowledged too.
+ */
+@Component
+public class AckBatcher {
+
+    private final Object lock = new Object();
+    private Group open = new Group();
+
+    @Value("${app.ack.batch-size:100}")
+    public int batchSize = 100;
+
+    /**
+     * Completes with the result of {@code ack}, but not before the rest of its group has completed.
+     */
+    public <T> CompletableFuture<T> join(CompletableFuture<T> ack) {
+        Group group;
+        boolean full;
+        synchronized (lock) {
+            group = open;
+            group.sends.add(ack);
+            full = group.sends.size() >= batchSize;
+            if (full) {
+                open = new Group();
+            }
+        }
+        if (full) {
+            group.close();
+        }
+        return group.completed.thenCompose(ignored -> ack);
+    }
+
+    @Scheduled(fixedRateString = "${app.ack.batch-linger-ms:20}")
+    public void flush() {
+        Group group;
+        synchronized (lock) {
+            if (open.sends.isEmpty()) {
+                return;
+            }
+            group = open;
+            open = new Group();
+        }
+        group.close();
+    }
+
+    private static final class Group {
+
+        final List<CompletableFuture<?>> sends = new ArrayList<>();
+        final CompletableFuture<Void> completed = new CompletableFuture<>();
+
+        void close() {
+            // a failed send still completes the group; it fails only its own caller
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .whenComplete((ignored, throwable) -> completed.complete(null));
+        }
+    }
+}
@@ -1,20 +1,24 @@
 package com.henry.kafka.producer.demo.producer;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henry.kafka.producer.demo.config.ExecutorConfig;
+import com.henry.kafka.producer.demo.deadletter.DeadLetterPublisher;
 import com.henry.kafka.producer.demo.dto.BookEvent;
+import com.henry.kafka.producer.demo.serializer.BookEventSerializer;
+import com.henry.kafka.producer.demo.spill.SpillJournal;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.producer.ProducerRecord;
-import org.apache.kafka.common.header.Header;
-import org.apache.kafka.common.header.internals.RecordHeader;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -22,74 +26,167 @@ import java.util.concurrent.TimeoutException;
 @Slf4j
 public class BookEventProducer {
 
-    KafkaTemplate<Integer, String> kafkaTemplate;
-    ObjectMapper objectMapper;
+    KafkaTemplate<Integer, byte[]> kafkaTemplate;
+    BookEventSerializer bookEventSerializer;
+    ProducerMetrics producerMetrics;
+    SendLogger sendLogger;
+    SpillJournal spillJournal;
+    Executor callbackExecutor;
+    ProducerRecordFactory producerRecordFactory;
+    DeadLetterPublisher deadLetterPublisher;
 
     @Value("${spring.kafka.topic}")
     public String topic;
 
+    @Value("${app.sync.ack-timeout-ms:1000}")
+    public long syncAckTimeoutMs = 1000;
+
     public BookEventProducer(KafkaTemplate<Integer,
-            String> kafkaTemplate,
-                             ObjectMapper objectMapper) {
+            byte[]> kafkaTemplate,
+                             BookEventSerializer bookEventSerializer,
+                             ProducerMetrics producerMetrics,
+                             SendLogger sendLogger,
+                             SpillJournal spillJournal,
+                             @Qualifier(ExecutorConfig.PRODUCER_CALLBACK_EXECUTOR) Executor callbackExecutor,
+                             ProducerRecordFactory producerRecordFactory,
+                             DeadLetterPublisher deadLetterPublisher) {
         this.kafkaTemplate = kafkaTemplate;
-        this.objectMapper = objectMapper;
+        this.bookEventSerializer = bookEventSerializer;
+        this.producerMetrics = producerMetrics;
+        this.sendLogger = sendLogger;
+        this.spillJournal = spillJournal;
+        this.callbackExecutor = callbackExecutor;
+        this.producerRecordFactory = producerRecordFactory;
+        this.deadLetterPublisher = deadLetterPublisher;
     }
 
-    public CompletableFuture<SendResult<Integer, String>>
-    sendBookEvent(BookEvent bookEvent) throws JsonProcessingException {
+    public CompletableFuture<SendResult<Integer, byte[]>>
+    sendBookEvent(BookEvent bookEvent) {
 
-        Integer key = bookEvent.bookEventId();
-        String value = objectMapper.writeValueAsString(bookEvent);
+        Integer key = bookEvent.book().bookId();
+        byte[] value = serialize(bookEvent);
 
-        var completableFuture = kafkaTemplate.sendDefault(key, value);
+        ProducerRecord<Integer, byte[]> producerRecord = new ProducerRecord<>(kafkaTemplate.getDefaultTopic(), key, value);
+        long start = System.nanoTime();
+        var completableFuture = sendOrSpill(producerRecord, start);
        return completableFuture
-                .whenComplete((sendResult, throwable) -> {
+                .whenCompleteAsync((sendResult, throwable) -> {
                     if (throwable != null) {
-                        handleFailure(key, value, throwable);
+                        handleFailure(producerRecord, bookEvent, throwable);
                     } else {
-                        handleSuccess(key, value, sendResult);
+                        handleSuccess(key, bookEvent, sendResult, start);
 
                     }
-                });
+                }, callbackExecutor);
     }
 
-    public CompletableFuture<SendResult<Integer, String>>
-    sendBookEvent_Approach2(BookEvent bookEvent) throws JsonProcessingException {
+    public CompletableFuture<SendResult<Integer, byte[]>>
+    sendBookEvent_Approach2(BookEvent bookEvent) {
 
-        Integer key = bookEvent.bookEventId();
-        String value = objectMapper.writeValueAsString(bookEvent);
+        Integer key = bookEvent.book().bookId();
+        byte[] value = serialize(bookEvent);
 
-        ProducerRecord<Integer, String> producerRecord = buildProducerRecord(key, value, topic);
-        var completableFuture = kafkaTemplate.send(producerRecord);
+        ProducerRecord<Integer, byte[]> producerRecord = buildProducerRecord(key, value, topic);
+        long start = System.nanoTime();
+        var completableFuture = sendOrSpill(producerRecord, start);
         return completableFuture
-                .whenComplete((sendResult, throwable) -> {
+                .whenCompleteAsync((sendResult, throwable) -> {
                     if (throwable != null) {
-                        handleFailure(key, value, throwable);
+                        handleFailure(producerRecord, bookEvent, throwable);
                     } else {
-                        handleSuccess(key, value, sendResult);
+                        handleSuccess(key, bookEvent, sendResult, start);
 
                     }
-                });
+                }, callbackExecutor);
+    }
+
+    /**
+     * Hands every event to the producer without waiting for the previous ack, so the
+     * records share producer batches. One future per event, in input order; an event
+     * that cannot be serialized or handed to the producer only fails its own future.
+     * <p>
+     * With a transactional template (the {@code exactly-once} profile) the batch is sent in one
+     * transaction instead and commits all-or-nothing.
+     */
+    public List<CompletableFuture<SendResult<Integer, byte[]>>>
+    sendBookEvents(List<BookEvent> bookEvents) {
+
+        if (kafkaTemplate.isTransactional()) {
+            return sendBookEventsInTransaction(bookEvents);
+        }
+        List<CompletableFuture<SendResult<Integer, byte[]>>> futures = new ArrayList<>(bookEvents.size());
+        for (BookEvent bookEvent : bookEvents) {
+            try {
+                futures.add(sendBookEvent_Approach2(bookEvent));
+            } catch (RuntimeException e) {
+                log.error("Error Sending the Message and the exception is {}", e.getMessage());
+                producerMetrics.recordFailure(topic, e);
+                futures.add(CompletableFuture.failedFuture(e));
+            }
+        }
+        return futures;
     }
 
-    private ProducerRecord<Integer, String>
-    buildProducerRecord(Integer key, String value, String topic) {
+    /**
+     * Sends the batch in one Kafka transaction and blocks until it is committed. Each concurrent
+     * transaction checks out its own transactional producer from the factory's pool (ids
+     * {@code <transaction-id-prefix>N}), so parallel batches do not queue on one producer. If any
+     * record fails, the transaction is aborted and every future fails with the cause.
+     */
+    private List<CompletableFuture<SendResult<Integer, byte[]>>>
+    sendBookEventsInTransaction(List<BookEvent> bookEvents) {
 
+        try {
+            List<ProducerRecord<Integer, byte[]>> records = new ArrayList<>(bookEvents.size());
+            for (BookEvent bookEvent : bookEvents) {
+                records.add(buildProducerRecord(bookEvent.book().bookId(), serialize(bookEvent), topic));
+            }
+            long start = System.nanoTime();
+            List<CompletableFuture<SendResult<Integer, byte[]>>> futures = kafkaTemplate.executeInTransaction(operations -> {
+                List<CompletableFuture<SendResult<Integer, byte[]>>> sent = new ArrayList<>(records.size());
+                for (ProducerRecord<Integer, byte[]> producerRecord : records) {
+                    sent.add(producerMetrics.track(topic, start, operations.send(producerRecord)));
+                }
+                return sent;
+            });
+            // the commit flushed the transaction, so every future is complete
+            for (int i = 0; i < futures.size(); i++) {
+                handleSuccess(records.get(i).key(), bookEvents.get(i), futures.get(i).join(), start);
+            }
+            return futures;
+        } catch (RuntimeException e) {
+            log.error("Transaction for a batch of {} events rolled back and the exception is {}", bookEvents.size(), e.getMessage());
+            producerMetrics.recordFailure(topic, e);
+            return Collections.nCopies(bookEvents.size(), CompletableFuture.failedFuture(e));
+        }
+    }
 
-        List<Header> recordHeaders = List.of(new RecordHeader("event-source", "scanner".getBytes()));
+    /**
+     * The key is the {@code book.bookId} (NEW events have no {@code bookEventId}), so BookPartitioner
+     * sends every event of a book to the same partition.
+     */
+    public ProducerRecord<Integer, byte[]>
+    buildProducerRecord(Integer key, byte[] value, String topic) {
 
-        return new ProducerRecord<>(topic, null, key, value, recordHeaders);
+        return producerRecordFactory.create(ProducerRecordFactory.SCANNER, topic, key, value);
     }
 
 
-    public SendResult<Integer, String>
-    sendBookEventSynchronous(BookEvent bookEvent) throws JsonProcessingException, ExecutionException, InterruptedException, TimeoutException {
+    /**
+     * Blocks the calling thread until the broker acks the record or {@code app.sync.ack-timeout-ms}
+     * elapses. Cheap on a virtual thread (the {@code virtual-threads} profile), where the wait only
+     * parks the request's virtual thread instead of holding a Tomcat worker.
+     */
+    public SendResult<Integer, byte[]>
+    sendBookEventSynchronous(BookEvent bookEvent) throws ExecutionException, InterruptedException, TimeoutException {
 
-        Integer key = bookEvent.bookEventId();
-        String value = objectMapper.writeValueAsString(bookEvent);
-        SendResult<Integer, String> sendResult = null;
+        Integer key = bookEvent.book().bookId();
+        byte[] value = serialize(bookEvent);
+        SendResult<Integer, byte[]> sendResult = null;
         try {
-            sendResult = kafkaTemplate.sendDefault(key, value).get(1, TimeUnit.SECONDS);
+            long start = System.nanoTime();
+            sendResult = producerMetrics.track(topic, start, kafkaTemplate.send(buildProducerRecord(key, value, topic)))
+                    .get(syncAckTimeoutMs, TimeUnit.MILLISECONDS);
         } catch (ExecutionException | InterruptedException e) {
             log.error("ExecutionException/InterruptedException Sending the Message and the exception is {}", e.getMessage());
             throw e;
@@ -102,18 +199,37 @@ public class BookEventProducer {
 
     }
 
-    private void handleFailure(Integer key, String value, Throwable ex) {
-        log.error("Error Sending the Message and the exception is {}", ex.getMessage());
-//        try {
-//            throw ex;
-//        } catch (Throwable throwable) {
-//            log.error("Error in OnFailure: {}", throwable.getMessage());
-//        }
+    /**
+     * Sends the record, or appends it to the spill journal while Kafka is unavailable. A retriable
+     * send failure is spilled too, so the event is replayed later instead of being lost.
+     */
+    private CompletableFuture<SendResult<Integer, byte[]>>
+    sendOrSpill(ProducerRecord<Integer, byte[]> producerRecord, long start) {
+
+        if (spillJournal.isSpilling()) {
+            return spillJournal.spill(producerRecord, null);
+        }
+        return producerMetrics.track(producerRecord.topic(), start, kafkaTemplate.send(producerRecord))
+                .exceptionallyCompose(ex -> spillJournal.spill(producerRecord, ex));
+    }
 
+    private byte[] serialize(BookEvent bookEvent) {
+        long start = System.nanoTime();
+        byte[] value = bookEventSerializer.serialize(topic, bookEvent);
+        producerMetrics.recordSerialization(topic, System.nanoTime() - start, value.length);
+        return value;
+    }
 
+    /**
+     * The spill journal did not take the record either (non-retriable error, journal full or
+     * disabled), so it goes to the dead-letter topic for the {@code DeadLetterRetrier}.
+     */
+    private void handleFailure(ProducerRecord<Integer, byte[]> producerRecord, BookEvent bookEvent, Throwable ex) {
+        sendLogger.failure(topic, producerRecord.key(), bookEvent, ex);
+        deadLetterPublisher.publish(producerRecord, ex);
     }
 
-    private void handleSuccess(Integer key, String value, SendResult<Integer, String> result) {
-        log.info("Message Sent SuccessFully for the key : {} and the value is {} , partition is {}", key, value, result.getRecordMetadata().partition());
+    private void handleSuccess(Integer key, BookEvent bookEvent, SendResult<Integer, byte[]> result, long start) {
+        sendLogger.success(topic, key, result.getRecordMetadata().partition(), bookEvent, System.nanoTime() - start);
     }
 }
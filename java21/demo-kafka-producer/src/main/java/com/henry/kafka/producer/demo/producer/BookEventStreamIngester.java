@@ -0,0 +1,114 @@
+package com.henry.kafka.producer.demo.producer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.henry.kafka.producer.demo.dto.BookEvent;
+import com.henry.kafka.producer.demo.dto.BookEventType;
+import com.henry.kafka.producer.demo.dto.StreamIngestResult;
+import com.henry.kafka.producer.demo.validation.BookEventValidator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads an NDJSON body one {@link BookEvent} at a time and hands each event to the
+ * {@link BookEventProducer} as soon as it is parsed, so the body is never materialized.
+ * <p>
+ * Backpressure: reading and sending happen on the same thread. When the producer's
+ * {@code buffer.memory} is full, {@code KafkaTemplate.send} blocks that thread and the
+ * socket is not read until space is freed. On top of that, at most
+ * {@code app.stream.max-in-flight} records may be unacknowledged at any time.
+ */
+@Component
+@Slf4j
+public class BookEventStreamIngester {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final BookEventProducer bookEventProducer;
+    private final ObjectReader bookEventReader;
+
+    @Value("${app.stream.max-in-flight:10000}")
+    public int maxInFlight;
+
+    public BookEventStreamIngester(BookEventProducer bookEventProducer, ObjectMapper objectMapper) {
+        this.bookEventProducer = bookEventProducer;
+        this.bookEventReader = objectMapper.readerFor(BookEvent.class);
+    }
+
+    public StreamIngestResult ingest(InputStream body) throws IOException, InterruptedException {
+
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicLong failedAcks = new AtomicLong();
+        List<String> errors = new ArrayList<>();
+        long sent = 0;
+        long rejected = 0;
+        long failedSends = 0;
+        long line = 0;
+
+        try (MappingIterator<BookEvent> events = bookEventReader.readValues(body)) {
+            while (events.hasNextValue()) {
+                line++;
+                BookEvent bookEvent = events.nextValue();
+
+                String errorMessage = validate(bookEvent);
+                if (errorMessage != null) {
+                    rejected++;
+                    addError(errors, "[" + line + "] " + errorMessage);
+                    continue;
+                }
+
+                inFlight.acquire();
+                try {
+                    bookEventProducer.sendBookEvent_Approach2(bookEvent)
+                            .whenComplete((sendResult, throwable) -> {
+                                if (throwable != null) {
+                                    failedAcks.incrementAndGet();
+                                }
+                                inFlight.release();
+                            });
+                    sent++;
+                } catch (RuntimeException e) {
+                    inFlight.release();
+                    failedSends++;
+                    addError(errors, "[" + line + "] " + e.getMessage());
+                }
+            }
+        } catch (JsonProcessingException e) {
+            // a malformed line cannot be skipped reliably, so the stream stops here
+            log.info("Stopped reading the stream at line {} : {}", line + 1, e.getOriginalMessage());
+            addError(errors, "[" + (line + 1) + "] " + e.getOriginalMessage());
+        } finally {
+            // wait until every record handed to the producer has been acknowledged
+            inFlight.acquire(maxInFlight);
+        }
+
+        long failed = failedSends + failedAcks.get();
+        return new StreamIngestResult(sent - failedAcks.get(), rejected, failed, errors);
+    }
+
+    private String validate(BookEvent bookEvent) {
+        if (bookEvent == null) {
+            return "must not be null";
+        }
+        if (BookEventType.NEW != bookEvent.bookEventType()) {
+            return "Only NEW event type is supported";
+        }
+        return BookEventValidator.validate(bookEvent);
+    }
+
+    private static void addError(List<String> errors, String error) {
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(error);
+        }
+    }
+}
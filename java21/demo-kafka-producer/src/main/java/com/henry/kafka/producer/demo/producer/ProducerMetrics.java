@@ -0,0 +1,129 @@
+package com.henry.kafka.producer.demo.producer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hot-path meters of the producers: send-to-ack latency per topic and partition, serialization
+ * time, payload size, records in flight and failures by exception class.
+ * <p>
+ * Meters are resolved once per topic (or topic-partition) and cached, so recording on the send
+ * path is a map lookup plus the meter update. The Kafka client's own metrics
+ * ({@code kafka.producer.record.queue.time.avg}, {@code kafka.producer.batch.size.avg},
+ * {@code kafka.producer.buffer.available.bytes}, ...) are bound to the same registry by Spring
+ * Boot's {@code MicrometerProducerListener} on the producer factory.
+ */
+@Component
+public class ProducerMetrics {
+
+    public static final String SEND_ACK = "book.producer.send.ack";
+    public static final String SERIALIZATION = "book.producer.serialization";
+    public static final String PAYLOAD_SIZE = "book.producer.payload.size";
+    public static final String IN_FLIGHT = "book.producer.in.flight";
+    public static final String FAILURES = "book.producer.failures";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<TopicPartition, Timer> ackTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> serializationTimers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> payloadSizes = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter> failures = new ConcurrentHashMap<>();
+
+    public ProducerMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void recordSerialization(String topic, long elapsedNanos, int payloadBytes) {
+        serializationTimers.computeIfAbsent(topic, t -> Timer.builder(SERIALIZATION)
+                        .description("Time to serialize one event")
+                        .tag("topic", t)
+                        .register(meterRegistry))
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        payloadSizes.computeIfAbsent(topic, t -> DistributionSummary.builder(PAYLOAD_SIZE)
+                        .description("Serialized event size")
+                        .baseUnit("bytes")
+                        .tag("topic", t)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(payloadBytes);
+    }
+
+    /**
+     * Counts the send as in flight until {@code send} completes, then records the send-to-ack
+     * latency (measured from {@code startNanos}) or a failure. The returned stage completes with
+     * the same outcome as {@code send}, after the meters are updated.
+     */
+    public <K, V> CompletableFuture<SendResult<K, V>>
+    track(String topic, long startNanos, CompletableFuture<SendResult<K, V>> send) {
+
+        AtomicInteger topicInFlight = inFlight(topic);
+        topicInFlight.incrementAndGet();
+        return send.whenComplete((sendResult, throwable) -> {
+            topicInFlight.decrementAndGet();
+            if (throwable != null) {
+                recordFailure(topic, throwable);
+            } else {
+                recordAck(sendResult.getRecordMetadata().topic(), sendResult.getRecordMetadata().partition(),
+                        System.nanoTime() - startNanos);
+            }
+        });
+    }
+
+    public void recordAck(String topic, int partition, long elapsedNanos) {
+        ackTimers.computeIfAbsent(new TopicPartition(topic, partition), tp -> Timer.builder(SEND_ACK)
+                        .description("Time from handing a record to the producer until the broker ack")
+                        .tag("topic", tp.topic())
+                        .tag("partition", Integer.toString(tp.partition()))
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFailure(String topic, Throwable throwable) {
+        Throwable cause = unwrap(throwable);
+        String key = topic + '|' + cause.getClass().getName();
+        failures.computeIfAbsent(key, k -> Counter.builder(FAILURES)
+                        .description("Sends that failed, by exception class")
+                        .tag("topic", topic)
+                        .tag("exception", cause.getClass().getSimpleName())
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    private AtomicInteger inFlight(String topic) {
+        return inFlight.computeIfAbsent(topic, t -> {
+            AtomicInteger count = new AtomicInteger();
+            Gauge.builder(IN_FLIGHT, count, AtomicInteger::get)
+                    .description("Records handed to the producer and not yet acked or failed")
+                    .tag("topic", t)
+                    .register(meterRegistry);
+            return count;
+        });
+    }
+
+    // KafkaTemplate fails with a KafkaProducerException wrapping the client's exception
+    private static Throwable unwrap(Throwable throwable) {
+        Throwable current = throwable;
+        while ((current instanceof CompletionException || current instanceof ExecutionException
+                || current instanceof KafkaException)
+                && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
+    }
+}
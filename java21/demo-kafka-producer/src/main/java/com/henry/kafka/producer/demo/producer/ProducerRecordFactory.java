@@ -0,0 +1,81 @@
+package com.henry.kafka.producer.demo.producer;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds the producers' records from already serialized values.
+ * <p>
+ * Every event source ({@value #SCANNER} for book events, {@value #USER_API} for user events) gets an
+ * {@value #EVENT_SOURCE} header plus the headers configured under {@code app.record.headers.<source>},
+ * e.g. {@code app.record.headers.scanner.schema-version: "1"}. They are built once, as one read-only
+ * {@link RecordHeaders} per source. {@code ProducerRecord} copies a {@code RecordHeaders} with a single
+ * array copy, so a record costs that copy and nothing else: no header list, no {@link RecordHeader} and
+ * no {@code getBytes()} per send. The value array is handed to the record as is, never copied.
+ * <p>
+ * The header values are shared by every record of the source; interceptors must not modify them.
+ */
+@Component
+public class ProducerRecordFactory {
+
+    public static final String EVENT_SOURCE = "event-source";
+    public static final String SCANNER = "scanner";
+    public static final String USER_API = "user-api";
+
+    private static final Bindable<Map<String, Map<String, String>>> HEADERS_BY_SOURCE = Bindable.of(
+            ResolvableType.forClassWithGenerics(Map.class, ResolvableType.forClass(String.class),
+                    ResolvableType.forClassWithGenerics(Map.class, String.class, String.class)));
+
+    private final Map<String, Map<String, String>> configuredHeaders;
+    private final Map<String, RecordHeaders> headersBySource = new ConcurrentHashMap<>();
+
+    public ProducerRecordFactory() {
+        this(Map.of());
+    }
+
+    @Autowired
+    public ProducerRecordFactory(Environment environment) {
+        this(Binder.get(environment).bind("app.record.headers", HEADERS_BY_SOURCE).orElse(Map.of()));
+    }
+
+    public ProducerRecordFactory(Map<String, Map<String, String>> configuredHeaders) {
+        this.configuredHeaders = configuredHeaders;
+        headers(SCANNER);
+        headers(USER_API);
+    }
+
+    public ProducerRecord<Integer, byte[]> create(String source, String topic, Integer key, byte[] value) {
+        return new ProducerRecord<>(topic, null, key, value, headers(source));
+    }
+
+    /**
+     * The shared, read-only headers of {@code source}.
+     */
+    public RecordHeaders headers(String source) {
+        RecordHeaders headers = headersBySource.get(source);
+        return headers != null ? headers : headersBySource.computeIfAbsent(source, this::buildHeaders);
+    }
+
+    private RecordHeaders buildHeaders(String source) {
+        // a configured event-source replaces the default one
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put(EVENT_SOURCE, source);
+        values.putAll(configuredHeaders.getOrDefault(source, Map.of()));
+        RecordHeaders headers = new RecordHeaders();
+        values.forEach((name, value) -> headers.add(new RecordHeader(name, value.getBytes(StandardCharsets.UTF_8))));
+        headers.setReadOnly();
+        return headers;
+    }
+}
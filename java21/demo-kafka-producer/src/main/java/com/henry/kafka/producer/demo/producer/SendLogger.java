@@ -0,0 +1,162 @@
+package com.henry.kafka.producer.demo.producer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Send outcome logging for the producers.
+ * <p>
+ * In the default {@code summary} mode a successful send only updates a per-topic count and a
+ * latency {@link Recorder}; every {@code app.producer.logging.summary-interval-ms} one line per
+ * topic reports the sends, failures and ack latency percentiles of the interval. Failures are
+ * logged at ERROR up to {@code app.producer.logging.failure-logs-per-second}, the rest are
+ * counted in the summary, and payloads are only logged at DEBUG.
+ * <p>
+ * {@code per-record} keeps the old behaviour of one INFO line with the payload per send, which
+ * costs more CPU than the send itself under load.
+ */
+@Component
+@Slf4j
+public class SendLogger {
+
+    public enum Mode {
+        SUMMARY, PER_RECORD;
+
+        public static Mode from(String name) {
+            try {
+                return valueOf(name.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown send logging mode '" + name + "', expected one of "
+                        + Arrays.stream(values()).map(m -> m.name().replace('_', '-').toLowerCase(Locale.ROOT))
+                        .collect(Collectors.joining(", ")), e);
+            }
+        }
+    }
+
+    // ack latencies above a minute are clamped into the top bucket
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Map<String, TopicStats> topicStats = new ConcurrentHashMap<>();
+    private final AtomicLong failureWindowStart = new AtomicLong();
+    private final AtomicInteger failureLogsInWindow = new AtomicInteger();
+
+    private volatile Mode mode = Mode.SUMMARY;
+
+    @Value("${app.producer.logging.failure-logs-per-second:10}")
+    public int failureLogsPerSecond = 10;
+
+    @Value("${app.producer.logging.mode:summary}")
+    public void setMode(String mode) {
+        this.mode = Mode.from(mode);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void success(String topic, Integer key, int partition, Object payload, long ackNanos) {
+        if (mode == Mode.PER_RECORD) {
+            log.info("Message Sent SuccessFully for the key : {} and the value is {} , partition is {}", key, payload, partition);
+            return;
+        }
+        TopicStats stats = stats(topic);
+        stats.sent.increment();
+        stats.ackLatency.recordValue(Math.min(Math.max(ackNanos, 0), HIGHEST_TRACKABLE_NANOS));
+    }
+
+    public void failure(String topic, Integer key, Object payload, Throwable ex) {
+        TopicStats stats = stats(topic);
+        stats.failed.increment();
+        if (mode == Mode.PER_RECORD || tryAcquireFailureLog()) {
+            log.error("Error Sending the Message to {} for the key : {} and the exception is {}", topic, key, ex.getMessage());
+            if (log.isDebugEnabled()) {
+                log.debug("Failed payload for the key : {} is {}", key, payload);
+            }
+        } else {
+            stats.suppressedFailureLogs.increment();
+        }
+    }
+
+    /**
+     * Logs and resets the interval statistics of every topic that saw traffic.
+     */
+    @Scheduled(fixedRateString = "${app.producer.logging.summary-interval-ms:10000}",
+            initialDelayString = "${app.producer.logging.summary-interval-ms:10000}")
+    public void logSummary() {
+        for (Summary summary : takeSummaries()) {
+            log.info("Send summary {} : sent={}, failed={}, suppressedFailureLogs={}, ack p50={}ms p99={}ms max={}ms",
+                    summary.topic(), summary.sent(), summary.failed(), summary.suppressedFailureLogs(),
+                    millis(summary.ackP50Nanos()), millis(summary.ackP99Nanos()), millis(summary.ackMaxNanos()));
+        }
+    }
+
+    /**
+     * The interval statistics of every topic that saw traffic since the last call, which resets them.
+     */
+    public List<Summary> takeSummaries() {
+        List<Summary> summaries = new ArrayList<>();
+        topicStats.forEach((topic, stats) -> {
+            long sent = stats.sent.sumThenReset();
+            long failed = stats.failed.sumThenReset();
+            long suppressed = stats.suppressedFailureLogs.sumThenReset();
+            Histogram interval = stats.ackLatency.getIntervalHistogram(stats.recycled);
+            stats.recycled = interval;
+            if (sent == 0 && failed == 0) {
+                return;
+            }
+            summaries.add(new Summary(topic, sent, failed, suppressed, interval.getValueAtPercentile(50),
+                    interval.getValueAtPercentile(99), interval.getMaxValue()));
+        });
+        return summaries;
+    }
+
+    private boolean tryAcquireFailureLog() {
+        long second = System.nanoTime() / 1_000_000_000L;
+        long windowStart = failureWindowStart.get();
+        if (windowStart != second && failureWindowStart.compareAndSet(windowStart, second)) {
+            failureLogsInWindow.set(0);
+        }
+        return failureLogsInWindow.incrementAndGet() <= failureLogsPerSecond;
+    }
+
+    private TopicStats stats(String topic) {
+        return topicStats.computeIfAbsent(topic, t -> new TopicStats());
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0);
+    }
+
+    /**
+     * One topic's line of the summary: sends and failures of the interval, and its ack latencies.
+     */
+    public record Summary(String topic, long sent, long failed, long suppressedFailureLogs,
+                          long ackP50Nanos, long ackP99Nanos, long ackMaxNanos) {
+    }
+
+    private static final class TopicStats {
+        final LongAdder sent = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder suppressedFailureLogs = new LongAdder();
+        // the Recorder flips between two histograms, so the writers never block on the summary
+        final Recorder ackLatency = new Recorder(HIGHEST_TRACKABLE_NANOS, 2);
+        // only touched by the (single) summary thread
+        Histogram recycled;
+    }
+}
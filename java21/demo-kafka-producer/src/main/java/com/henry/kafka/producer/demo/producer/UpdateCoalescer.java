@@ -0,0 +1,116 @@
+package com.henry.kafka.producer.demo.producer;
+
+import com.henry.kafka.producer.demo.dto.BookEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Optional coalescing of UPDATE events in front of {@link BookEventProducer#sendBookEvent_Approach2}.
+ * <p>
+ * With {@code app.coalesce.enabled=true}, UPDATEs are held for up to {@code app.coalesce.window-ms}
+ * and only the latest UPDATE per {@code bookEventId} of the window is sent. The superseded
+ * requests complete with the result of that send, and each of them increments
+ * {@value #COALESCED}. Disabled (the default), every UPDATE is sent at once.
+ */
+@Component
+@Slf4j
+public class UpdateCoalescer implements DisposableBean {
+
+    public static final String COALESCED = "book.producer.coalesced";
+
+    private final BookEventProducer bookEventProducer;
+    private final Counter coalesced;
+    private final Map<Integer, PendingUpdate> pending = new ConcurrentHashMap<>();
+
+    @Value("${app.coalesce.enabled:false}")
+    public boolean enabled;
+
+    public UpdateCoalescer(BookEventProducer bookEventProducer,
+                           MeterRegistry meterRegistry,
+                           @Value("${spring.kafka.topic}") String topic) {
+        this.bookEventProducer = bookEventProducer;
+        this.coalesced = Counter.builder(COALESCED)
+                .description("UPDATE events superseded by a later UPDATE of the same bookEventId and never sent")
+                .tag("topic", topic)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sends the UPDATE, or holds it until the end of the current window. The future completes with
+     * the result of the send that carried the window's latest UPDATE for the {@code bookEventId}.
+     */
+    public CompletableFuture<SendResult<Integer, byte[]>> sendUpdate(BookEvent bookEvent) {
+        if (!enabled || bookEvent.bookEventId() == null) {
+            return bookEventProducer.sendBookEvent_Approach2(bookEvent);
+        }
+        CompletableFuture<SendResult<Integer, byte[]>> acknowledged = new CompletableFuture<>();
+        pending.compute(bookEvent.bookEventId(), (bookEventId, update) -> {
+            if (update == null) {
+                update = new PendingUpdate();
+            } else {
+                coalesced.increment();
+            }
+            update.latest = bookEvent;
+            update.waiters.add(acknowledged);
+            return update;
+        });
+        return acknowledged;
+    }
+
+    /**
+     * Ends the window: sends the latest UPDATE of every {@code bookEventId} held since the last flush.
+     */
+    @Scheduled(fixedRateString = "${app.coalesce.window-ms:100}")
+    public void flush() {
+        for (Integer bookEventId : pending.keySet()) {
+            // once removed, a new UPDATE for the id opens the next window
+            PendingUpdate update = pending.remove(bookEventId);
+            if (update != null) {
+                send(update);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+    }
+
+    private void send(PendingUpdate update) {
+        CompletableFuture<SendResult<Integer, byte[]>> sent;
+        try {
+            sent = bookEventProducer.sendBookEvent_Approach2(update.latest);
+        } catch (RuntimeException e) {
+            log.error("Error Sending the coalesced UPDATE for the bookEventId : {} and the exception is {}",
+                    update.latest.bookEventId(), e.getMessage());
+            sent = CompletableFuture.failedFuture(e);
+        }
+        sent.whenComplete((sendResult, throwable) -> {
+            for (CompletableFuture<SendResult<Integer, byte[]>> waiter : update.waiters) {
+                if (throwable != null) {
+                    waiter.completeExceptionally(throwable);
+                } else {
+                    waiter.complete(sendResult);
+                }
+            }
+        });
+    }
+
+    // only modified inside pending.compute, read after pending.remove
+    private static final class PendingUpdate {
+        BookEvent latest;
+        final List<CompletableFuture<SendResult<Integer, byte[]>>> waiters = new ArrayList<>(1);
+    }
+}
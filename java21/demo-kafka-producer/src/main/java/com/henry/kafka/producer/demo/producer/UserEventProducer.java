@@ -1,52 +1,79 @@
 package com.henry.kafka.producer.demo.producer;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henry.kafka.producer.demo.config.ExecutorConfig;
+import com.henry.kafka.producer.demo.deadletter.DeadLetterPublisher;
 import com.henry.kafka.producer.demo.dto.BookEvent;
+import com.henry.kafka.producer.demo.serializer.BookEventSerializer;
+import com.henry.kafka.producer.demo.spill.SpillJournal;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.producer.ProducerRecord;
-import org.apache.kafka.common.header.Header;
-import org.apache.kafka.common.header.internals.RecordHeader;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Component
 @Slf4j
 public class UserEventProducer {
 
-    private final KafkaTemplate<Integer, String> kafkaTemplate;
-    private final ObjectMapper objectMapper;
+    private final KafkaTemplate<Integer, byte[]> kafkaTemplate;
+    private final BookEventSerializer bookEventSerializer;
+    private final ProducerMetrics producerMetrics;
+    private final SendLogger sendLogger;
+    private final SpillJournal spillJournal;
+    private final Executor callbackExecutor;
+    private final ProducerRecordFactory producerRecordFactory;
+    private final DeadLetterPublisher deadLetterPublisher;
 
     @Value("${spring.kafka.topic2}")
     public String topic2;
 
-    public UserEventProducer(KafkaTemplate<Integer, String> kafkaTemplate, ObjectMapper objectMapper) {
+    public UserEventProducer(KafkaTemplate<Integer, byte[]> kafkaTemplate, BookEventSerializer bookEventSerializer,
+                             ProducerMetrics producerMetrics,
+                             SendLogger sendLogger,
+                             SpillJournal spillJournal,
+                             @Qualifier(ExecutorConfig.PRODUCER_CALLBACK_EXECUTOR) Executor callbackExecutor,
+                             ProducerRecordFactory producerRecordFactory,
+                             DeadLetterPublisher deadLetterPublisher) {
         this.kafkaTemplate = kafkaTemplate;
-        this.objectMapper = objectMapper;
+        this.bookEventSerializer = bookEventSerializer;
+        this.producerMetrics = producerMetrics;
+        this.sendLogger = sendLogger;
+        this.spillJournal = spillJournal;
+        this.callbackExecutor = callbackExecutor;
+        this.producerRecordFactory = producerRecordFactory;
+        this.deadLetterPublisher = deadLetterPublisher;
     }
 
-    public CompletableFuture<SendResult<Integer, String>> sendUserEvent(BookEvent event) throws JsonProcessingException {
-        Integer key = event.bookEventId();
-        String value = objectMapper.writeValueAsString(event);
+    public CompletableFuture<SendResult<Integer, byte[]>> sendUserEvent(BookEvent event) {
+        Integer key = event.book().bookId();
+        long serializeStart = System.nanoTime();
+        byte[] value = bookEventSerializer.serialize(topic2, event);
+        producerMetrics.recordSerialization(topic2, System.nanoTime() - serializeStart, value.length);
 
-        ProducerRecord<Integer, String> record = buildProducerRecord(key, value, topic2);
-        return kafkaTemplate.send(record)
-                .whenComplete((res, ex) -> {
+        ProducerRecord<Integer, byte[]> record = producerRecordFactory.create(ProducerRecordFactory.USER_API, topic2, key, value);
+        long sendStart = System.nanoTime();
+        return sendOrSpill(record, sendStart)
+                .whenCompleteAsync((res, ex) -> {
                     if (ex != null) {
-                        log.error("Error sending to user-events. key={}, ex={}", key, ex.getMessage(), ex);
+                        sendLogger.failure(topic2, key, event, ex);
+                        deadLetterPublisher.publish(record, ex);
                     } else {
-                        log.info("Sent to {} | key={} | partition={}", res.getRecordMetadata().topic(), key, res.getRecordMetadata().partition());
+                        sendLogger.success(topic2, key, res.getRecordMetadata().partition(), event, System.nanoTime() - sendStart);
                     }
-                });
+                }, callbackExecutor);
     }
 
-    private ProducerRecord<Integer, String> buildProducerRecord(Integer key, String value, String topic) {
-        List<Header> headers = List.of(new RecordHeader("event-source", "user-api".getBytes()));
-        return new ProducerRecord<>(topic, null, key, value, headers);
+    // see BookEventProducer#sendOrSpill
+    private CompletableFuture<SendResult<Integer, byte[]>> sendOrSpill(ProducerRecord<Integer, byte[]> record, long start) {
+        if (spillJournal.isSpilling()) {
+            return spillJournal.spill(record, null);
+        }
+        return producerMetrics.track(topic2, start, kafkaTemplate.send(record))
+                .exceptionallyCompose(ex -> spillJournal.spill(record, ex));
     }
 }
@@ -0,0 +1,229 @@
+package com.henry.kafka.producer.demo.serializer;
+
+import com.henry.kafka.producer.demo.dto.Book;
+import com.henry.kafka.producer.demo.dto.BookEvent;
+import com.henry.kafka.producer.demo.dto.BookEventType;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact, schema-versioned binary encoding of a {@link BookEvent}.
+ * <pre>
+ * byte     schema version (currently 1)
+ * byte     presence flags, one bit per nullable field
+ * varint   bookEventId   (zig-zag, if present)
+ * byte     bookEventType (0 = NEW, 1 = UPDATE, if present)
+ * varint   book.bookId   (zig-zag, if present)
+ * varint   length + UTF-8 bytes of book.bookName   (if present)
+ * varint   length + UTF-8 bytes of book.bookAuthor (if present)
+ * </pre>
+ * A JSON payload always starts with {@code '{'}, {@code 'n'} or whitespace, never with a
+ * version byte, so {@link #isBinary(byte[])} can tell the two formats apart.
+ * <p>
+ * demo-kafka-consumer decodes with a copy of this class. The test fixture
+ * {@code wire-format/book-events.hex} pins the bytes both sides must agree on.
+ */
+public final class BookEventBinaryCodec {
+
+    public static final byte SCHEMA_VERSION_1 = 1;
+
+    private static final int HAS_BOOK_EVENT_ID = 1;
+    private static final int HAS_BOOK_EVENT_TYPE = 1 << 1;
+    private static final int HAS_BOOK = 1 << 2;
+    private static final int HAS_BOOK_ID = 1 << 3;
+    private static final int HAS_BOOK_NAME = 1 << 4;
+    private static final int HAS_BOOK_AUTHOR = 1 << 5;
+
+    private BookEventBinaryCodec() {
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 0 && data[0] == SCHEMA_VERSION_1;
+    }
+
+    public static byte[] encode(BookEvent event) {
+        Book book = event.book();
+        int flags = 0;
+        int size = 2;
+        if (event.bookEventId() != null) {
+            flags |= HAS_BOOK_EVENT_ID;
+            size += varIntSize(zigZag(event.bookEventId()));
+        }
+        if (event.bookEventType() != null) {
+            flags |= HAS_BOOK_EVENT_TYPE;
+            size += 1;
+        }
+        int nameLength = 0;
+        int authorLength = 0;
+        if (book != null) {
+            flags |= HAS_BOOK;
+            if (book.bookId() != null) {
+                flags |= HAS_BOOK_ID;
+                size += varIntSize(zigZag(book.bookId()));
+            }
+            if (book.bookName() != null) {
+                flags |= HAS_BOOK_NAME;
+                nameLength = utf8Length(book.bookName());
+                size += varIntSize(nameLength) + nameLength;
+            }
+            if (book.bookAuthor() != null) {
+                flags |= HAS_BOOK_AUTHOR;
+                authorLength = utf8Length(book.bookAuthor());
+                size += varIntSize(authorLength) + authorLength;
+            }
+        }
+
+        byte[] out = new byte[size];
+        out[0] = SCHEMA_VERSION_1;
+        out[1] = (byte) flags;
+        int pos = 2;
+        if ((flags & HAS_BOOK_EVENT_ID) != 0) {
+            pos = writeVarInt(out, pos, zigZag(event.bookEventId()));
+        }
+        if ((flags & HAS_BOOK_EVENT_TYPE) != 0) {
+            out[pos++] = typeCode(event.bookEventType());
+        }
+        if ((flags & HAS_BOOK_ID) != 0) {
+            pos = writeVarInt(out, pos, zigZag(book.bookId()));
+        }
+        if ((flags & HAS_BOOK_NAME) != 0) {
+            pos = writeVarInt(out, pos, nameLength);
+            pos = writeUtf8(out, pos, book.bookName());
+        }
+        if ((flags & HAS_BOOK_AUTHOR) != 0) {
+            pos = writeVarInt(out, pos, authorLength);
+            writeUtf8(out, pos, book.bookAuthor());
+        }
+        return out;
+    }
+
+    public static BookEvent decode(byte[] data) {
+        if (!isBinary(data) || data.length < 2) {
+            throw new SerializationException("Not a binary BookEvent of a known schema version");
+        }
+        try {
+            int flags = data[1];
+            int[] pos = {2};
+            Integer bookEventId = (flags & HAS_BOOK_EVENT_ID) != 0 ? unZigZag(readVarInt(data, pos)) : null;
+            BookEventType bookEventType = (flags & HAS_BOOK_EVENT_TYPE) != 0 ? typeOf(data[pos[0]++]) : null;
+            Book book = null;
+            if ((flags & HAS_BOOK) != 0) {
+                Integer bookId = (flags & HAS_BOOK_ID) != 0 ? unZigZag(readVarInt(data, pos)) : null;
+                String bookName = (flags & HAS_BOOK_NAME) != 0 ? readString(data, pos) : null;
+                String bookAuthor = (flags & HAS_BOOK_AUTHOR) != 0 ? readString(data, pos) : null;
+                book = new Book(bookId, bookName, bookAuthor);
+            }
+            return new BookEvent(bookEventId, bookEventType, book);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new SerializationException("Truncated binary BookEvent", e);
+        }
+    }
+
+    private static byte typeCode(BookEventType type) {
+        return switch (type) {
+            case NEW -> 0;
+            case UPDATE -> 1;
+        };
+    }
+
+    private static BookEventType typeOf(byte code) {
+        return switch (code) {
+            case 0 -> BookEventType.NEW;
+            case 1 -> BookEventType.UPDATE;
+            default -> throw new SerializationException("Unknown BookEventType code " + code);
+        };
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static int writeVarInt(byte[] out, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            out[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static int readVarInt(byte[] data, int[] pos) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = data[pos[0]++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed varint in binary BookEvent");
+    }
+
+    private static String readString(byte[] data, int[] pos) {
+        int length = readVarInt(data, pos);
+        if (length < 0 || pos[0] + length > data.length) {
+            throw new SerializationException("Truncated binary BookEvent");
+        }
+        String value = new String(data, pos[0], length, StandardCharsets.UTF_8);
+        pos[0] += length;
+        return value;
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                // unpaired surrogates are written as '?', like String.getBytes(UTF_8)
+                length += Character.isSurrogate(c) ? 1 : 3;
+            }
+        }
+        return length;
+    }
+
+    private static int writeUtf8(byte[] out, int pos, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                out[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                out[pos++] = (byte) (0xC0 | (c >> 6));
+                out[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                out[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                out[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                out[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                out[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                out[pos++] = '?';
+            } else {
+                out[pos++] = (byte) (0xE0 | (c >> 12));
+                out[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return pos;
+    }
+}
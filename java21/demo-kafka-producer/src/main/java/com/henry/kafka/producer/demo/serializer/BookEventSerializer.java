@@ -0,0 +1,107 @@
+package com.henry.kafka.producer.demo.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.henry.kafka.producer.demo.dto.BookEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Writes a {@link BookEvent} as UTF-8 JSON directly into a pooled byte buffer.
+ * <p>
+ * Replaces {@code writeValueAsString} + {@code StringSerializer}, which produced an intermediate
+ * {@code char[]}, a {@code String} and then a second UTF-8 copy of every payload. The only per-call
+ * allocation left is the exact-size {@code byte[]} handed to Kafka. The buffers live in a shared
+ * pool rather than a {@code ThreadLocal}, so they are reused on virtual threads as well.
+ * <p>
+ * Topics listed in {@code app.serialization.binary-topics} get the compact
+ * {@link BookEventBinaryCodec} encoding instead of JSON. When used as a {@code value.serializer}
+ * class, the same list is read from the {@value #BINARY_TOPICS_CONFIG} producer property.
+ * <p>
+ * Used directly by the producers (the {@code KafkaTemplate} then ships the bytes through
+ * {@code ByteArraySerializer} untouched) and usable as a {@code value.serializer} class.
+ */
+@Component
+public class BookEventSerializer implements Serializer<BookEvent> {
+
+    public static final String BINARY_TOPICS_CONFIG = "book-event.binary.topics";
+
+    private static final int INITIAL_BUFFER_SIZE = 512;
+    private static final int POOL_SIZE = 64;
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+    private final BlockingQueue<ByteArrayBuilder> buffers = new ArrayBlockingQueue<>(POOL_SIZE);
+    private volatile Set<String> binaryTopics = Set.of();
+
+    public BookEventSerializer() {
+        this(new ObjectMapper());
+    }
+
+    @Autowired
+    public BookEventSerializer(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.writer = objectMapper.writerFor(BookEvent.class);
+    }
+
+    @Value("${app.serialization.binary-topics:}")
+    public void setBinaryTopics(Collection<String> binaryTopics) {
+        this.binaryTopics = binaryTopics.stream()
+                .map(String::trim)
+                .filter(topic -> !topic.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    public boolean isBinary(String topic) {
+        return binaryTopics.contains(topic);
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object topics = configs.get(BINARY_TOPICS_CONFIG);
+        if (topics instanceof String value) {
+            setBinaryTopics(List.of(value.split(",")));
+        } else if (topics instanceof Collection<?> values) {
+            setBinaryTopics(values.stream().map(String::valueOf).toList());
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, BookEvent data) {
+        if (data == null) {
+            return null;
+        }
+        if (isBinary(topic)) {
+            return BookEventBinaryCodec.encode(data);
+        }
+        ByteArrayBuilder buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = new ByteArrayBuilder(INITIAL_BUFFER_SIZE);
+        }
+        try {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(buffer)) {
+                writer.writeValue(generator, data);
+            }
+            return buffer.toByteArray();
+        } catch (IOException e) {
+            throw new SerializationException("Error serializing BookEvent for topic " + topic, e);
+        } finally {
+            buffer.reset();
+            buffers.offer(buffer);
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.henry.kafka.producer.demo.spill;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.BufferExhaustedException;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.RetriableException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, memory-mapped write-ahead journal for records the brokers did not take.
+ * <p>
+ * A send that fails with a retriable error (brokers unreachable, {@code max.block.ms} or
+ * {@code delivery.timeout.ms} expired) is appended here instead of being dropped. From then on the
+ * journal is <em>spilling</em>: the producers append new records straight to it without touching
+ * the Kafka client, so ingestion keeps its speed and the journal keeps arrival order, until the
+ * {@link SpillReplayer} has drained it to the brokers.
+ * <p>
+ * Records go to fixed-size segment files ({@code app.spill.segment-bytes}) in {@code app.spill.dir},
+ * total disk use is capped by {@code app.spill.max-bytes}, and the active segment is forced to disk
+ * every {@code app.spill.fsync-interval-ms} rather than per record. Segments left by a previous run
+ * are replayed after a restart. Delivery is at least once: a segment is deleted only after every
+ * record of it was acked, so a failure mid-segment replays the acked part again.
+ * <p>
+ * Record layout: {@code int bodyLength, int crc32(body), body} where the body is the topic,
+ * key, headers and value. The length is written last, so an unfinished record reads as the end
+ * of the segment.
+ */
+@Component
+@Slf4j
+public class SpillJournal implements DisposableBean {
+
+    static final String SEGMENT_PREFIX = "spill-";
+    static final String SEGMENT_SUFFIX = ".log";
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int NULL_LENGTH = -1;
+
+    private final boolean enabled;
+    private final Path dir;
+    private final int segmentBytes;
+    private final long maxBytes;
+
+    private final Deque<Path> sealedSegments = new ArrayDeque<>();
+    private long sealedBytes;
+    private long nextSequence;
+    private FileChannel activeChannel;
+    private MappedByteBuffer activeBuffer;
+    private Path activeSegment;
+    private volatile boolean spilling;
+
+    public SpillJournal(@Value("${app.spill.enabled:true}") boolean enabled,
+                        @Value("${app.spill.dir:${java.io.tmpdir}/demo-kafka-producer-spill}") Path dir,
+                        @Value("${app.spill.segment-bytes:67108864}") int segmentBytes,
+                        @Value("${app.spill.max-bytes:1073741824}") long maxBytes,
+                        MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.maxBytes = maxBytes;
+        if (enabled) {
+            recover();
+            Gauge.builder("book.spill.bytes", this, SpillJournal::pendingBytes)
+                    .description("Disk used by spilled records that are not replayed yet")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * True while spilled records wait for replay; new records must then be spilled too to keep their order.
+     */
+    public boolean isSpilling() {
+        return spilling;
+    }
+
+    /**
+     * Spills the record when the journal is enabled and {@code cause} is retriable (or absent, when the
+     * journal is already spilling). Completes with a {@link SendResult} of partition and offset -1, or
+     * fails with {@code cause} when the record cannot be spilled.
+     */
+    public CompletableFuture<SendResult<Integer, byte[]>> spill(ProducerRecord<Integer, byte[]> record, Throwable cause) {
+        if (!enabled || (cause != null && !isRetriable(cause))) {
+            return CompletableFuture.failedFuture(cause);
+        }
+        try {
+            append(record);
+        } catch (RuntimeException e) {
+            log.error("Could not spill the record for the key : {} to {} : {}", record.key(), dir, e.getMessage());
+            return CompletableFuture.failedFuture(cause != null ? cause : e);
+        }
+        return CompletableFuture.completedFuture(spilledResult(record));
+    }
+
+    public synchronized void append(ProducerRecord<Integer, byte[]> record) {
+        byte[] topic = record.topic().getBytes(StandardCharsets.UTF_8);
+        int bodyLength = bodyLength(topic, record);
+        if (RECORD_HEADER_BYTES + bodyLength > segmentBytes) {
+            throw new IllegalArgumentException("Record of " + bodyLength + " bytes does not fit a spill segment");
+        }
+        if (activeBuffer == null || activeBuffer.remaining() < RECORD_HEADER_BYTES + bodyLength) {
+            rollSegment();
+        }
+        int start = activeBuffer.position();
+        activeBuffer.position(start + RECORD_HEADER_BYTES);
+        writeBody(activeBuffer, topic, record);
+
+        CRC32 crc = new CRC32();
+        crc.update(activeBuffer.slice(start + RECORD_HEADER_BYTES, bodyLength));
+        activeBuffer.putInt(start + 4, (int) crc.getValue());
+        activeBuffer.putInt(start, bodyLength);
+        if (!spilling) {
+            spilling = true;
+            log.warn("Kafka unavailable, spilling records to {}", dir);
+        }
+    }
+
+    /**
+     * Batches the fsync of the active segment instead of forcing every append.
+     */
+    @Scheduled(fixedDelayString = "${app.spill.fsync-interval-ms:200}")
+    public void force() {
+        MappedByteBuffer buffer;
+        synchronized (this) {
+            buffer = activeBuffer;
+        }
+        // outside the lock, appends go on while the pages are written back
+        if (buffer != null) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Closes the active segment so it can be replayed while new records go to a fresh one.
+     */
+    public synchronized void sealActiveSegment() {
+        if (activeBuffer == null) {
+            return;
+        }
+        activeBuffer.force();
+        closeActive();
+        sealedSegments.addLast(activeSegment);
+        sealedBytes += segmentBytes;
+        activeSegment = null;
+    }
+
+    public synchronized List<Path> sealedSegments() {
+        return List.copyOf(sealedSegments);
+    }
+
+    /**
+     * Deletes a segment whose records were all acked.
+     */
+    public synchronized void release(Path segment) {
+        if (sealedSegments.remove(segment)) {
+            try {
+                sealedBytes -= Files.size(segment);
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Leaves spilling mode when nothing is left to replay. Returns whether the journal is drained.
+     */
+    public synchronized boolean finishReplay() {
+        if (sealedSegments.isEmpty() && activeBuffer == null) {
+            if (spilling) {
+                spilling = false;
+                log.info("Spill journal drained, sending to Kafka again");
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized long pendingBytes() {
+        return sealedBytes + (activeBuffer != null ? segmentBytes : 0);
+    }
+
+    /**
+     * Reads the intact records of a segment, in append order.
+     */
+    public static List<ProducerRecord<Integer, byte[]>> read(Path segment) {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            List<ProducerRecord<Integer, byte[]>> records = new ArrayList<>();
+            while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+                int bodyLength = buffer.getInt();
+                int crcValue = buffer.getInt();
+                if (bodyLength <= 0 || bodyLength > buffer.remaining()) {
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(buffer.slice(buffer.position(), bodyLength));
+                if ((int) crc.getValue() != crcValue) {
+                    log.warn("Corrupt spilled record in {} at {}, skipping the rest of the segment", segment, buffer.position());
+                    break;
+                }
+                records.add(readBody(buffer));
+            }
+            return records;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static SendResult<Integer, byte[]> spilledResult(ProducerRecord<Integer, byte[]> record) {
+        return new SendResult<>(record, new RecordMetadata(new TopicPartition(record.topic(), -1), -1L, 0, -1L, -1, -1));
+    }
+
+    static boolean isRetriable(Throwable throwable) {
+        for (Throwable t = throwable; t != null; t = t.getCause()) {
+            if (t instanceof RetriableException || t instanceof BufferExhaustedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (activeBuffer != null) {
+            activeBuffer.force();
+            closeActive();
+        }
+    }
+
+    private void recover() {
+        try {
+            Files.createDirectories(dir);
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path segment : files.filter(SpillJournal::isSegment).sorted().toList()) {
+                    sealedSegments.addLast(segment);
+                    sealedBytes += Files.size(segment);
+                    nextSequence = Math.max(nextSequence, sequence(segment) + 1);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the spill journal in " + dir, e);
+        }
+        if (!sealedSegments.isEmpty()) {
+            spilling = true;
+            log.warn("Found {} spilled segments in {} from a previous run, replaying them first", sealedSegments.size(), dir);
+        }
+    }
+
+    private void rollSegment() {
+        sealActiveSegment();
+        if (pendingBytes() + segmentBytes > maxBytes) {
+            throw new BufferExhaustedException("Spill journal is full (" + maxBytes + " bytes in " + dir + ")");
+        }
+        Path segment = dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSequence++, SEGMENT_SUFFIX));
+        try {
+            activeChannel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            activeBuffer = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            activeSegment = segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create spill segment " + segment, e);
+        }
+    }
+
+    private void closeActive() {
+        try {
+            activeChannel.close();
+        } catch (IOException e) {
+            log.warn("Could not close spill segment {} : {}", activeSegment, e.getMessage());
+        }
+        activeChannel = null;
+        activeBuffer = null;
+    }
+
+    private static int bodyLength(byte[] topic, ProducerRecord<Integer, byte[]> record) {
+        int length = 2 + topic.length + 1 + 4 + 1;
+        for (Header header : record.headers()) {
+            length += 2 + header.key().getBytes(StandardCharsets.UTF_8).length + 4 + lengthOf(header.value());
+        }
+        return length + 4 + lengthOf(record.value());
+    }
+
+    private static void writeBody(MappedByteBuffer buffer, byte[] topic, ProducerRecord<Integer, byte[]> record) {
+        buffer.putShort((short) topic.length).put(topic);
+        buffer.put((byte) (record.key() != null ? 1 : 0)).putInt(record.key() != null ? record.key() : 0);
+        Header[] headers = record.headers().toArray();
+        buffer.put((byte) headers.length);
+        for (Header header : headers) {
+            byte[] key = header.key().getBytes(StandardCharsets.UTF_8);
+            buffer.putShort((short) key.length).put(key);
+            putBytes(buffer, header.value());
+        }
+        putBytes(buffer, record.value());
+    }
+
+    private static ProducerRecord<Integer, byte[]> readBody(MappedByteBuffer buffer) {
+        byte[] topic = new byte[buffer.getShort()];
+        buffer.get(topic);
+        boolean hasKey = buffer.get() == 1;
+        int key = buffer.getInt();
+        int headerCount = buffer.get();
+        List<Header> headers = new ArrayList<>(headerCount);
+        for (int i = 0; i < headerCount; i++) {
+            byte[] headerKey = new byte[buffer.getShort()];
+            buffer.get(headerKey);
+            headers.add(new RecordHeader(new String(headerKey, StandardCharsets.UTF_8), getBytes(buffer)));
+        }
+        byte[] value = getBytes(buffer);
+        return new ProducerRecord<>(new String(topic, StandardCharsets.UTF_8), null, hasKey ? key : null, value, headers);
+    }
+
+    private static int lengthOf(byte[] bytes) {
+        return bytes != null ? bytes.length : 0;
+    }
+
+    private static void putBytes(MappedByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(NULL_LENGTH);
+        } else {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static byte[] getBytes(MappedByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long sequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,89 @@
+package com.henry.kafka.producer.demo.spill;
+
+import com.henry.kafka.producer.demo.config.SchedulingConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Drains the {@link SpillJournal} to Kafka, oldest segment first.
+ * <p>
+ * Every {@code app.spill.replay-interval-ms} while the journal is spilling, the active segment is
+ * sealed and each sealed segment is sent as a whole; it is deleted once all of its records are
+ * acked within {@code app.spill.replay-ack-timeout-ms}. The first segment that fails stops the
+ * round, so records are never replayed out of order; the next round retries it. A segment stops
+ * sending at its first failed send: while the brokers are down every further send could block for
+ * {@code max.block.ms} only to fail as well.
+ */
+@Component
+@Slf4j
+public class SpillReplayer {
+
+    private final SpillJournal spillJournal;
+    private final KafkaTemplate<Integer, byte[]> kafkaTemplate;
+
+    @Value("${app.spill.replay-ack-timeout-ms:30000}")
+    public long replayAckTimeoutMs = 30_000;
+
+    public SpillReplayer(SpillJournal spillJournal, KafkaTemplate<Integer, byte[]> kafkaTemplate) {
+        this.spillJournal = spillJournal;
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    @Scheduled(fixedDelayString = "${app.spill.replay-interval-ms:5000}", scheduler = SchedulingConfig.BLOCKING_TASK_SCHEDULER)
+    public void replay() {
+        // records keep being spilled while a round runs, so drain until the journal is empty
+        while (spillJournal.isSpilling()) {
+            spillJournal.sealActiveSegment();
+            for (Path segment : spillJournal.sealedSegments()) {
+                if (!replay(segment)) {
+                    return;
+                }
+                spillJournal.release(segment);
+            }
+            if (spillJournal.finishReplay()) {
+                return;
+            }
+        }
+    }
+
+    private boolean replay(Path segment) {
+        List<ProducerRecord<Integer, byte[]>> records = SpillJournal.read(segment);
+        List<CompletableFuture<SendResult<Integer, byte[]>>> futures = new ArrayList<>(records.size());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        try {
+            for (ProducerRecord<Integer, byte[]> record : records) {
+                if (failure.get() != null) {
+                    throw new ExecutionException(failure.get());
+                }
+                futures.add(kafkaTemplate.send(record).whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        failure.compareAndSet(null, ex);
+                    }
+                }));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(replayAckTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException | RuntimeException e) {
+            log.warn("Replay of {} failed, retrying later : {}", segment.getFileName(), e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        log.info("Replayed {} spilled records from {}", records.size(), segment.getFileName());
+        return true;
+    }
+}
@@ -0,0 +1,94 @@
+package com.henry.kafka.producer.demo.validation;
+
+import com.henry.kafka.producer.demo.dto.Book;
+import com.henry.kafka.producer.demo.dto.BookEvent;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * The constraints declared on {@link BookEvent} and {@link Book}, checked by hand: no reflection,
+ * no metadata lookup and, for a valid event, no allocation. The answers match Hibernate Validator's,
+ * which the annotations still document:
+ * <ul>
+ *     <li>{@code book} - must not be null</li>
+ *     <li>{@code book.bookId} - must not be null</li>
+ *     <li>{@code book.bookName}, {@code book.bookAuthor} - must not be blank (null, or only characters
+ *     up to {@code ' '}, as {@link String#trim()} sees them)</li>
+ * </ul>
+ * Violations are reported as {@code path - message}, in path order, so the message needs no sorting.
+ * Keep this class in step with the annotations when a constraint changes.
+ */
+public final class BookEventValidator {
+
+    private static final String NOT_NULL = "must not be null";
+    private static final String NOT_BLANK = "must not be blank";
+
+    private BookEventValidator() {
+    }
+
+    public static boolean isValid(BookEvent bookEvent) {
+        Book book = bookEvent.book();
+        return book != null && book.bookId() != null && !isBlank(book.bookName()) && !isBlank(book.bookAuthor());
+    }
+
+    /**
+     * The violations of the event joined by {@code ", "}, or null when it is valid.
+     */
+    public static String validate(BookEvent bookEvent) {
+        return validate(bookEvent, "");
+    }
+
+    /**
+     * The 400 answer for an invalid event, with its violations as the body, or null when it is valid.
+     */
+    public static ResponseEntity<String> badRequest(BookEvent bookEvent) {
+        String violations = validate(bookEvent);
+        return violations != null ? ResponseEntity.status(HttpStatus.BAD_REQUEST).body(violations) : null;
+    }
+
+    /**
+     * As {@link #validate(BookEvent)}, with {@code prefix} before every violation (the event's index in a batch).
+     */
+    public static String validate(BookEvent bookEvent, String prefix) {
+        if (isValid(bookEvent)) {
+            return null;
+        }
+        StringBuilder message = new StringBuilder(64);
+        Book book = bookEvent.book();
+        if (book == null) {
+            append(message, prefix, "book - ", NOT_NULL);
+            return message.toString();
+        }
+        // alphabetical by path
+        if (isBlank(book.bookAuthor())) {
+            append(message, prefix, "book.bookAuthor - ", NOT_BLANK);
+        }
+        if (book.bookId() == null) {
+            append(message, prefix, "book.bookId - ", NOT_NULL);
+        }
+        if (isBlank(book.bookName())) {
+            append(message, prefix, "book.bookName - ", NOT_BLANK);
+        }
+        return message.toString();
+    }
+
+    private static void append(StringBuilder message, String prefix, String path, String violation) {
+        if (!message.isEmpty()) {
+            message.append(", ");
+        }
+        message.append(prefix).append(path).append(violation);
+    }
+
+    // @NotBlank: null, or nothing left after trim()
+    private static boolean isBlank(String value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,88 @@
+package com.henry.kafka.producer.demo.view;
+
+import com.henry.kafka.producer.demo.dto.Book;
+import com.henry.kafka.producer.demo.dto.BookEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latest {@link Book} per {@code bookId}, as of the events consumed from {@code book-events} by the
+ * {@link BookViewListener}. Active with {@code app.book-view.enabled=true}.
+ * <p>
+ * NEW and UPDATE events both replace the book, so the view holds whatever the last event of the
+ * book carried. Events of a book share a partition (records are keyed by {@code bookId}), so they
+ * are applied in the order they were produced.
+ * <p>
+ * Next to the books, the view keeps the next offset to read per partition: every event before it
+ * is in the view. {@link BookViewSnapshots} saves both and restores them at startup.
+ */
+@Component
+@ConditionalOnProperty(name = "app.book-view.enabled", havingValue = "true")
+public class BookView {
+
+    public static final String BOOKS = "book.view.books";
+
+    private final IntObjectMap<Book> books;
+    private final Map<Integer, Long> nextOffsets = new ConcurrentHashMap<>();
+
+    public BookView(@Value("${app.book-view.expected-books:100000}") int expectedBooks, MeterRegistry meterRegistry) {
+        this.books = new IntObjectMap<>(expectedBooks);
+        Gauge.builder(BOOKS, books, IntObjectMap::size)
+                .description("Books in the materialized view")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Lock-free; callable from any thread.
+     */
+    public Book get(int bookId) {
+        return books.get(bookId);
+    }
+
+    /**
+     * Listener thread only. Null events (tombstones) and events without a book or book id are ignored.
+     */
+    public void apply(BookEvent bookEvent) {
+        if (bookEvent == null) {
+            return;
+        }
+        Book book = bookEvent.book();
+        if (book != null && book.bookId() != null) {
+            books.put(book.bookId(), book);
+        }
+    }
+
+    /**
+     * Listener thread only: every event of the partition before {@code nextOffset} is applied.
+     */
+    public void applied(int partition, long nextOffset) {
+        nextOffsets.put(partition, nextOffset);
+    }
+
+    public Long nextOffset(int partition) {
+        return nextOffsets.get(partition);
+    }
+
+    public Map<Integer, Long> nextOffsets() {
+        return Map.copyOf(nextOffsets);
+    }
+
+    public int size() {
+        return books.size();
+    }
+
+    void forEach(IntObjectMap.Visitor<? super Book> visitor) {
+        books.forEach(visitor);
+    }
+
+    // restore only, before the listener starts
+    void put(Book book) {
+        books.put(book.bookId(), book);
+    }
+}
@@ -0,0 +1,87 @@
+package com.henry.kafka.producer.demo.view;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henry.kafka.producer.demo.config.BookViewConfig;
+import com.henry.kafka.producer.demo.dto.BookEvent;
+import com.henry.kafka.producer.demo.serializer.BookEventDeserializer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.SerializationException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Feeds the {@link BookView} from {@code book-events}.
+ * <p>
+ * Every instance needs every book, so the listener subscribes in a consumer group of its own (see
+ * {@link BookViewConfig}) and is assigned all partitions of the topic, also those added while it runs.
+ * It reads them from the offsets restored by {@link BookViewSnapshots}, or from the beginning without
+ * a snapshot. It runs on a single thread, the one writer of the view. Records that do not decode, and
+ * tombstones (a null value, or a JSON {@code null}; the view keeps no deletes), are skipped and counted
+ * in {@value #SKIPPED}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.book-view.enabled", havingValue = "true")
+@DependsOn("bookViewSnapshots")
+@Slf4j
+public class BookViewListener implements ConsumerSeekAware {
+
+    public static final String SKIPPED = "book.view.skipped";
+
+    private final BookView bookView;
+    private final BookEventDeserializer deserializer;
+    private final Counter skipped;
+
+    public BookViewListener(BookView bookView, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.bookView = bookView;
+        this.deserializer = new BookEventDeserializer(objectMapper);
+        this.skipped = Counter.builder(SKIPPED)
+                .description("book-events records the view could not decode, and tombstones")
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(id = "book-view", idIsGroup = false,
+            containerFactory = BookViewConfig.CONTAINER_FACTORY,
+            topics = "${spring.kafka.topic}")
+    public void onBatch(List<ConsumerRecord<Integer, byte[]>> records) {
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<Integer, byte[]> record = records.get(i);
+            try {
+                BookEvent bookEvent = deserializer.deserialize(record.topic(), record.value());
+                if (bookEvent != null) {
+                    bookView.apply(bookEvent);
+                } else {
+                    skipped.increment();
+                    log.debug("Skipping the tombstone {}-{}@{} in the book view", record.topic(), record.partition(), record.offset());
+                }
+            } catch (SerializationException e) {
+                skipped.increment();
+                log.warn("Skipping {}-{}@{} in the book view : {}", record.topic(), record.partition(), record.offset(), e.getMessage());
+            }
+            // a poll batch holds each partition's records in one run: publish the offset at the end of the run
+            if (i == records.size() - 1 || records.get(i + 1).partition() != record.partition()) {
+                bookView.applied(record.partition(), record.offset() + 1);
+            }
+        }
+    }
+
+    // also runs when partitions are added: those have no offset in the view and start at the beginning
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        for (TopicPartition partition : assignments.keySet()) {
+            Long nextOffset = bookView.nextOffset(partition.partition());
+            if (nextOffset != null) {
+                callback.seek(partition.topic(), partition.partition(), nextOffset);
+            }
+        }
+    }
+}
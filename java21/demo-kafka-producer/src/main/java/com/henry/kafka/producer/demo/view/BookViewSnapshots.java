@@ -0,0 +1,285 @@
+package com.henry.kafka.producer.demo.view;
+
+import com.henry.kafka.producer.demo.config.SchedulingConfig;
+import com.henry.kafka.producer.demo.dto.BookEvent;
+import com.henry.kafka.producer.demo.serializer.BookEventBinaryCodec;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Periodic snapshots of the {@link BookView} and its per-partition offsets, so a restart restores the
+ * file and replays only the events after it instead of the whole topic.
+ * <p>
+ * A snapshot is taken on a scheduler thread while the listener keeps applying events. The offsets
+ * are read first, then the books: every event before the offsets is in the file, and some after
+ * them may be too. Replaying from the offsets applies those again, and since the latest event of a
+ * book wins, the view ends up the same. Nothing blocks the listener.
+ * <p>
+ * The file is written through a direct buffer to {@code book-view.snapshot.tmp}, forced to disk and
+ * moved over {@code book-view.snapshot}, so a crash mid-write leaves the previous snapshot. It is
+ * read back memory-mapped. A snapshot that is damaged or taken from another topic is ignored, and
+ * the view is rebuilt from the beginning.
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ * int      magic 'BKVS'
+ * byte     version (1)
+ * short    length + UTF-8 bytes of the topic
+ * int      partitions, then per partition: int partition, long next offset
+ * int      length + {@link BookEventBinaryCodec} bytes of a BookEvent carrying only the book, per book
+ * int      -1 (end of books)
+ * int      books
+ * int      crc32 of everything before it
+ * </pre>
+ */
+@Component
+@ConditionalOnProperty(name = "app.book-view.enabled", havingValue = "true")
+@Slf4j
+public class BookViewSnapshots implements DisposableBean {
+
+    public static final String SNAPSHOT_TIME = "book.view.snapshot.time";
+
+    static final String FILE = "book-view.snapshot";
+    private static final int MAGIC = 0x424B5653;
+    private static final byte VERSION = 1;
+    private static final int END_OF_BOOKS = -1;
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private final BookView bookView;
+    private final String topic;
+    private final boolean enabled;
+    private final Path dir;
+    private final Timer snapshotTime;
+    private Map<Integer, Long> lastSnapshotOffsets;
+
+    public BookViewSnapshots(BookView bookView,
+                             @Value("${spring.kafka.topic}") String topic,
+                             @Value("${app.book-view.snapshot.enabled:true}") boolean enabled,
+                             @Value("${app.book-view.snapshot.dir:${java.io.tmpdir}/demo-kafka-producer-book-view}") Path dir,
+                             MeterRegistry meterRegistry) {
+        this.bookView = bookView;
+        this.topic = topic;
+        this.enabled = enabled;
+        this.dir = dir;
+        this.snapshotTime = Timer.builder(SNAPSHOT_TIME)
+                .description("Time to write a book view snapshot")
+                .register(meterRegistry);
+        if (enabled) {
+            restore();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.book-view.snapshot.interval-ms:60000}",
+            fixedDelayString = "${app.book-view.snapshot.interval-ms:60000}",
+            scheduler = SchedulingConfig.BLOCKING_TASK_SCHEDULER)
+    public void snapshot() {
+        if (enabled) {
+            snapshotTime.record(this::write);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        snapshot();
+    }
+
+    synchronized void write() {
+        // offsets first: the books read after them are at least as new
+        Map<Integer, Long> offsets = bookView.nextOffsets();
+        if (offsets.isEmpty() || offsets.equals(lastSnapshotOffsets)) {
+            return;
+        }
+        Path tmp = dir.resolve(FILE + ".tmp");
+        try {
+            Files.createDirectories(dir);
+            long bytes;
+            int books;
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                SnapshotWriter out = new SnapshotWriter(channel);
+                out.putInt(MAGIC);
+                out.put(VERSION);
+                byte[] topicBytes = topic.getBytes(StandardCharsets.UTF_8);
+                out.putShort((short) topicBytes.length);
+                out.put(topicBytes);
+                out.putInt(offsets.size());
+                offsets.forEach((partition, offset) -> {
+                    out.putInt(partition);
+                    out.putLong(offset);
+                });
+                int[] count = {0};
+                bookView.forEach((bookId, book) -> {
+                    byte[] encoded = BookEventBinaryCodec.encode(new BookEvent(null, null, book));
+                    out.putInt(encoded.length);
+                    out.put(encoded);
+                    count[0]++;
+                });
+                out.putInt(END_OF_BOOKS);
+                out.putInt(count[0]);
+                out.finish();
+                channel.force(true);
+                bytes = channel.size();
+                books = count[0];
+            }
+            Files.move(tmp, dir.resolve(FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            lastSnapshotOffsets = offsets;
+            log.info("Book view snapshot : {} books, {} bytes, offsets {}", books, bytes, offsets);
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Could not write the book view snapshot to {} : {}", dir, e.getMessage());
+        }
+    }
+
+    private void restore() {
+        Path file = dir.resolve(FILE);
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (!intact(in)) {
+                log.warn("Ignoring the damaged book view snapshot {}, rebuilding from the beginning of {}", file, topic);
+                return;
+            }
+            if (in.getInt() != MAGIC || in.get() != VERSION) {
+                log.warn("Ignoring {}: not a book view snapshot of a known version", file);
+                return;
+            }
+            byte[] topicBytes = new byte[in.getShort()];
+            in.get(topicBytes);
+            String snapshotTopic = new String(topicBytes, StandardCharsets.UTF_8);
+            if (!topic.equals(snapshotTopic)) {
+                log.warn("Ignoring {}: it is a snapshot of {}, not {}", file, snapshotTopic, topic);
+                return;
+            }
+            int partitions = in.getInt();
+            long[][] offsets = new long[partitions][2];
+            for (long[] offset : offsets) {
+                offset[0] = in.getInt();
+                offset[1] = in.getLong();
+            }
+            int books = 0;
+            for (int length = in.getInt(); length != END_OF_BOOKS; length = in.getInt()) {
+                byte[] encoded = new byte[length];
+                in.get(encoded);
+                bookView.put(BookEventBinaryCodec.decode(encoded).book());
+                books++;
+            }
+            if (in.getInt() != books) {
+                throw new IllegalStateException("book count does not match the books read");
+            }
+            // offsets last: a partially restored view must not skip events
+            for (long[] offset : offsets) {
+                bookView.applied((int) offset[0], offset[1]);
+            }
+            lastSnapshotOffsets = bookView.nextOffsets();
+            log.info("Restored {} books from {} in {} ms, resuming {} at {}",
+                    books, file, (System.nanoTime() - start) / 1_000_000, topic, lastSnapshotOffsets);
+        } catch (NoSuchFileException e) {
+            log.info("No book view snapshot in {}, building the view from the beginning of {}", dir, topic);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not restore the book view snapshot {} : {}", file, e.toString());
+        }
+    }
+
+    private static boolean intact(MappedByteBuffer in) {
+        int length = in.limit() - Integer.BYTES;
+        if (length < 0) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(in.slice(0, length));
+        return (int) crc.getValue() == in.getInt(length);
+    }
+
+    /**
+     * Buffered channel writes that keep the running CRC and append it on {@link #finish()}.
+     */
+    private static final class SnapshotWriter {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private final CRC32 crc = new CRC32();
+
+        SnapshotWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void put(byte value) {
+            ensure(Byte.BYTES).put(value);
+        }
+
+        void putShort(short value) {
+            ensure(Short.BYTES).putShort(value);
+        }
+
+        void putInt(int value) {
+            ensure(Integer.BYTES).putInt(value);
+        }
+
+        void putLong(long value) {
+            ensure(Long.BYTES).putLong(value);
+        }
+
+        void put(byte[] bytes) {
+            for (int offset = 0; offset < bytes.length; ) {
+                int chunk = Math.min(bytes.length - offset, ensure(1).remaining());
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+            }
+        }
+
+        void finish() {
+            drain();
+            buffer.putInt((int) crc.getValue());
+            flush();
+        }
+
+        private ByteBuffer ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                drain();
+            }
+            return buffer;
+        }
+
+        // checksums the buffered bytes and writes them out
+        private void drain() {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            write();
+        }
+
+        private void flush() {
+            buffer.flip();
+            write();
+        }
+
+        private void write() {
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+    }
+}
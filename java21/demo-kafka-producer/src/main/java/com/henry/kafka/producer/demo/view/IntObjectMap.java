@@ -0,0 +1,135 @@
+package com.henry.kafka.producer.demo.view;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+
+/**
+ * Open-addressing hash map from {@code int} to non-null values: no boxed keys, no entry objects,
+ * two arrays per table.
+ * <p>
+ * One writer, any number of readers, no locks. A new slot is filled key first, then value with
+ * release semantics, and readers load the value with acquire semantics before they look at the
+ * key, so a reader that sees a value also sees its key. A resize builds the new table aside and
+ * publishes it through a volatile field; readers still on the old table see it as of that moment.
+ * Entries are never removed.
+ */
+public final class IntObjectMap<V> {
+
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final int MIN_CAPACITY = 16;
+
+    @FunctionalInterface
+    public interface Visitor<V> {
+        void visit(int key, V value);
+    }
+
+    private record Table(int[] keys, Object[] values) {
+
+        Table(int capacity) {
+            this(new int[capacity], new Object[capacity]);
+        }
+    }
+
+    private volatile Table table;
+    private volatile int size;
+
+    public IntObjectMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntObjectMap(int expectedSize) {
+        this.table = new Table(capacityFor(expectedSize));
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        Table t = table;
+        int mask = t.keys.length - 1;
+        for (int i = index(key, mask); ; i = (i + 1) & mask) {
+            Object value = VALUES.getAcquire(t.values, i);
+            if (value == null) {
+                return null;
+            }
+            if (t.keys[i] == key) {
+                return (V) value;
+            }
+        }
+    }
+
+    /**
+     * Writer thread only. Returns the previous value of the key, or null.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        Objects.requireNonNull(value, "value");
+        Table t = table;
+        int mask = t.keys.length - 1;
+        for (int i = index(key, mask); ; i = (i + 1) & mask) {
+            Object current = t.values[i];
+            if (current == null) {
+                t.keys[i] = key;
+                VALUES.setRelease(t.values, i, value);
+                size = size + 1;
+                if (size > t.keys.length >> 1) {
+                    resize(t);
+                }
+                return null;
+            }
+            if (t.keys[i] == key) {
+                VALUES.setRelease(t.values, i, value);
+                return (V) current;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Visits every entry of the current table. Entries put concurrently may or may not be seen.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(Visitor<? super V> visitor) {
+        Table t = table;
+        for (int i = 0; i < t.keys.length; i++) {
+            Object value = VALUES.getAcquire(t.values, i);
+            if (value != null) {
+                visitor.visit(t.keys[i], (V) value);
+            }
+        }
+    }
+
+    private void resize(Table old) {
+        Table resized = new Table(old.keys.length << 1);
+        int mask = resized.keys.length - 1;
+        for (int j = 0; j < old.keys.length; j++) {
+            Object value = old.values[j];
+            if (value != null) {
+                int i = index(old.keys[j], mask);
+                while (resized.values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                resized.keys[i] = old.keys[j];
+                resized.values[i] = value;
+            }
+        }
+        table = resized;
+    }
+
+    // load factor at most 1/2
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < (long) expectedSize * 2 && capacity < 1 << 30) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    // Fibonacci hashing: sequential book ids spread over the table instead of filling one run
+    private static int index(int key, int mask) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
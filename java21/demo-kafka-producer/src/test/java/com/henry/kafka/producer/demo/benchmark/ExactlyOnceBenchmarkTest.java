@@ -0,0 +1,139 @@
+package com.henry.kafka.producer.demo.benchmark;
+
+import com.henry.kafka.producer.demo.config.ProducerProfile;
+import com.henry.kafka.producer.demo.dto.Book;
+import com.henry.kafka.producer.demo.dto.BookEvent;
+import com.henry.kafka.producer.demo.dto.BookEventType;
+import com.henry.kafka.producer.demo.serializer.BookEventSerializer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.IntegerSerializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Throughput and batch latency of the batch send path in three delivery modes against the embedded broker:
+ * <ul>
+ *   <li>{@code at-least-once}: {@code acks=all}, idempotence off; retries can duplicate records</li>
+ *   <li>{@code idempotent}: the default path, {@code enable.idempotence=true}; no duplicates per partition</li>
+ *   <li>{@code transactional}: the {@code exactly-once} profile; every batch is one committed transaction</li>
+ * </ul>
+ * Several threads send batches concurrently, as parallel batch requests would, so the transactional
+ * run also shows the pooled transactional producers at work.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test -Dtest=ExactlyOnceBenchmarkTest}
+ * ({@code -Dbenchmark.batches=N -Dbenchmark.batch-size=N -Dbenchmark.threads=N}).
+ */
+@Tag("benchmark")
+@EmbeddedKafka(topics = ExactlyOnceBenchmarkTest.TOPIC, partitions = 3, brokerProperties = {
+        "transaction.state.log.replication.factor=1",
+        "transaction.state.log.min.isr=1"
+})
+class ExactlyOnceBenchmarkTest {
+
+    static final String TOPIC = "book-events-exactly-once";
+
+    private static final int BATCHES = Integer.getInteger("benchmark.batches", 400);
+    private static final int BATCH_SIZE = Integer.getInteger("benchmark.batch-size", 100);
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 4);
+
+    private enum Mode { AT_LEAST_ONCE, IDEMPOTENT, TRANSACTIONAL }
+
+    @Test
+    void deliveryModes(EmbeddedKafkaBroker broker) throws Exception {
+        byte[] payload = new BookEventSerializer().serialize(TOPIC,
+                new BookEvent(2001, BookEventType.NEW, new Book(101, "Kafka Deep Dive", "Henry Xiloj")));
+
+        StringBuilder report = new StringBuilder(String.format("%n%-14s %14s %16s %16s%n",
+                "mode", "records/sec", "batch p50 (ms)", "batch p99 (ms)"));
+        for (Mode mode : Mode.values()) {
+            DefaultKafkaProducerFactory<Integer, byte[]> producerFactory = producerFactory(broker, mode);
+            try {
+                KafkaTemplate<Integer, byte[]> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+                run(kafkaTemplate, payload, BATCHES / 10);
+                Result result = run(kafkaTemplate, payload, BATCHES);
+                report.append(String.format("%-14s %,14.0f %16.2f %16.2f%n", mode.name().toLowerCase().replace('_', '-'),
+                        result.recordsPerSecond(), result.percentileMs(50), result.percentileMs(99)));
+            } finally {
+                producerFactory.destroy();
+            }
+        }
+        System.out.println(report);
+    }
+
+    private static DefaultKafkaProducerFactory<Integer, byte[]> producerFactory(EmbeddedKafkaBroker broker, Mode mode) {
+        Map<String, Object> configs = new HashMap<>(ProducerProfile.BALANCED.producerConfigs());
+        configs.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        configs.put(ProducerConfig.ACKS_CONFIG, "all");
+        configs.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, mode != Mode.AT_LEAST_ONCE);
+        DefaultKafkaProducerFactory<Integer, byte[]> producerFactory =
+                new DefaultKafkaProducerFactory<>(configs, new IntegerSerializer(), new ByteArraySerializer());
+        if (mode == Mode.TRANSACTIONAL) {
+            producerFactory.setTransactionIdPrefix("benchmark-tx-");
+        }
+        return producerFactory;
+    }
+
+    private static Result run(KafkaTemplate<Integer, byte[]> kafkaTemplate, byte[] payload, int batches) throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        try {
+            long start = System.nanoTime();
+            List<Future<Long>> batchLatencies = new ArrayList<>(batches);
+            for (int b = 0; b < batches; b++) {
+                batchLatencies.add(threads.submit(() -> sendBatch(kafkaTemplate, payload)));
+            }
+            long[] latencies = new long[batches];
+            for (int b = 0; b < batches; b++) {
+                latencies[b] = batchLatencies.get(b).get();
+            }
+            long elapsed = System.nanoTime() - start;
+            Arrays.sort(latencies);
+            return new Result((double) batches * BATCH_SIZE * 1e9 / elapsed, latencies);
+        } finally {
+            threads.shutdown();
+        }
+    }
+
+    // like POST /v1/bookevents/batch: the batch is done when every record is acked (or the transaction committed)
+    private static long sendBatch(KafkaTemplate<Integer, byte[]> kafkaTemplate, byte[] payload) {
+        long start = System.nanoTime();
+        if (kafkaTemplate.isTransactional()) {
+            kafkaTemplate.executeInTransaction(operations -> {
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    operations.send(TOPIC, i, payload);
+                }
+                return null;
+            });
+        } else {
+            List<CompletableFuture<SendResult<Integer, byte[]>>> futures = new ArrayList<>(BATCH_SIZE);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                futures.add(kafkaTemplate.send(TOPIC, i, payload));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private record Result(double recordsPerSecond, long[] sortedLatencies) {
+
+        double percentileMs(double percentile) {
+            int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
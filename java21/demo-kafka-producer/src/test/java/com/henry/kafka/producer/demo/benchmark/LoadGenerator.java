@@ -0,0 +1,124 @@
+package com.henry.kafka.producer.demo.benchmark;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop HTTP load generator for {@code POST /v1/bookevent} and {@code POST /v1/userevent}.
+ * <p>
+ * Requests are fired on a fixed schedule regardless of how fast responses come back, and
+ * latency is measured from the scheduled send time, so a saturated service shows up as growing
+ * latency instead of a silently lower request rate (no coordinated omission).
+ * <p>
+ * Runs against the embedded broker through {@link LoadGeneratorBenchmarkTest}, or against any
+ * running instance:
+ * <pre>
+ * java -cp ... com.henry.kafka.producer.demo.benchmark.LoadGenerator http://localhost:8080 2000 30
+ * </pre>
+ */
+public class LoadGenerator {
+
+    private static final List<String> PATHS = List.of("/v1/bookevent", "/v1/userevent");
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    private final String baseUrl;
+    private final HttpClient httpClient;
+
+    public LoadGenerator(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    public Report run(int requestsPerSecond, Duration duration) {
+        Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_NANOS, 3);
+        AtomicLong succeeded = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long total = requestsPerSecond * duration.toSeconds();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / requestsPerSecond;
+        List<CompletableFuture<?>> responses = new ArrayList<>((int) total);
+
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long scheduledAt = start + i * intervalNanos;
+            long wait = scheduledAt - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            String path = PATHS.get((int) (i % PATHS.size()));
+            responses.add(httpClient.sendAsync(request(path), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, throwable) -> {
+                        latencies.recordValue(Math.min(System.nanoTime() - scheduledAt, MAX_LATENCY_NANOS));
+                        if (throwable == null && response.statusCode() / 100 == 2) {
+                            succeeded.incrementAndGet();
+                        } else {
+                            failed.incrementAndGet();
+                        }
+                    }));
+        }
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new))
+                .exceptionally(throwable -> null)
+                .join();
+        long elapsed = System.nanoTime() - start;
+
+        return new Report(requestsPerSecond, succeeded.get() * 1e9 / elapsed, succeeded.get(), failed.get(), latencies);
+    }
+
+    private HttpRequest request(String path) {
+        int bookId = ThreadLocalRandom.current().nextInt(1, 100_000);
+        String body = """
+                {"bookEventId":null,"bookEventType":"NEW","book":{"bookId":%d,"bookName":"Kafka in Action","bookAuthor":"Henry Xiloj"}}"""
+                .formatted(bookId);
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    public record Report(int targetRate, double achievedRate, long succeeded, long failed, Histogram latencies) {
+
+        public static String header() {
+            return String.format("%12s %12s %10s %10s %10s %10s %10s %10s%n",
+                    "target rps", "achieved", "ok", "errors", "p50 (ms)", "p99 (ms)", "p99.9 (ms)", "max (ms)");
+        }
+
+        public String row() {
+            return String.format("%,12d %,12.0f %,10d %,10d %10.2f %10.2f %10.2f %10.2f%n",
+                    targetRate, achievedRate, succeeded, failed,
+                    millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(99)),
+                    millis(latencies.getValueAtPercentile(99.9)), millis(latencies.getMaxValue()));
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1e6;
+        }
+    }
+
+    public static void main(String[] args) {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int rate = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        Report report = new LoadGenerator(baseUrl).run(rate, Duration.ofSeconds(seconds));
+        System.out.print(Report.header() + report.row());
+    }
+}
@@ -0,0 +1,56 @@
+package com.henry.kafka.producer.demo.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Boots the application on the embedded broker and drives both controllers with
+ * {@link LoadGenerator} at increasing request rates, to find where the service saturates.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test -Dtest=LoadGeneratorBenchmarkTest}. Tunables:
+ * {@code -Dload.rates=500,1000,2000,4000} (requests/sec per stage),
+ * {@code -Dload.seconds=10} (stage length) and {@code -Dload.partitions=3} (partitions of both topics).
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EmbeddedKafka(brokerProperties = {"num.partitions=${load.partitions:3}", "auto.create.topics.enable=true"})
+@TestPropertySource(properties = {
+        "spring.kafka.producer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.admin.properties.bootstrap.servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.topic=load-book-events",
+        "spring.kafka.topic2=load-user-events",
+        "spring.profiles.active=test",
+        "app.spill.enabled=false",
+        "logging.level.com.henry.kafka.producer.demo=WARN"
+})
+class LoadGeneratorBenchmarkTest {
+
+    @LocalServerPort
+    int port;
+
+    @Test
+    void openLoopLoad() {
+        int[] rates = Arrays.stream(System.getProperty("load.rates", "500,1000,2000,4000").split(","))
+                .mapToInt(rate -> Integer.parseInt(rate.trim()))
+                .toArray();
+        Duration stage = Duration.ofSeconds(Long.getLong("load.seconds", 10));
+        LoadGenerator loadGenerator = new LoadGenerator("http://localhost:" + port);
+
+        // warm up the JIT, the connection pool and topic metadata
+        loadGenerator.run(rates[0], Duration.ofSeconds(3));
+
+        StringBuilder report = new StringBuilder(String.format("%npartitions=%s%n", System.getProperty("load.partitions", "3")))
+                .append(LoadGenerator.Report.header());
+        for (int rate : rates) {
+            report.append(loadGenerator.run(rate, stage).row());
+        }
+        System.out.println(report);
+    }
+}
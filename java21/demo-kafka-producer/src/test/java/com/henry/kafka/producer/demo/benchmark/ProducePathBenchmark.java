@@ -0,0 +1,153 @@
+package com.henry.kafka.producer.demo.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henry.kafka.producer.demo.deadletter.DeadLetterPublisher;
+import com.henry.kafka.producer.demo.dto.Book;
+import com.henry.kafka.producer.demo.dto.BookEvent;
+import com.henry.kafka.producer.demo.dto.BookEventType;
+import com.henry.kafka.producer.demo.producer.BookEventProducer;
+import com.henry.kafka.producer.demo.producer.ProducerMetrics;
+import com.henry.kafka.producer.demo.producer.ProducerRecordFactory;
+import com.henry.kafka.producer.demo.producer.SendLogger;
+import com.henry.kafka.producer.demo.serializer.BookEventBinaryCodec;
+import com.henry.kafka.producer.demo.serializer.BookEventSerializer;
+import com.henry.kafka.producer.demo.spill.SpillJournal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.IntegerSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.mock.MockProducerFactory;
+import org.springframework.kafka.support.SendResult;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The produce hot path without HTTP, whole and stage by stage, against a {@link MockProducer}.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="ProducePathBenchmark -prof gc"};
+ * {@code -prof gc} adds the allocation rate ({@code gc.alloc.rate.norm}, bytes per operation).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProducePathBenchmark {
+
+    private static final String TOPIC = "book-events";
+
+    private final BookEvent bookEvent =
+            new BookEvent(2001, BookEventType.UPDATE, new Book(101, "Kafka Deep Dive", "Henry Xiloj"));
+
+    private ObjectMapper objectMapper;
+    private BookEventSerializer bookEventSerializer;
+    private MockProducer<Integer, byte[]> mockProducer;
+    private KafkaTemplate<Integer, byte[]> kafkaTemplate;
+    private BookEventProducer bookEventProducer;
+    private byte[] payload;
+    private ProducerRecord<Integer, byte[]> producerRecord;
+    private ProducerRecordFactory threeHeaderRecords;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        bookEventSerializer = new BookEventSerializer(objectMapper);
+        mockProducer = new MockProducer<>(true, new IntegerSerializer(), new ByteArraySerializer()) {
+            @Override
+            public void close(Duration timeout) {
+                // KafkaTemplate closes the producer after every send, as it would a shared DefaultKafkaProducerFactory one
+            }
+        };
+        kafkaTemplate = new KafkaTemplate<>(new MockProducerFactory<>(() -> mockProducer));
+        SpillJournal spillJournal = new SpillJournal(false, null, 0, 0, new SimpleMeterRegistry());
+        bookEventProducer = new BookEventProducer(kafkaTemplate, bookEventSerializer,
+                new ProducerMetrics(new SimpleMeterRegistry()), new SendLogger(), spillJournal, Runnable::run,
+                new ProducerRecordFactory(), new DeadLetterPublisher(kafkaTemplate, spillJournal, new SimpleMeterRegistry()));
+        bookEventProducer.topic = TOPIC;
+        payload = bookEventSerializer.serialize(TOPIC, bookEvent);
+        producerRecord = new ProducerRecord<>(TOPIC, bookEvent.bookEventId(), payload);
+        threeHeaderRecords = new ProducerRecordFactory(Map.of(ProducerRecordFactory.SCANNER,
+                Map.of("content-type", "application/json", "schema-version", "1")));
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearMockProducer() {
+        // MockProducer keeps every sent record
+        mockProducer.clear();
+    }
+
+    // the path before the dedicated serializer: writeValueAsString + StringSerializer
+    @Benchmark
+    public byte[] serializeWriteValueAsString() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(bookEvent).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] serializeBookEventSerializer() {
+        return bookEventSerializer.serialize(TOPIC, bookEvent);
+    }
+
+    @Benchmark
+    public byte[] serializeBinary() {
+        return BookEventBinaryCodec.encode(bookEvent);
+    }
+
+    @Benchmark
+    public ProducerRecord<Integer, byte[]> buildProducerRecord() {
+        return bookEventProducer.buildProducerRecord(bookEvent.bookEventId(), payload, TOPIC);
+    }
+
+    // the record building before ProducerRecordFactory: a header list, a RecordHeader and a getBytes() per record
+    @Benchmark
+    public ProducerRecord<Integer, byte[]> buildProducerRecordPerRecordHeaders() {
+        List<Header> headers = List.of(new RecordHeader("event-source", "scanner".getBytes()));
+        return new ProducerRecord<>(TOPIC, null, bookEvent.bookEventId(), payload, headers);
+    }
+
+    @Benchmark
+    public ProducerRecord<Integer, byte[]> buildProducerRecordThreeHeaders() {
+        return threeHeaderRecords.create(ProducerRecordFactory.SCANNER, TOPIC, bookEvent.bookEventId(), payload);
+    }
+
+    @Benchmark
+    public ProducerRecord<Integer, byte[]> buildProducerRecordThreeHeadersPerRecord() {
+        List<Header> headers = List.of(
+                new RecordHeader("event-source", "scanner".getBytes()),
+                new RecordHeader("content-type", "application/json".getBytes()),
+                new RecordHeader("schema-version", "1".getBytes()));
+        return new ProducerRecord<>(TOPIC, null, bookEvent.bookEventId(), payload, headers);
+    }
+
+    @Benchmark
+    public CompletableFuture<SendResult<Integer, byte[]>> kafkaTemplateSend() {
+        return kafkaTemplate.send(producerRecord);
+    }
+
+    @Benchmark
+    public CompletableFuture<SendResult<Integer, byte[]>> fullHotPath() {
+        return bookEventProducer.sendBookEvent_Approach2(bookEvent);
+    }
+}
@@ -0,0 +1,107 @@
+package com.henry.kafka.producer.demo.benchmark;
+
+import com.henry.kafka.producer.demo.config.ProducerProfile;
+import com.henry.kafka.producer.demo.dto.Book;
+import com.henry.kafka.producer.demo.dto.BookEvent;
+import com.henry.kafka.producer.demo.dto.BookEventType;
+import com.henry.kafka.producer.demo.pool.PooledKafkaProducerFactory;
+import com.henry.kafka.producer.demo.serializer.BookEventSerializer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.IntegerSerializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Throughput of the send path against the embedded broker for several {@code app.producer.pool.size}
+ * values. Sender threads hand keyed records to one {@code KafkaTemplate}, as concurrent requests
+ * would, and each run waits for every ack. The speedup over a single producer only shows on a
+ * machine with spare cores; the embedded broker shares them with the producers.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test -Dtest=ProducerPoolBenchmarkTest}
+ * ({@code -Dbenchmark.pool-sizes=1,2,4,8 -Dbenchmark.records=N -Dbenchmark.threads=N}).
+ */
+@Tag("benchmark")
+@EmbeddedKafka(topics = ProducerPoolBenchmarkTest.TOPIC, partitions = 6)
+class ProducerPoolBenchmarkTest {
+
+    static final String TOPIC = "book-events-pool";
+
+    private static final int[] POOL_SIZES = Arrays.stream(System.getProperty("benchmark.pool-sizes", "1,2,4").split(","))
+            .mapToInt(size -> Integer.parseInt(size.trim()))
+            .toArray();
+    private static final int RECORDS = Integer.getInteger("benchmark.records", 200_000);
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 8);
+
+    @Test
+    void poolSizes(EmbeddedKafkaBroker broker) throws Exception {
+        byte[] payload = new BookEventSerializer().serialize(TOPIC,
+                new BookEvent(2001, BookEventType.NEW, new Book(101, "Kafka Deep Dive", "Henry Xiloj")));
+
+        StringBuilder report = new StringBuilder(String.format("%n%-10s %14s %10s%n", "pool size", "records/sec", "speedup"));
+        double baseline = 0;
+        for (int poolSize : POOL_SIZES) {
+            PooledKafkaProducerFactory<Integer, byte[]> producerFactory = producerFactory(broker, poolSize);
+            try {
+                KafkaTemplate<Integer, byte[]> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+                run(kafkaTemplate, payload, RECORDS / 10);
+                double recordsPerSecond = run(kafkaTemplate, payload, RECORDS);
+                if (baseline == 0) {
+                    baseline = recordsPerSecond;
+                }
+                report.append(String.format("%-10d %,14.0f %9.2fx%n", poolSize, recordsPerSecond, recordsPerSecond / baseline));
+            } finally {
+                producerFactory.destroy();
+            }
+        }
+        System.out.println(report);
+    }
+
+    private static PooledKafkaProducerFactory<Integer, byte[]> producerFactory(EmbeddedKafkaBroker broker, int poolSize) {
+        Map<String, Object> configs = new HashMap<>(ProducerProfile.THROUGHPUT.producerConfigs());
+        configs.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        configs.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, IntegerSerializer.class);
+        configs.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        configs.put(ProducerConfig.ACKS_CONFIG, "all");
+        return new PooledKafkaProducerFactory<>(configs, poolSize);
+    }
+
+    private static double run(KafkaTemplate<Integer, byte[]> kafkaTemplate, byte[] payload, int records) throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        try {
+            int perThread = records / THREADS;
+            long start = System.nanoTime();
+            List<Future<?>> senders = new ArrayList<>(THREADS);
+            for (int t = 0; t < THREADS; t++) {
+                int firstKey = t * perThread;
+                senders.add(threads.submit(() -> {
+                    List<CompletableFuture<SendResult<Integer, byte[]>>> futures = new ArrayList<>(perThread);
+                    for (int i = 0; i < perThread; i++) {
+                        futures.add(kafkaTemplate.send(TOPIC, firstKey + i, payload));
+                    }
+                    CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+                }));
+            }
+            for (Future<?> sender : senders) {
+                sender.get();
+            }
+            return (double) perThread * THREADS * 1e9 / (System.nanoTime() - start);
+        } finally {
+            threads.shutdown();
+        }
+    }
+}
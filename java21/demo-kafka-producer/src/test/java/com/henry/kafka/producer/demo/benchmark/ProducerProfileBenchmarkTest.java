@@ -0,0 +1,99 @@
+package com.henry.kafka.producer.demo.benchmark;
+
+import com.henry.kafka.producer.demo.config.ProducerProfile;
+import com.henry.kafka.producer.demo.dto.Book;
+import com.henry.kafka.producer.demo.dto.BookEvent;
+import com.henry.kafka.producer.demo.dto.BookEventType;
+import com.henry.kafka.producer.demo.serializer.BookEventSerializer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.IntegerSerializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Records/sec and send-to-ack latency of every {@link ProducerProfile} against the embedded broker.
+ * Records are sent as fast as the producer accepts them, so the latencies are those of a saturated
+ * producer and include accumulator queueing.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test -Dtest=ProducerProfileBenchmarkTest}
+ * ({@code -Dbenchmark.records=N} to change the record count).
+ */
+@Tag("benchmark")
+@EmbeddedKafka(topics = ProducerProfileBenchmarkTest.TOPIC, partitions = 3)
+class ProducerProfileBenchmarkTest {
+
+    static final String TOPIC = "book-events-benchmark";
+
+    private static final int RECORDS = Integer.getInteger("benchmark.records", 200_000);
+    private static final int WARMUP_RECORDS = RECORDS / 10;
+
+    @Test
+    void producerProfiles(EmbeddedKafkaBroker broker) throws Exception {
+        byte[] payload = new BookEventSerializer().serialize(TOPIC,
+                new BookEvent(2001, BookEventType.UPDATE, new Book(101, "Kafka Deep Dive", "Henry Xiloj")));
+
+        StringBuilder report = new StringBuilder(String.format("%n%-12s %14s %12s %12s%n", "profile", "records/sec", "p50 (ms)", "p99 (ms)"));
+        for (ProducerProfile profile : ProducerProfile.values()) {
+            Map<String, Object> configs = new HashMap<>(profile.producerConfigs());
+            configs.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+            configs.put(ProducerConfig.ACKS_CONFIG, "all");
+
+            try (KafkaProducer<Integer, byte[]> producer =
+                         new KafkaProducer<>(configs, new IntegerSerializer(), new ByteArraySerializer())) {
+                run(producer, payload, WARMUP_RECORDS);
+                Result result = run(producer, payload, RECORDS);
+                report.append(String.format("%-12s %,14.0f %12.2f %12.2f%n", profile.name().toLowerCase(),
+                        result.recordsPerSecond(), result.percentileMs(50), result.percentileMs(99)));
+            }
+        }
+        System.out.println(report);
+    }
+
+    private static Result run(KafkaProducer<Integer, byte[]> producer, byte[] payload, int records) throws InterruptedException {
+        long[] latencies = new long[records];
+        CountDownLatch acked = new CountDownLatch(records);
+        AtomicInteger failures = new AtomicInteger();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < records; i++) {
+            int index = i;
+            long sentAt = System.nanoTime();
+            producer.send(new ProducerRecord<>(TOPIC, i % 1_000, payload), (metadata, exception) -> {
+                latencies[index] = System.nanoTime() - sentAt;
+                if (exception != null) {
+                    failures.incrementAndGet();
+                }
+                acked.countDown();
+            });
+        }
+        assertTrue(acked.await(2, TimeUnit.MINUTES), "not every record was acked");
+        long elapsed = System.nanoTime() - start;
+
+        assertEquals(0, failures.get());
+        Arrays.sort(latencies);
+        return new Result(records * 1e9 / elapsed, latencies);
+    }
+
+    private record Result(double recordsPerSecond, long[] sortedLatencies) {
+
+        double percentileMs(double percentile) {
+            int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.henry.kafka.producer.demo.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henry.kafka.producer.demo.deadletter.DeadLetterPublisher;
+import com.henry.kafka.producer.demo.dto.Book;
+import com.henry.kafka.producer.demo.dto.BookEvent;
+import com.henry.kafka.producer.demo.dto.BookEventType;
+import com.henry.kafka.producer.demo.producer.BookEventProducer;
+import com.henry.kafka.producer.demo.producer.ProducerMetrics;
+import com.henry.kafka.producer.demo.producer.ProducerRecordFactory;
+import com.henry.kafka.producer.demo.producer.SendLogger;
+import com.henry.kafka.producer.demo.serializer.BookEventSerializer;
+import com.henry.kafka.producer.demo.spill.SpillJournal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.IntegerSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.mock.MockProducerFactory;
+import org.springframework.kafka.support.SendResult;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The produce hot path with per-record INFO logging against the default summary logging.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="SendLoggingBenchmark"}.
+ * Outside Spring Boot, logback logs to the console, so {@code per-record} pays for formatting
+ * and appender I/O on every send as it would in production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SendLoggingBenchmark {
+
+    private static final String TOPIC = "book-events";
+
+    @Param({"per-record", "summary"})
+    public String mode;
+
+    private final BookEvent bookEvent =
+            new BookEvent(2001, BookEventType.UPDATE, new Book(101, "Kafka Deep Dive", "Henry Xiloj"));
+
+    private MockProducer<Integer, byte[]> mockProducer;
+    private BookEventProducer bookEventProducer;
+
+    @Setup
+    public void setUp() {
+        mockProducer = new MockProducer<>(true, new IntegerSerializer(), new ByteArraySerializer()) {
+            @Override
+            public void close(Duration timeout) {
+                // KafkaTemplate closes the producer after every send, as it would a shared DefaultKafkaProducerFactory one
+            }
+        };
+        SendLogger sendLogger = new SendLogger();
+        sendLogger.setMode(mode);
+        KafkaTemplate<Integer, byte[]> kafkaTemplate = new KafkaTemplate<>(new MockProducerFactory<>(() -> mockProducer));
+        SpillJournal spillJournal = new SpillJournal(false, null, 0, 0, new SimpleMeterRegistry());
+        bookEventProducer = new BookEventProducer(kafkaTemplate,
+                new BookEventSerializer(new ObjectMapper()), new ProducerMetrics(new SimpleMeterRegistry()),
+                sendLogger, spillJournal, Runnable::run,
+                new ProducerRecordFactory(), new DeadLetterPublisher(kafkaTemplate, spillJournal, new SimpleMeterRegistry()));
+        bookEventProducer.topic = TOPIC;
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearMockProducer() {
+        mockProducer.clear();
+    }
+
+    @Benchmark
+    public CompletableFuture<SendResult<Integer, byte[]>> sendBookEvent() {
+        return bookEventProducer.sendBookEvent_Approach2(bookEvent);
+    }
+}
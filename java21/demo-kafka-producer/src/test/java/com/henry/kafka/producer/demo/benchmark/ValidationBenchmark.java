@@ -0,0 +1,98 @@
+package com.henry.kafka.producer.demo.benchmark;
+
+import com.henry.kafka.producer.demo.controller.BookEventsController;
+import com.henry.kafka.producer.demo.dto.Book;
+import com.henry.kafka.producer.demo.dto.BookEvent;
+import com.henry.kafka.producer.demo.dto.BookEventType;
+import com.henry.kafka.producer.demo.validation.BookEventValidator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.MethodParameter;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * {@link BookEventValidator} against Hibernate Validator, for a valid event and for a rejected one.
+ * {@code rejectMvc} is the rejection path before the handwritten validator: {@code @Valid} binding into
+ * a {@link MethodArgumentNotValidException} and the sorted {@link FieldError} stream the advice used (without
+ * its INFO log line).
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="ValidationBenchmark -prof gc"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private final BookEvent valid =
+            new BookEvent(null, BookEventType.NEW, new Book(101, "Kafka Deep Dive", "Henry Xiloj"));
+    private final BookEvent invalid =
+            new BookEvent(null, BookEventType.NEW, new Book(null, "", "Henry Xiloj"));
+
+    private Validator hibernate;
+    private SpringValidatorAdapter springValidator;
+    private MethodParameter bookEventParameter;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        hibernate = Validation.buildDefaultValidatorFactory().getValidator();
+        springValidator = new SpringValidatorAdapter(hibernate);
+        bookEventParameter = new MethodParameter(
+                BookEventsController.class.getMethod("postBookEvent", BookEvent.class, String.class), 0);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<BookEvent>> hibernateValid() {
+        return hibernate.validate(valid);
+    }
+
+    @Benchmark
+    public String handwrittenValid() {
+        return BookEventValidator.validate(valid);
+    }
+
+    // the message BookEventsController#validateBatch built from the violations
+    @Benchmark
+    public String hibernateReject() {
+        return hibernate.validate(invalid).stream()
+                .map(violation -> violation.getPropertyPath() + " - " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    @Benchmark
+    public String handwrittenReject() {
+        return BookEventValidator.validate(invalid);
+    }
+
+    @Benchmark
+    public String rejectMvc() {
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(invalid, "bookEvent");
+        springValidator.validate(invalid, bindingResult);
+        MethodArgumentNotValidException ex = new MethodArgumentNotValidException(bookEventParameter, bindingResult);
+        return ex.getBindingResult().getFieldErrors().stream()
+                .map(fieldError -> fieldError.getField() + " - " + fieldError.getDefaultMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+}
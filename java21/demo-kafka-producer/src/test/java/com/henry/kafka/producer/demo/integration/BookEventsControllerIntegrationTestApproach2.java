@@ -37,6 +37,9 @@ import static org.mockito.Mockito.when;
         // ✅ avoid @Profile(\"local\") beans like AutoCreateConfig
         "spring.profiles.active=test",
 
+        // ✅ no spill segments left over from a local run
+        "app.spill.enabled=false",
+
         // ✅ harmless dummy so Kafka auto-config (if touched) has a value
         "spring.kafka.producer.bootstrap-servers=localhost:9092"
 })
@@ -44,7 +47,7 @@ public class BookEventsControllerIntegrationTestApproach2 {
 
     @Autowired TestRestTemplate restTemplate;
 
-    @MockitoBean KafkaTemplate<Integer, String> kafkaTemplate; // mocked
+    @MockitoBean KafkaTemplate<Integer, byte[]> kafkaTemplate; // mocked
     @MockitoBean KafkaAdmin kafkaAdmin; // mocked
 
     @Autowired ObjectMapper objectMapper;
@@ -57,7 +60,7 @@ public class BookEventsControllerIntegrationTestApproach2 {
         headers.setContentType(MediaType.APPLICATION_JSON);
         HttpEntity<BookEvent> request = new HttpEntity<>(bookEvent, headers);
 
-        mockProducerCall("book-events", bookEvent, objectMapper.writeValueAsString(bookEvent));
+        mockProducerCall("book-events", bookEvent, objectMapper.writeValueAsBytes(bookEvent));
 
         ResponseEntity<BookEvent> response =
                 restTemplate.exchange("/v1/bookevent", HttpMethod.POST, request, BookEvent.class);
@@ -74,7 +77,7 @@ public class BookEventsControllerIntegrationTestApproach2 {
         headers.setContentType(MediaType.APPLICATION_JSON);
         HttpEntity<BookEvent> request = new HttpEntity<>(bookEventUpdate, headers);
 
-        mockProducerCall("book-events", bookEventUpdate, objectMapper.writeValueAsString(bookEventUpdate));
+        mockProducerCall("book-events", bookEventUpdate, objectMapper.writeValueAsBytes(bookEventUpdate));
 
         ResponseEntity<BookEvent> response =
                 restTemplate.exchange("/v1/bookevent", HttpMethod.PUT, request, BookEvent.class);
@@ -91,7 +94,7 @@ public class BookEventsControllerIntegrationTestApproach2 {
         headers.setContentType(MediaType.APPLICATION_JSON);
         HttpEntity<BookEvent> request = new HttpEntity<>(userEvent, headers);
 
-        mockProducerCall("user-events", userEvent, objectMapper.writeValueAsString(userEvent));
+        mockProducerCall("user-events", userEvent, objectMapper.writeValueAsBytes(userEvent));
 
         ResponseEntity<BookEvent> response =
                 restTemplate.exchange("/v1/userevent", HttpMethod.POST, request, BookEvent.class);
@@ -108,7 +111,7 @@ public class BookEventsControllerIntegrationTestApproach2 {
         headers.setContentType(MediaType.APPLICATION_JSON);
         HttpEntity<BookEvent> request = new HttpEntity<>(userEventUpdate, headers);
 
-        mockProducerCall("user-events", userEventUpdate, objectMapper.writeValueAsString(userEventUpdate));
+        mockProducerCall("user-events", userEventUpdate, objectMapper.writeValueAsBytes(userEventUpdate));
 
         ResponseEntity<BookEvent> response =
                 restTemplate.exchange("/v1/userevent", HttpMethod.PUT, request, BookEvent.class);
@@ -118,12 +121,12 @@ public class BookEventsControllerIntegrationTestApproach2 {
     }
 
     // mock Kafka send
-    private void mockProducerCall(String topic, BookEvent event, String payload) {
-        ProducerRecord<Integer, String> rec = new ProducerRecord<>(topic, event.bookEventId(), payload);
+    private void mockProducerCall(String topic, BookEvent event, byte[] payload) {
+        ProducerRecord<Integer, byte[]> rec = new ProducerRecord<>(topic, event.bookEventId(), payload);
         RecordMetadata meta = new RecordMetadata(new TopicPartition(topic, 1),
                 1L, 0L, System.currentTimeMillis(), null, 0,
-                payload != null ? payload.length() : 0);
-        SendResult<Integer, String> sendResult = new SendResult<>(rec, meta);
+                payload != null ? payload.length : 0);
+        SendResult<Integer, byte[]> sendResult = new SendResult<>(rec, meta);
         when(kafkaTemplate.send(isA(ProducerRecord.class)))
                 .thenReturn(CompletableFuture.completedFuture(sendResult));
     }
@@ -0,0 +1,102 @@
+package com.henry.kafka.producer.demo.integration;
+
+import com.henry.kafka.producer.demo.dto.Book;
+import com.henry.kafka.producer.demo.dto.BookEvent;
+import com.henry.kafka.producer.demo.dto.BookEventType;
+import com.henry.kafka.producer.demo.serializer.BookEventSerializer;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewPartitions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT
+)
+@EmbeddedKafka(topics = {"book-events", "user-events"}, partitions = 3)
+@TestPropertySource(properties = {
+        "spring.kafka.producer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.consumer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.admin.properties.bootstrap.servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.topic=book-events",
+        "spring.kafka.topic2=user-events",
+        "app.spill.enabled=false",
+        "app.book-view.enabled=true",
+        "app.book-view.snapshot.dir=${java.io.tmpdir}/book-view-it-${random.uuid}",
+        "app.book-view.metadata-max-age-ms=500"
+})
+class BookViewIntegrationTest {
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Autowired
+    EmbeddedKafkaBroker embeddedKafkaBroker;
+
+    @Autowired
+    KafkaTemplate<Integer, byte[]> kafkaTemplate;
+
+    @Autowired
+    BookEventSerializer bookEventSerializer;
+
+    @Test
+    void getBookFollowsTheLatestEvent() throws InterruptedException {
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity("/v1/book/456", Book.class).getStatusCode());
+
+        restTemplate.postForEntity("/v1/bookevent",
+                new BookEvent(null, BookEventType.NEW, new Book(456, "Kafka Using Spring Boot", "Henry Xiloj")), BookEvent.class);
+        assertEquals("Kafka Using Spring Boot", awaitBook(456, "Kafka Using Spring Boot").bookName());
+
+        restTemplate.exchange("/v1/bookevent", HttpMethod.PUT,
+                new HttpEntity<>(new BookEvent(1, BookEventType.UPDATE, new Book(456, "Kafka Using Spring Boot 2nd Edition", "Henry Xiloj"))),
+                BookEvent.class);
+        assertEquals("Kafka Using Spring Boot 2nd Edition", awaitBook(456, "Kafka Using Spring Boot 2nd Edition").bookName());
+    }
+
+    @Test
+    void partitionsAddedWhileRunningAreRead() throws Exception {
+        int newPartition;
+        try (Admin admin = Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, embeddedKafkaBroker.getBrokersAsString()))) {
+            int partitions = admin.describeTopics(List.of("book-events")).allTopicNames().get()
+                    .get("book-events").partitions().size();
+            admin.createPartitions(Map.of("book-events", NewPartitions.increaseTo(partitions + 2))).all().get();
+            newPartition = partitions + 1;
+        }
+        BookEvent bookEvent = new BookEvent(null, BookEventType.NEW, new Book(789, "Added Partition", "Henry Xiloj"));
+        // the producer picks the new partitions up on its own metadata refresh
+        while (kafkaTemplate.partitionsFor("book-events").size() <= newPartition) {
+            Thread.sleep(50);
+        }
+        kafkaTemplate.send("book-events", newPartition, 789, bookEventSerializer.serialize("book-events", bookEvent)).get();
+
+        assertEquals("Added Partition", awaitBook(789, "Added Partition").bookName());
+    }
+
+    private Book awaitBook(int bookId, String bookName) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            ResponseEntity<Book> response = restTemplate.getForEntity("/v1/book/" + bookId, Book.class);
+            if (response.getStatusCode() == HttpStatus.OK && bookName.equals(response.getBody().bookName())) {
+                return response.getBody();
+            }
+            assertTrue(System.currentTimeMillis() < deadline, "book " + bookId + " is " + response.getBody());
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.henry.kafka.producer.demo.integration;
+
+import com.henry.kafka.producer.demo.dto.Book;
+import com.henry.kafka.producer.demo.dto.BookEvent;
+import com.henry.kafka.producer.demo.dto.BookEventType;
+import com.henry.kafka.producer.demo.serializer.BookEventSerializer;
+import com.henry.kafka.producer.demo.view.BookView;
+import com.henry.kafka.producer.demo.view.BookViewSnapshots;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.IntegerSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT
+)
+@EmbeddedKafka(topics = {"book-events", "user-events"}, partitions = 3)
+@TestPropertySource(properties = {
+        "spring.kafka.producer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.consumer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.admin.properties.bootstrap.servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.topic=book-events",
+        "spring.kafka.topic2=user-events",
+        "app.spill.enabled=false",
+        "app.book-view.enabled=true",
+        "app.topics.partitions=3"
+})
+class BookViewRestartIntegrationTest {
+
+    private static Path snapshotDir;
+
+    // resolved while the context starts: the embedded broker is up, the book view not restored yet
+    @DynamicPropertySource
+    static void snapshotDir(DynamicPropertyRegistry registry) {
+        registry.add("app.book-view.snapshot.dir", BookViewRestartIntegrationTest::previousRun);
+    }
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Test
+    void resumesAfterTheSnapshotOffsets() throws InterruptedException {
+        // offset 2, after the snapshot: applied
+        assertEquals("After The Snapshot", awaitBook(778).bookName());
+
+        // offsets 0 and 1, already in the snapshot: not applied again
+        assertEquals("Restored Edition", restTemplate.getForEntity("/v1/book/777", Book.class).getBody().bookName());
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity("/v1/book/779", Book.class).getStatusCode());
+    }
+
+    /**
+     * A previous run that read partition 0 of book-events up to offset 2 and left book 777 as
+     * "Restored Edition". The records it read say otherwise, so re-reading them would show.
+     */
+    private static synchronized String previousRun() {
+        if (snapshotDir == null) {
+            try (KafkaProducer<Integer, byte[]> producer = new KafkaProducer<>(Map.of(
+                    ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, System.getProperty(EmbeddedKafkaBroker.SPRING_EMBEDDED_KAFKA_BROKERS)),
+                    new IntegerSerializer(), new ByteArraySerializer())) {
+                send(producer, 777, "Stale Edition");
+                send(producer, 779, "Before The Snapshot");
+                send(producer, 778, "After The Snapshot");
+                producer.flush();
+
+                Path dir = Files.createTempDirectory("book-view-restart-it");
+                SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+                BookView view = new BookView(16, meterRegistry);
+                view.apply(new BookEvent(null, BookEventType.UPDATE, new Book(777, "Restored Edition", "Henry Xiloj")));
+                view.applied(0, 2L);
+                new BookViewSnapshots(view, "book-events", true, dir, meterRegistry).snapshot();
+                snapshotDir = dir;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return snapshotDir.toString();
+    }
+
+    private static void send(KafkaProducer<Integer, byte[]> producer, int bookId, String bookName) throws Exception {
+        BookEvent event = new BookEvent(null, BookEventType.NEW, new Book(bookId, bookName, "Henry Xiloj"));
+        producer.send(new ProducerRecord<>("book-events", 0, bookId, new BookEventSerializer().serialize("book-events", event))).get();
+    }
+
+    private Book awaitBook(int bookId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            ResponseEntity<Book> response = restTemplate.getForEntity("/v1/book/" + bookId, Book.class);
+            if (response.getStatusCode() == HttpStatus.OK) {
+                return response.getBody();
+            }
+            assertTrue(System.currentTimeMillis() < deadline, "book " + bookId + " is not in the view");
+            Thread.sleep(50);
+        }
+    }
+}
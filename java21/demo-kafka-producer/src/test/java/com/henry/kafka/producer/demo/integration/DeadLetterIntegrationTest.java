@@ -0,0 +1,94 @@
+package com.henry.kafka.producer.demo.integration;
+
+import com.henry.kafka.producer.demo.deadletter.DeadLetterEndpoint;
+import com.henry.kafka.producer.demo.deadletter.DeadLetterPublisher;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.IntegerDeserializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+@EmbeddedKafka(topics = {"book-events", "user-events", "book-events.DLT", "user-events.DLT"}, partitions = 3)
+@TestPropertySource(properties = {
+        "spring.kafka.producer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.consumer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.admin.properties.bootstrap.servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.topic=book-events",
+        "spring.kafka.topic2=user-events",
+        "spring.profiles.active=test",
+        "app.spill.enabled=false",
+        "app.dlt.retry.enabled=true",
+        "app.dlt.retry.interval-ms=200",
+        "app.dlt.retry.initial-backoff-ms=500"
+})
+class DeadLetterIntegrationTest {
+
+    @Autowired
+    DeadLetterPublisher publisher;
+
+    @Autowired
+    DeadLetterEndpoint endpoint;
+
+    @Autowired
+    EmbeddedKafkaBroker embeddedKafkaBroker;
+
+    private Consumer<Integer, byte[]> consumer;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, Object> configs = new HashMap<>(KafkaTestUtils.consumerProps("dlt-it", "true", embeddedKafkaBroker));
+        configs.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        consumer = new DefaultKafkaConsumerFactory<>(configs, new IntegerDeserializer(), new ByteArrayDeserializer())
+                .createConsumer();
+        embeddedKafkaBroker.consumeFromAnEmbeddedTopic(consumer, "book-events");
+    }
+
+    @AfterEach
+    void tearDown() {
+        consumer.close();
+    }
+
+    @Test
+    void deadLetterIsRetriedToItsTopicAfterTheBackoff() throws InterruptedException {
+        publisher.publish(new ProducerRecord<>("book-events", 42, new byte[]{4, 2}), new RecordTooLargeException("too large"));
+
+        ConsumerRecord<Integer, byte[]> retried = KafkaTestUtils.getSingleRecord(consumer, "book-events", Duration.ofSeconds(30));
+        assertEquals(42, retried.key());
+        assertArrayEquals(new byte[]{4, 2}, retried.value());
+        assertNull(retried.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC));
+
+        DeadLetterEndpoint.TopicReport report = endpoint.deadLetters().topics().get("book-events.DLT");
+        for (int i = 0; i < 50 && report.depth() != 0; i++) {
+            // the retrier commits after the ack the test consumer has already seen
+            Thread.sleep(100);
+            report = endpoint.deadLetters().topics().get("book-events.DLT");
+        }
+        assertEquals(0, report.depth());
+        assertEquals(1, report.published());
+        assertEquals(1, report.replayed());
+        assertEquals(0, report.parked());
+        assertEquals(0, report.lost());
+    }
+}
@@ -0,0 +1,103 @@
+package com.henry.kafka.producer.demo.unit.admission;
+
+import com.henry.kafka.producer.demo.admission.AdaptiveConcurrencyLimiter;
+import com.henry.kafka.producer.demo.admission.AdmissionControl;
+import com.henry.kafka.producer.demo.admission.AdmissionRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControlUnitTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    AdmissionControl admissionControl;
+
+    @BeforeEach
+    void setUp() {
+        admissionControl = new AdmissionControl(meterRegistry);
+        admissionControl.initialLimit = 2;
+        admissionControl.minLimit = 1;
+        admissionControl.maxLimit = 4;
+        admissionControl.retryAfterSeconds = 3;
+    }
+
+    @Test
+    void admit_rejectsOverTheLimitUntilASendCompletes() {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> second = new CompletableFuture<>();
+        admissionControl.admit("book-events", () -> first);
+        admissionControl.admit("book-events", () -> second);
+
+        AdmissionRejectedException ex = assertThrows(AdmissionRejectedException.class,
+                () -> admissionControl.admit("book-events", CompletableFuture::new));
+        assertEquals(3, ex.getRetryAfterSeconds());
+        assertFalse(ex.isOverloaded());
+        assertEquals(1, meterRegistry.get("book.admission.rejected").tag("topic", "book-events").counter().count());
+
+        first.complete("acked");
+        admissionControl.admit("book-events", CompletableFuture::new);
+    }
+
+    @Test
+    void admit_limitsArePerTopic() {
+        admissionControl.admit("user-events", CompletableFuture::new);
+        admissionControl.admit("user-events", CompletableFuture::new);
+
+        assertThrows(AdmissionRejectedException.class, () -> admissionControl.admit("user-events", CompletableFuture::new));
+        admissionControl.admit("book-events", CompletableFuture::new);
+    }
+
+    @Test
+    void admitAll_releasesEveryPermitWhenTheSendThrows() {
+        assertThrows(IllegalStateException.class, () -> admissionControl.admitAll("book-events", 2, () -> {
+            throw new IllegalStateException("producer closed");
+        }));
+
+        List<CompletableFuture<String>> futures = admissionControl.admitAll("book-events", 2,
+                () -> List.of(CompletableFuture.completedFuture("a"), CompletableFuture.completedFuture("b")));
+        assertEquals(2, futures.size());
+        assertEquals(0, meterRegistry.get("book.admission.in.flight").tag("topic", "book-events").gauge().value());
+    }
+
+    @Test
+    void admit_disabled_admitsEverything() {
+        admissionControl.enabled = false;
+
+        for (int i = 0; i < 10; i++) {
+            admissionControl.admit("book-events", CompletableFuture::new);
+        }
+    }
+
+    @Test
+    void limiter_increasesOnFastAcksAndBacksOffOnSlowOnes() {
+        long threshold = TimeUnit.MILLISECONDS.toNanos(100);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 5, 20, 0.5, threshold);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire(1));
+        }
+        limiter.release(threshold / 2, false);
+        assertEquals(11, limiter.getLimit());
+
+        limiter.release(threshold * 2, false);
+        // a second slow ack within the same threshold interval does not back off again
+        limiter.release(threshold * 2, false);
+        assertEquals(5, limiter.getLimit());
+        assertTrue(limiter.isAtMinimum());
+    }
+
+    @Test
+    void limiter_rejectsInvalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(1, 5, 20, 0.5, 1));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(10, 5, 20, 1.5, 1));
+    }
+}
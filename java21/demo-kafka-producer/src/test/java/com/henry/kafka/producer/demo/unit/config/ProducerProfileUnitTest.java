@@ -0,0 +1,38 @@
+package com.henry.kafka.producer.demo.unit.config;
+
+import com.henry.kafka.producer.demo.config.ProducerProfile;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProducerProfileUnitTest {
+
+    @Test
+    void from_isCaseInsensitive() {
+        assertEquals(ProducerProfile.THROUGHPUT, ProducerProfile.from(" Throughput "));
+        assertThrows(IllegalArgumentException.class, () -> ProducerProfile.from("fastest"));
+    }
+
+    @Test
+    void effectiveConfigs_explicitValueWins() {
+        Map<String, Object> effective = ProducerProfile.LATENCY.effectiveConfigs(
+                Map.of(ProducerConfig.COMPRESSION_TYPE_CONFIG, "gzip"));
+
+        assertEquals("gzip", effective.get(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+        assertEquals(0, effective.get(ProducerConfig.LINGER_MS_CONFIG));
+    }
+
+    @Test
+    void effectiveConfigs_rejectsInvalidBundle() {
+        assertThrows(IllegalArgumentException.class, () -> ProducerProfile.BALANCED.effectiveConfigs(
+                Map.of(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, "10")));
+        assertThrows(IllegalArgumentException.class, () -> ProducerProfile.BALANCED.effectiveConfigs(
+                Map.of(ProducerConfig.COMPRESSION_TYPE_CONFIG, "brotli")));
+        assertThrows(IllegalArgumentException.class, () -> ProducerProfile.BALANCED.effectiveConfigs(
+                Map.of(ProducerConfig.BATCH_SIZE_CONFIG, 0)));
+    }
+}
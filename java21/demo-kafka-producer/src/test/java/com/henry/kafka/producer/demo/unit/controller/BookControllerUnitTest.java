@@ -0,0 +1,45 @@
+package com.henry.kafka.producer.demo.unit.controller;
+
+import com.henry.kafka.producer.demo.controller.BookController;
+import com.henry.kafka.producer.demo.dto.Book;
+import com.henry.kafka.producer.demo.view.BookView;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = BookController.class)
+@TestPropertySource(properties = "app.book-view.enabled=true")
+@AutoConfigureMockMvc
+class BookControllerUnitTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockitoBean
+    BookView bookView;
+
+    @Test
+    void getBook() throws Exception {
+        when(bookView.get(456)).thenReturn(new Book(456, "Kafka Using Spring Boot", "Henry Xiloj"));
+
+        mockMvc.perform(get("/v1/book/456"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.bookId").value(456))
+                .andExpect(jsonPath("$.bookName").value("Kafka Using Spring Boot"));
+    }
+
+    @Test
+    void getBook_notInTheView() throws Exception {
+        mockMvc.perform(get("/v1/book/457"))
+                .andExpect(status().isNotFound());
+    }
+}
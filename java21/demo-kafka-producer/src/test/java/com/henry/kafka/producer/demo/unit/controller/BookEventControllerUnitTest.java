@@ -1,27 +1,54 @@
 package com.henry.kafka.producer.demo.unit.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henry.kafka.producer.demo.admission.AdmissionControl;
+import com.henry.kafka.producer.demo.admission.AdmissionRejectedException;
+import com.henry.kafka.producer.demo.controller.AckResponder;
 import com.henry.kafka.producer.demo.controller.BookEventsController;
 import com.henry.kafka.producer.demo.dto.BookEvent;
+import com.henry.kafka.producer.demo.idempotency.IdempotencyCache;
+import com.henry.kafka.producer.demo.spill.SpillJournal;
+import com.henry.kafka.producer.demo.producer.AckBatcher;
 import com.henry.kafka.producer.demo.producer.BookEventProducer;
+import com.henry.kafka.producer.demo.producer.UpdateCoalescer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import com.henry.kafka.producer.demo.unit.utils.TestUtil;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
 
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = BookEventsController.class)
+@Import({AdmissionControl.class, UpdateCoalescer.class, AckResponder.class, AckBatcher.class, IdempotencyCache.class,
+        SimpleMeterRegistry.class})
 @AutoConfigureMockMvc
 class BookEventControllerUnitTest {
 
@@ -31,6 +58,9 @@ class BookEventControllerUnitTest {
     @Autowired
     ObjectMapper objectMapper;
 
+    @Autowired
+    AckBatcher ackBatcher;
+
     @MockitoBean
     BookEventProducer bookEventProducer;
 
@@ -38,7 +68,7 @@ class BookEventControllerUnitTest {
     void postBookEvent() throws Exception {
         BookEvent bookEvent = TestUtil.BookEventRecord(); // NEW event, valid payload
         String json = objectMapper.writeValueAsString(bookEvent);
-        when(bookEventProducer.sendBookEvent_Approach2(isA(BookEvent.class))).thenReturn(null);
+        when(bookEventProducer.sendBookEvent_Approach2(isA(BookEvent.class))).thenReturn(CompletableFuture.completedFuture(null));
 
         mockMvc.perform(post("/v1/bookevent") // <-- correct route
                         .content(json)
@@ -50,7 +80,7 @@ class BookEventControllerUnitTest {
     void postBookEvent_4xx_validationErrors() throws Exception {
         BookEvent invalid = TestUtil.bookEventRecordWithInvalidBook(); // null id / blank name, etc.
         String json = objectMapper.writeValueAsString(invalid);
-        when(bookEventProducer.sendBookEvent_Approach2(isA(BookEvent.class))).thenReturn(null);
+        when(bookEventProducer.sendBookEvent_Approach2(isA(BookEvent.class))).thenReturn(CompletableFuture.completedFuture(null));
 
         String expectedErrorMessage =
                 "book.bookId - must not be null, book.bookName - must not be blank";
@@ -62,10 +92,23 @@ class BookEventControllerUnitTest {
                 .andExpect(content().string(expectedErrorMessage));
     }
 
+    @Test
+    void postBookEvent_admissionRejected_429WithRetryAfter() throws Exception {
+        String json = objectMapper.writeValueAsString(TestUtil.BookEventRecord());
+        when(bookEventProducer.sendBookEvent_Approach2(isA(BookEvent.class)))
+                .thenThrow(new AdmissionRejectedException("book-events", false, 2));
+
+        mockMvc.perform(post("/v1/bookevent")
+                        .content(json)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "2"));
+    }
+
     @Test
     void putBookEvent_ok() throws Exception {
         String json = objectMapper.writeValueAsString(TestUtil.bookEventRecordUpdate()); // UPDATE + id present
-        when(bookEventProducer.sendBookEvent_Approach2(isA(BookEvent.class))).thenReturn(null);
+        when(bookEventProducer.sendBookEvent_Approach2(isA(BookEvent.class))).thenReturn(CompletableFuture.completedFuture(null));
 
         mockMvc.perform(put("/v1/bookevent")
                         .content(json)
@@ -76,7 +119,7 @@ class BookEventControllerUnitTest {
     @Test
     void putBookEvent_missingId_400() throws Exception {
         String json = objectMapper.writeValueAsString(TestUtil.bookEventRecordUpdateWithNullBookEventId());
-        when(bookEventProducer.sendBookEvent_Approach2(isA(BookEvent.class))).thenReturn(null);
+        when(bookEventProducer.sendBookEvent_Approach2(isA(BookEvent.class))).thenReturn(CompletableFuture.completedFuture(null));
 
         mockMvc.perform(put("/v1/bookevent")
                         .content(json)
@@ -96,4 +139,292 @@ class BookEventControllerUnitTest {
                 .andExpect(status().is4xxClientError())
                 .andExpect(content().string("Only UPDATE event type is supported"));
     }
+
+    @Test
+    void postBookEvents_batch() throws Exception {
+        List<BookEvent> batch = List.of(TestUtil.BookEventRecord(), TestUtil.BookEventRecord());
+        String json = objectMapper.writeValueAsString(batch);
+        when(bookEventProducer.sendBookEvents(anyList())).thenReturn(List.of(
+                CompletableFuture.completedFuture(sendResult(0, 10L)),
+                CompletableFuture.failedFuture(new RuntimeException("Exception Calling Kafka"))));
+
+        MvcResult mvcResult = mockMvc.perform(post("/v1/bookevents/batch")
+                        .content(json)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$[0].partition").value(0))
+                .andExpect(jsonPath("$[0].offset").value(10))
+                .andExpect(jsonPath("$[1].error").value("Exception Calling Kafka"));
+    }
+
+    @Test
+    void postBookEvents_batch_4xx_validationErrors() throws Exception {
+        List<BookEvent> batch = List.of(TestUtil.BookEventRecord(), TestUtil.bookEventRecordWithInvalidBook());
+        String json = objectMapper.writeValueAsString(batch);
+
+        String expectedErrorMessage =
+                "[1] book.bookId - must not be null, [1] book.bookName - must not be blank";
+
+        MvcResult mvcResult = mockMvc.perform(post("/v1/bookevents/batch")
+                        .content(json)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(expectedErrorMessage));
+        verify(bookEventProducer, never()).sendBookEvents(anyList());
+    }
+
+    @Test
+    void postBookEvent_ackNone_answersWithoutWaiting() throws Exception {
+        String json = objectMapper.writeValueAsString(TestUtil.BookEventRecord());
+        when(bookEventProducer.sendBookEvent_Approach2(isA(BookEvent.class))).thenReturn(new CompletableFuture<>());
+
+        MvcResult mvcResult = mockMvc.perform(post("/v1/bookevent?ack=none")
+                        .content(json)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.book.bookId").value(TestUtil.BookEventRecord().book().bookId()));
+    }
+
+    @Test
+    void postBookEvent_ackBroker_answersOnceAcked() throws Exception {
+        String json = objectMapper.writeValueAsString(TestUtil.BookEventRecord());
+        CompletableFuture<SendResult<Integer, byte[]>> send = new CompletableFuture<>();
+        when(bookEventProducer.sendBookEvent_Approach2(isA(BookEvent.class))).thenReturn(send);
+
+        MvcResult mvcResult = mockMvc.perform(post("/v1/bookevent?ack=broker")
+                        .content(json)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        send.complete(sendResult(1, 42L));
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.partition").value(1))
+                .andExpect(jsonPath("$.offset").value(42));
+    }
+
+    @Test
+    void postBookEvent_ackBroker_spilled_202() throws Exception {
+        String json = objectMapper.writeValueAsString(TestUtil.BookEventRecord());
+        when(bookEventProducer.sendBookEvent_Approach2(isA(BookEvent.class))).thenReturn(CompletableFuture.completedFuture(
+                SpillJournal.spilledResult(new ProducerRecord<>("book-events", new byte[0]))));
+
+        MvcResult mvcResult = mockMvc.perform(post("/v1/bookevent?ack=broker")
+                        .content(json)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.partition").value(-1));
+    }
+
+    @Test
+    void postBookEvent_ackBroker_sendFailed_502() throws Exception {
+        String json = objectMapper.writeValueAsString(TestUtil.BookEventRecord());
+        when(bookEventProducer.sendBookEvent_Approach2(isA(BookEvent.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Exception Calling Kafka")));
+
+        MvcResult mvcResult = mockMvc.perform(post("/v1/bookevent?ack=broker")
+                        .content(json)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isBadGateway())
+                .andExpect(content().string("Exception Calling Kafka"));
+    }
+
+    @Test
+    void postBookEvent_ackBatch_answersOnceTheGroupIsAcked() throws Exception {
+        String json = objectMapper.writeValueAsString(TestUtil.BookEventRecord());
+        when(bookEventProducer.sendBookEvent_Approach2(isA(BookEvent.class)))
+                .thenReturn(CompletableFuture.completedFuture(sendResult(0, 5L)));
+
+        MvcResult mvcResult = mockMvc.perform(post("/v1/bookevent?ack=batch")
+                        .content(json)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        ackBatcher.flush();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.offset").value(5));
+    }
+
+    @Test
+    void postBookEvent_4xx_unknownAckMode() throws Exception {
+        String json = objectMapper.writeValueAsString(TestUtil.BookEventRecord());
+
+        mockMvc.perform(post("/v1/bookevent?ack=quorum")
+                        .content(json)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Unknown ack mode: quorum (expected none, broker or batch)"));
+        verify(bookEventProducer, never()).sendBookEvent_Approach2(isA(BookEvent.class));
+    }
+
+    @Test
+    void postBookEvent_idempotencyKey_retryIsNotSentAgain() throws Exception {
+        String json = objectMapper.writeValueAsString(TestUtil.BookEventRecord());
+        when(bookEventProducer.sendBookEvent_Approach2(isA(BookEvent.class)))
+                .thenReturn(CompletableFuture.completedFuture(sendResult(0, 3L)));
+
+        mockMvc.perform(post("/v1/bookevent")
+                        .header("Idempotency-Key", "retry-1")
+                        .content(json)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"));
+        mockMvc.perform(post("/v1/bookevent")
+                        .header("Idempotency-Key", "retry-1")
+                        .content(json)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"));
+
+        verify(bookEventProducer, times(1)).sendBookEvent_Approach2(isA(BookEvent.class));
+    }
+
+    @Test
+    void postBookEvent_idempotencyKey_ackBrokerReplaysPartitionAndOffset() throws Exception {
+        String json = objectMapper.writeValueAsString(TestUtil.BookEventRecord());
+        when(bookEventProducer.sendBookEvent_Approach2(isA(BookEvent.class)))
+                .thenReturn(CompletableFuture.completedFuture(sendResult(2, 9L)));
+
+        mockMvc.perform(post("/v1/bookevent")
+                        .header("Idempotency-Key", "retry-2")
+                        .content(json)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+        MvcResult mvcResult = mockMvc.perform(post("/v1/bookevent?ack=broker")
+                        .header("Idempotency-Key", "retry-2")
+                        .content(json)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.partition").value(2))
+                .andExpect(jsonPath("$.offset").value(9));
+        verify(bookEventProducer, times(1)).sendBookEvent_Approach2(isA(BookEvent.class));
+    }
+
+    @Test
+    void postBookEvent_idempotencyKey_ackBrokerWhileInFlight_409() throws Exception {
+        String json = objectMapper.writeValueAsString(TestUtil.BookEventRecord());
+        when(bookEventProducer.sendBookEvent_Approach2(isA(BookEvent.class))).thenReturn(new CompletableFuture<>());
+
+        mockMvc.perform(post("/v1/bookevent")
+                        .header("Idempotency-Key", "retry-3")
+                        .content(json)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+        MvcResult mvcResult = mockMvc.perform(post("/v1/bookevent?ack=broker")
+                        .header("Idempotency-Key", "retry-3")
+                        .content(json)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void postBookEvent_idempotencyKey_empty_400() throws Exception {
+        String json = objectMapper.writeValueAsString(TestUtil.BookEventRecord());
+
+        mockMvc.perform(post("/v1/bookevent")
+                        .header("Idempotency-Key", "")
+                        .content(json)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Idempotency-Key must have 1 to 255 characters"));
+        verify(bookEventProducer, never()).sendBookEvent_Approach2(isA(BookEvent.class));
+    }
+
+    @Test
+    void postBookEvent_idempotencyKey_tooLong_400() throws Exception {
+        String json = objectMapper.writeValueAsString(TestUtil.BookEventRecord());
+
+        mockMvc.perform(post("/v1/bookevent?ack=broker")
+                        .header("Idempotency-Key", "k".repeat(256))
+                        .content(json)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Idempotency-Key must have 1 to 255 characters"));
+        verify(bookEventProducer, never()).sendBookEvent_Approach2(isA(BookEvent.class));
+    }
+
+    @Test
+    void postBookEvent_idempotencyKey_reusedForAnotherEvent_422() throws Exception {
+        String json = objectMapper.writeValueAsString(TestUtil.BookEventRecord());
+        String otherJson = objectMapper.writeValueAsString(TestUtil.newBookEventRecordWithBookEventId());
+        when(bookEventProducer.sendBookEvent_Approach2(isA(BookEvent.class)))
+                .thenReturn(CompletableFuture.completedFuture(sendResult(0, 4L)));
+
+        mockMvc.perform(post("/v1/bookevent")
+                        .header("Idempotency-Key", "retry-4")
+                        .content(json)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/v1/bookevent")
+                        .header("Idempotency-Key", "retry-4")
+                        .content(otherJson)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"));
+        MvcResult mvcResult = mockMvc.perform(post("/v1/bookevent?ack=broker")
+                        .header("Idempotency-Key", "retry-4")
+                        .content(otherJson)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isUnprocessableEntity());
+        verify(bookEventProducer, times(1)).sendBookEvent_Approach2(isA(BookEvent.class));
+    }
+
+    @Test
+    void postBookEventSynchronous() throws Exception {
+        String json = objectMapper.writeValueAsString(TestUtil.BookEventRecord());
+        when(bookEventProducer.sendBookEventSynchronous(isA(BookEvent.class))).thenReturn(sendResult(2, 7L));
+
+        mockMvc.perform(post("/v1/bookevent/sync")
+                        .content(json)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.partition").value(2))
+                .andExpect(jsonPath("$.offset").value(7));
+    }
+
+    @Test
+    void postBookEventSynchronous_ackTimeout_504() throws Exception {
+        String json = objectMapper.writeValueAsString(TestUtil.BookEventRecord());
+        when(bookEventProducer.sendBookEventSynchronous(isA(BookEvent.class))).thenThrow(new TimeoutException());
+
+        mockMvc.perform(post("/v1/bookevent/sync")
+                        .content(json)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isGatewayTimeout());
+    }
+
+    private static SendResult<Integer, byte[]> sendResult(int partition, long offset) {
+        RecordMetadata metadata = new RecordMetadata(new TopicPartition("book-events", partition),
+                offset, 0, System.currentTimeMillis(), 0, 0);
+        return new SendResult<>(new ProducerRecord<>("book-events", new byte[0]), metadata);
+    }
 }
@@ -1,18 +1,25 @@
 package com.henry.kafka.producer.demo.unit.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henry.kafka.producer.demo.admission.AdmissionControl;
+import com.henry.kafka.producer.demo.controller.AckResponder;
 import com.henry.kafka.producer.demo.controller.UserEventsController;
 import com.henry.kafka.producer.demo.dto.BookEvent;
+import com.henry.kafka.producer.demo.producer.AckBatcher;
 import com.henry.kafka.producer.demo.producer.UserEventProducer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import com.henry.kafka.producer.demo.unit.utils.TestUtil;
 
+import java.util.concurrent.CompletableFuture;
+
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -21,6 +28,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = UserEventsController.class)
+@Import({AdmissionControl.class, AckResponder.class, AckBatcher.class, SimpleMeterRegistry.class})
 @AutoConfigureMockMvc
 class UserEventsControllerUnitTest {
 
@@ -34,7 +42,7 @@ class UserEventsControllerUnitTest {
     void postUserEvent_ok() throws Exception {
         BookEvent event = TestUtil.BookEventRecord(); // NEW + valid
         String json = objectMapper.writeValueAsString(event);
-        when(userEventProducer.sendUserEvent(isA(BookEvent.class))).thenReturn(null);
+        when(userEventProducer.sendUserEvent(isA(BookEvent.class))).thenReturn(CompletableFuture.completedFuture(null));
 
         mockMvc.perform(post("/v1/userevent")
                         .content(json)
@@ -47,7 +55,7 @@ class UserEventsControllerUnitTest {
     void postUserEvent_4xx_validation() throws Exception {
         BookEvent invalid = TestUtil.bookEventRecordWithInvalidBook();
         String json = objectMapper.writeValueAsString(invalid);
-        when(userEventProducer.sendUserEvent(isA(BookEvent.class))).thenReturn(null);
+        when(userEventProducer.sendUserEvent(isA(BookEvent.class))).thenReturn(CompletableFuture.completedFuture(null));
 
         String expected = "book.bookId - must not be null, book.bookName - must not be blank";
 
@@ -76,7 +84,7 @@ class UserEventsControllerUnitTest {
     void putUserEvent_ok() throws Exception {
         BookEvent update = TestUtil.bookEventRecordUpdate();
         String json = objectMapper.writeValueAsString(update);
-        when(userEventProducer.sendUserEvent(isA(BookEvent.class))).thenReturn(null);
+        when(userEventProducer.sendUserEvent(isA(BookEvent.class))).thenReturn(CompletableFuture.completedFuture(null));
 
         mockMvc.perform(put("/v1/userevent")
                         .content(json)
@@ -89,7 +97,7 @@ class UserEventsControllerUnitTest {
     void putUserEvent_missingId_400() throws Exception {
         BookEvent missingId = TestUtil.bookEventRecordUpdateWithNullBookEventId();
         String json = objectMapper.writeValueAsString(missingId);
-        when(userEventProducer.sendUserEvent(isA(BookEvent.class))).thenReturn(null);
+        when(userEventProducer.sendUserEvent(isA(BookEvent.class))).thenReturn(CompletableFuture.completedFuture(null));
 
         mockMvc.perform(put("/v1/userevent")
                         .content(json)
@@ -0,0 +1,142 @@
+package com.henry.kafka.producer.demo.unit.deadletter;
+
+import com.henry.kafka.producer.demo.deadletter.DeadLetterPublisher;
+import com.henry.kafka.producer.demo.spill.SpillJournal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DeadLetterPublisherUnitTest {
+
+    @TempDir
+    Path dir;
+
+    @Mock
+    KafkaTemplate<Integer, byte[]> kafkaTemplate;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void publish_sendsToTheDeadLetterTopicWithTheErrorHeaders() {
+        DeadLetterPublisher publisher = publisher(new SpillJournal(false, null, 0, 0, meterRegistry));
+        when(kafkaTemplate.send(isA(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+        RecordHeaders headers = new RecordHeaders();
+        headers.add("content-type", "application/json".getBytes(StandardCharsets.UTF_8));
+
+        publisher.publish(new ProducerRecord<>("book-events", null, 7, new byte[]{1, 2}, headers),
+                new KafkaException("outer", new RecordTooLargeException("too large")), 3);
+
+        ArgumentCaptor<ProducerRecord<Integer, byte[]>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(sent.capture());
+        ProducerRecord<Integer, byte[]> deadLetter = sent.getValue();
+        assertEquals("book-events.DLT", deadLetter.topic());
+        assertEquals(7, deadLetter.key());
+        assertArrayEquals(new byte[]{1, 2}, deadLetter.value());
+        assertEquals("application/json", header(deadLetter, "content-type"));
+        assertEquals("book-events", header(deadLetter, KafkaHeaders.DLT_ORIGINAL_TOPIC));
+        assertEquals(RecordTooLargeException.class.getName(), header(deadLetter, KafkaHeaders.DLT_EXCEPTION_FQCN));
+        assertEquals("too large", header(deadLetter, KafkaHeaders.DLT_EXCEPTION_MESSAGE));
+        assertEquals(3, DeadLetterPublisher.attempts(deadLetter.headers()));
+        assertEquals(1, publisher.published("book-events"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void publish_retriableFailureIsSpilledWithItsHeaders() {
+        SpillJournal journal = new SpillJournal(true, dir, 4096, 1 << 20, meterRegistry);
+        DeadLetterPublisher publisher = publisher(journal);
+        when(kafkaTemplate.send(isA(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException("brokers gone")));
+
+        publisher.publish(new ProducerRecord<>("user-events", 1, new byte[]{1}), new RecordTooLargeException("too large"));
+
+        assertTrue(journal.isSpilling());
+        journal.sealActiveSegment();
+        List<ProducerRecord<Integer, byte[]>> spilled = SpillJournal.read(journal.sealedSegments().get(0));
+        assertEquals("user-events.DLT", spilled.get(0).topic());
+        assertEquals("user-events", header(spilled.get(0), KafkaHeaders.DLT_ORIGINAL_TOPIC));
+        assertEquals(1, publisher.published("user-events"));
+    }
+
+    @Test
+    void publish_whileSpillingSkipsKafka() {
+        SpillJournal journal = new SpillJournal(true, dir, 4096, 1 << 20, meterRegistry);
+        journal.append(new ProducerRecord<>("book-events", 1, new byte[]{1}));
+        DeadLetterPublisher publisher = publisher(journal);
+
+        publisher.publish(new ProducerRecord<>("book-events", 2, new byte[]{2}), new RecordTooLargeException("too large"));
+
+        verify(kafkaTemplate, never()).send(any(ProducerRecord.class));
+        assertEquals(1, publisher.published("book-events"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void publish_deadLetterThatCannotBeSentOrSpilledIsCountedAsLost() {
+        DeadLetterPublisher publisher = publisher(new SpillJournal(false, null, 0, 0, meterRegistry));
+        when(kafkaTemplate.send(isA(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RecordTooLargeException("too large")));
+
+        CompletableFuture<?> published = publisher.publish(new ProducerRecord<>("book-events", 1, new byte[]{1}),
+                new RecordTooLargeException("too large"));
+
+        assertTrue(published.isCompletedExceptionally());
+        assertEquals(0, publisher.published("book-events"));
+        assertEquals(1, publisher.lost("book-events"));
+        assertEquals(1, meterRegistry.get(DeadLetterPublisher.LOST).tags("topic", "book-events").counter().count());
+    }
+
+    @Test
+    void publish_deadLetterOfADeadLetterIsLost() {
+        DeadLetterPublisher publisher = publisher(new SpillJournal(false, null, 0, 0, meterRegistry));
+
+        CompletableFuture<?> published = publisher.publish(new ProducerRecord<>("book-events.DLT", 1, new byte[]{1}),
+                new RecordTooLargeException("too large"));
+
+        assertTrue(published.isCompletedExceptionally());
+        verify(kafkaTemplate, never()).send(any(ProducerRecord.class));
+        assertEquals(1, publisher.lost("book-events.DLT"));
+    }
+
+    @Test
+    void attempts_defaultsToOneWithoutTheHeader() {
+        assertEquals(1, DeadLetterPublisher.attempts(new RecordHeaders()));
+    }
+
+    private DeadLetterPublisher publisher(SpillJournal journal) {
+        return new DeadLetterPublisher(kafkaTemplate, journal, meterRegistry);
+    }
+
+    private static String header(ProducerRecord<Integer, byte[]> record, String key) {
+        return new String(record.headers().lastHeader(key).value(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,226 @@
+package com.henry.kafka.producer.demo.unit.deadletter;
+
+import com.henry.kafka.producer.demo.deadletter.DeadLetterPublisher;
+import com.henry.kafka.producer.demo.deadletter.DeadLetterRetrier;
+import com.henry.kafka.producer.demo.spill.SpillJournal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DeadLetterRetrierUnitTest {
+
+    private static final TopicPartition DLT = new TopicPartition("book-events.DLT", 0);
+
+    @Mock
+    KafkaTemplate<Integer, byte[]> kafkaTemplate;
+
+    @Mock
+    DeadLetterPublisher publisher;
+
+    MockConsumer<Integer, byte[]> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    DeadLetterRetrier retrier;
+
+    @BeforeEach
+    void setUp() {
+        publisher.suffix = ".DLT";
+        retrier = new DeadLetterRetrier(() -> consumer, "demo-dlt-retry", List.of(DLT.topic()), kafkaTemplate, publisher,
+                new SpillJournal(false, null, 0, 0, new SimpleMeterRegistry()), new SimpleMeterRegistry());
+        retrier.enabled = true;
+        retrier.initialBackoffMs = 1000;
+        retrier.maxBackoffMs = 60_000;
+        retrier.ratePerSecond = 0;
+        retrier.ackTimeoutMs = 1000;
+        retrier.pollTimeoutMs = 10;
+        consumer.updateBeginningOffsets(Map.of(DLT, 0L));
+    }
+
+    @Test
+    void backoff_doublesPerAttemptUpToTheMax() {
+        assertEquals(1000, retrier.backoffMs(1));
+        assertEquals(2000, retrier.backoffMs(2));
+        assertEquals(32_000, retrier.backoffMs(6));
+        assertEquals(60_000, retrier.backoffMs(7));
+        assertEquals(60_000, retrier.backoffMs(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void isDue_onceTheBackoffHasPassed() {
+        assertFalse(retrier.isDue(10_000, 2, 11_999));
+        assertTrue(retrier.isDue(10_000, 2, 12_000));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void retry_resendsDueRecordsAndStopsThePartitionAtTheFirstOneNotDue() {
+        when(kafkaTemplate.send(isA(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+        long now = System.currentTimeMillis();
+        deliver(deadLetter(0, now - 5000, 1), deadLetter(1, now, 1), deadLetter(2, now - 5000, 1));
+
+        retrier.retry();
+
+        ArgumentCaptor<ProducerRecord<Integer, byte[]>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(sent.capture());
+        ProducerRecord<Integer, byte[]> retried = sent.getValue();
+        assertEquals("book-events", retried.topic());
+        assertEquals(0, retried.key());
+        assertEquals("application/json", new String(retried.headers().lastHeader("content-type").value(), StandardCharsets.UTF_8));
+        assertNull(retried.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC));
+        assertNull(retried.headers().lastHeader(DeadLetterPublisher.ATTEMPTS));
+        assertEquals(1, consumer.committed(Set.of(DLT)).get(DLT).offset());
+        assertEquals(1, consumer.position(DLT));
+        assertEquals(1, retrier.lastRound().records());
+        assertEquals(1, retrier.replayed("book-events"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void retry_failedResendIsDeadLetteredWithOneMoreAttempt() {
+        RecordTooLargeException cause = new RecordTooLargeException("too large");
+        when(kafkaTemplate.send(isA(ProducerRecord.class))).thenReturn(CompletableFuture.failedFuture(cause));
+        when(publisher.publish(any(ProducerRecord.class), eq(cause), eq(4)))
+                .thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+        deliver(deadLetter(0, 0, 3));
+
+        retrier.retry();
+
+        verify(publisher).publish(any(ProducerRecord.class), eq(cause), eq(4));
+        assertEquals(1, consumer.committed(Set.of(DLT)).get(DLT).offset());
+        assertEquals(1, retrier.lastRound().failed());
+        assertEquals(0, retrier.replayed("book-events"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void retry_commitsNothingPastARecordThatCouldNotBeDeadLetteredAgain() {
+        RecordTooLargeException cause = new RecordTooLargeException("too large");
+        when(kafkaTemplate.send(isA(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)))
+                .thenReturn(CompletableFuture.failedFuture(cause))
+                .thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+        when(publisher.publish(any(ProducerRecord.class), eq(cause), eq(2)))
+                .thenReturn(CompletableFuture.failedFuture(cause));
+        deliver(deadLetter(0, 0, 1), deadLetter(1, 0, 1), deadLetter(2, 0, 1));
+
+        retrier.retry();
+
+        assertEquals(1, consumer.committed(Set.of(DLT)).get(DLT).offset());
+        assertEquals(1, consumer.position(DLT));
+        assertEquals(2, retrier.replayed("book-events"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void retry_parksRecordsThatReachedMaxAttempts() {
+        retrier.maxAttempts = 5;
+        when(kafkaTemplate.send(isA(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+        // parked at once, whatever its backoff
+        deliver(deadLetter(0, System.currentTimeMillis(), 5));
+
+        retrier.retry();
+
+        ArgumentCaptor<ProducerRecord<Integer, byte[]>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(sent.capture());
+        ProducerRecord<Integer, byte[]> parked = sent.getValue();
+        assertEquals("book-events.PARKED", parked.topic());
+        assertEquals(5, DeadLetterPublisher.attempts(parked.headers()));
+        assertEquals("book-events", new String(parked.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC).value(),
+                StandardCharsets.UTF_8));
+        verify(publisher, never()).publish(any(ProducerRecord.class), any(Throwable.class), anyInt());
+        assertEquals(1, consumer.committed(Set.of(DLT)).get(DLT).offset());
+        assertEquals(1, retrier.parked("book-events"));
+        assertEquals(0, retrier.replayed("book-events"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void retry_withoutTheOriginalTopicHeaderStripsTheSuffix() {
+        publisher.suffix = ".dead.letters";
+        TopicPartition deadLetters = new TopicPartition("book-events.dead.letters", 0);
+        retrier = new DeadLetterRetrier(() -> consumer, "demo-dlt-retry", List.of(deadLetters.topic()), kafkaTemplate,
+                publisher, new SpillJournal(false, null, 0, 0, new SimpleMeterRegistry()), new SimpleMeterRegistry());
+        retrier.enabled = true;
+        retrier.pollTimeoutMs = 10;
+        consumer.updateBeginningOffsets(Map.of(deadLetters, 0L));
+        when(kafkaTemplate.send(isA(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(List.of(deadLetters));
+            consumer.addRecord(new ConsumerRecord<>(deadLetters.topic(), 0, 0, 0, TimestampType.CREATE_TIME,
+                    0, 1, 7, new byte[]{1}, new RecordHeaders(), Optional.empty()));
+        });
+
+        retrier.retry();
+
+        ArgumentCaptor<ProducerRecord<Integer, byte[]>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(sent.capture());
+        assertEquals("book-events", sent.getValue().topic());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void retry_doesNothingWhenDisabled() {
+        retrier.enabled = false;
+
+        retrier.retry();
+
+        verify(kafkaTemplate, never()).send(any(ProducerRecord.class));
+        assertTrue(consumer.subscription().isEmpty());
+    }
+
+    private void deliver(ConsumerRecord<Integer, byte[]>... records) {
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(List.of(DLT));
+            for (ConsumerRecord<Integer, byte[]> record : records) {
+                consumer.addRecord(record);
+            }
+        });
+    }
+
+    private static ConsumerRecord<Integer, byte[]> deadLetter(long offset, long timestamp, int attempts) {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add("content-type", "application/json".getBytes(StandardCharsets.UTF_8));
+        headers.add(KafkaHeaders.DLT_ORIGINAL_TOPIC, "book-events".getBytes(StandardCharsets.UTF_8));
+        headers.add(KafkaHeaders.DLT_EXCEPTION_FQCN, RecordTooLargeException.class.getName().getBytes(StandardCharsets.UTF_8));
+        headers.add(DeadLetterPublisher.ATTEMPTS, ByteBuffer.allocate(Integer.BYTES).putInt(attempts).array());
+        return new ConsumerRecord<>(DLT.topic(), DLT.partition(), offset, timestamp, TimestampType.CREATE_TIME,
+                0, 1, (int) offset, new byte[]{1}, headers, Optional.empty());
+    }
+}
@@ -0,0 +1,127 @@
+package com.henry.kafka.producer.demo.unit.idempotency;
+
+import com.henry.kafka.producer.demo.idempotency.IdempotencyCache;
+import com.henry.kafka.producer.demo.idempotency.InvalidIdempotencyKeyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyCacheUnitTest {
+
+    static final String REQUEST = "BookEvent[bookEventId=null, bookEventType=NEW, book=Book[bookId=456]]";
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    AtomicLong now = new AtomicLong(1_000);
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void retryGetsTheOriginalResult(boolean offHeap) {
+        IdempotencyCache cache = new IdempotencyCache(1_000, 60_000, offHeap, meterRegistry, now::get);
+
+        assertNull(cache.claim("key-1", REQUEST));
+        CompletableFuture<SendResult<Integer, byte[]>> send = new CompletableFuture<>();
+        cache.send("key-1", () -> send);
+
+        assertTrue(cache.claim("key-1", REQUEST).inFlight());
+        send.complete(sendResult(3, 77L));
+        IdempotencyCache.Original original = cache.claim("key-1", REQUEST);
+        assertTrue(original.sameRequest());
+        assertFalse(original.inFlight());
+        assertEquals(3, original.partition());
+        assertEquals(77L, original.offset());
+
+        assertEquals(2.0, meterRegistry.get(IdempotencyCache.HITS).counter().count());
+        assertEquals(1.0, meterRegistry.get(IdempotencyCache.MISSES).counter().count());
+        assertEquals(1.0, meterRegistry.get(IdempotencyCache.KEYS).gauge().value());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void failedSendForgetsTheKey(boolean offHeap) {
+        IdempotencyCache cache = new IdempotencyCache(1_000, 60_000, offHeap, meterRegistry, now::get);
+
+        assertNull(cache.claim("key-1", REQUEST));
+        cache.send("key-1", () -> CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+        assertNull(cache.claim("key-2", REQUEST));
+        assertThrows(IllegalStateException.class, () -> cache.send("key-2", () -> {
+            throw new IllegalStateException("not admitted");
+        }));
+
+        assertNull(cache.claim("key-1", REQUEST));
+        assertNull(cache.claim("key-2", REQUEST));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void keysExpireAfterTheTtl(boolean offHeap) {
+        IdempotencyCache cache = new IdempotencyCache(1_000, 60_000, offHeap, meterRegistry, now::get);
+        assertNull(cache.claim("key-1", REQUEST));
+
+        now.addAndGet(59_999);
+        assertNotNull(cache.claim("key-1", REQUEST));
+        now.addAndGet(1);
+        assertNull(cache.claim("key-1", REQUEST));
+        assertEquals(1.0, meterRegistry.get(IdempotencyCache.EVICTIONS).tag("cause", "expired").counter().count());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void boundedBySizeWithOldestEvictedFirst(boolean offHeap) {
+        // the smallest table: one bucket of 8 ways per stripe
+        IdempotencyCache cache = new IdempotencyCache(1, 60_000, offHeap, meterRegistry, now::get);
+
+        for (int i = 0; i < 10_000; i++) {
+            now.incrementAndGet();
+            cache.claim("key-" + i, REQUEST);
+        }
+
+        assertTrue(cache.size() <= 64 * 8);
+        double sizeEvictions = meterRegistry.get(IdempotencyCache.EVICTIONS).tag("cause", "size").counter().count();
+        assertEquals(10_000 - cache.size(), (long) sizeEvictions);
+        // the most recent key always survives, the first one is long gone
+        assertNotNull(cache.claim("key-9999", REQUEST));
+        assertNull(cache.claim("key-0", REQUEST));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void keyReusedForAnotherRequestIsNotTheSameRequest(boolean offHeap) {
+        IdempotencyCache cache = new IdempotencyCache(1_000, 60_000, offHeap, meterRegistry, now::get);
+
+        assertNull(cache.claim("key-1", REQUEST));
+        cache.send("key-1", () -> CompletableFuture.completedFuture(sendResult(1, 5L)));
+
+        IdempotencyCache.Original original = cache.claim("key-1", REQUEST.replace("bookId=456", "bookId=457"));
+        assertFalse(original.sameRequest());
+        assertTrue(cache.claim("key-1", REQUEST).sameRequest());
+        assertEquals(1, cache.size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "x"})
+    void keyLengthIsChecked(String prefix) {
+        IdempotencyCache cache = new IdempotencyCache(1_000, 60_000, false, meterRegistry, now::get);
+        String key = prefix.isEmpty() ? "" : prefix.repeat(256);
+
+        assertThrows(InvalidIdempotencyKeyException.class, () -> cache.claim(key, REQUEST));
+    }
+
+    private static SendResult<Integer, byte[]> sendResult(int partition, long offset) {
+        RecordMetadata metadata = new RecordMetadata(new TopicPartition("book-events", partition), offset, 0, 0, 0, 0);
+        return new SendResult<>(new ProducerRecord<>("book-events", new byte[0]), metadata);
+    }
+}
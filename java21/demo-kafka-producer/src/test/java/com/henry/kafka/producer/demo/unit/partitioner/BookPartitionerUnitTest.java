@@ -0,0 +1,116 @@
+package com.henry.kafka.producer.demo.unit.partitioner;
+
+import com.henry.kafka.producer.demo.partitioner.BookPartitioner;
+import com.henry.kafka.producer.demo.partitioner.PartitionSkewTracker;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.serialization.IntegerSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookPartitionerUnitTest {
+
+    private static final String TOPIC = "book-events";
+    private static final int PARTITIONS = 6;
+
+    private final IntegerSerializer keySerializer = new IntegerSerializer();
+    private final AtomicLong now = new AtomicLong();
+    private Cluster cluster;
+
+    @BeforeEach
+    void setUp() {
+        PartitionSkewTracker.reset();
+        Node node = new Node(0, "localhost", 9092);
+        List<PartitionInfo> partitions = IntStream.range(0, PARTITIONS)
+                .mapToObj(p -> new PartitionInfo(TOPIC, p, node, new Node[]{node}, new Node[]{node}))
+                .toList();
+        cluster = new Cluster("test", List.of(node), partitions, Set.of(), Set.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        PartitionSkewTracker.reset();
+    }
+
+    @Test
+    void partition_sameBookAlwaysSamePartition() {
+        BookPartitioner partitioner = partitioner(0);
+
+        int first = partition(partitioner, 101);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(first, partition(partitioner, 101));
+        }
+    }
+
+    @Test
+    void partition_hotBookIsSpreadOverDedicatedPartitions() {
+        BookPartitioner partitioner = partitioner(2);
+
+        // window 1: book 7 has far more than 10% of the records
+        for (int i = 0; i < 200; i++) {
+            partition(partitioner, i % 2 == 0 ? 7 : 1000 + i);
+        }
+        // nothing is hot until the window ends
+        assertTrue(PartitionSkewTracker.report().get(TOPIC).hotKeys().isEmpty());
+        now.addAndGet(50);
+
+        Set<Integer> hotPartitions = new HashSet<>();
+        List<Integer> coldPartitions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            hotPartitions.add(partition(partitioner, 7));
+            coldPartitions.add(partition(partitioner, 2000 + i));
+        }
+        assertEquals(Set.of(4, 5), hotPartitions);
+        assertTrue(coldPartitions.stream().allMatch(p -> p < 4));
+        assertEquals(Set.of(7), PartitionSkewTracker.report().get(TOPIC).hotKeys());
+    }
+
+    @Test
+    void report_countsRecordsPerPartition() {
+        BookPartitioner partitioner = partitioner(0);
+
+        for (int i = 0; i < 60; i++) {
+            partition(partitioner, i);
+        }
+
+        PartitionSkewTracker.TopicReport report = PartitionSkewTracker.report().get(TOPIC);
+        assertEquals(60, report.records());
+        assertEquals(PARTITIONS, report.recordsPerPartition().size());
+        assertEquals(60, report.recordsPerPartition().stream().mapToLong(Long::longValue).sum());
+        assertTrue(report.maxToMeanRatio() >= 1.0);
+    }
+
+    @Test
+    void configure_rejectsInvalidShare() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new BookPartitioner().configure(Map.of(BookPartitioner.HOT_KEY_SHARE_CONFIG, "1.5")));
+    }
+
+    private BookPartitioner partitioner(int hotPartitions) {
+        BookPartitioner partitioner = new BookPartitioner();
+        partitioner.configure(Map.of(
+                BookPartitioner.HOT_PARTITIONS_CONFIG, hotPartitions,
+                BookPartitioner.WINDOW_MS_CONFIG, 50,
+                BookPartitioner.CLOCK_CONFIG, (LongSupplier) now::get));
+        return partitioner;
+    }
+
+    private int partition(BookPartitioner partitioner, int bookId) {
+        return partitioner.partition(TOPIC, bookId, keySerializer.serialize(TOPIC, bookId), null, null, cluster);
+    }
+}
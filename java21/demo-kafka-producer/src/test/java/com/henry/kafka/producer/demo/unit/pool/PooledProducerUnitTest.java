@@ -0,0 +1,96 @@
+package com.henry.kafka.producer.demo.unit.pool;
+
+import com.henry.kafka.producer.demo.pool.PooledKafkaProducerFactory;
+import com.henry.kafka.producer.demo.pool.PooledProducer;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.IntegerSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PooledProducerUnitTest {
+
+    private final List<MockProducer<Integer, byte[]>> members = IntStream.range(0, 4)
+            .mapToObj(i -> new MockProducer<>(true, new IntegerSerializer(), new ByteArraySerializer()))
+            .toList();
+    private final PooledProducer<Integer, byte[]> pool = new PooledProducer<>(List.copyOf(members));
+
+    @Test
+    void send_sameKeyAlwaysSameMember() {
+        for (int i = 0; i < 10; i++) {
+            pool.send(new ProducerRecord<>("book-events", 101, new byte[]{(byte) i}));
+        }
+
+        MockProducer<Integer, byte[]> owner = members.stream().filter(m -> !m.history().isEmpty()).findFirst().orElseThrow();
+        assertEquals(10, owner.history().size());
+        // the member keeps the send order of the key
+        assertEquals(IntStream.range(0, 10).boxed().toList(),
+                owner.history().stream().map(record -> (int) record.value()[0]).toList());
+    }
+
+    @Test
+    void send_spreadsKeysAndExplicitPartitions() {
+        for (int key = 0; key < 40; key++) {
+            pool.send(new ProducerRecord<>("book-events", key, new byte[0]));
+        }
+        members.forEach(member -> assertEquals(10, member.history().size()));
+
+        ProducerRecord<Integer, byte[]> explicit = new ProducerRecord<>("book-events", 6, 1, new byte[0]);
+        assertSame(members.get(2), pool.memberFor(explicit));
+    }
+
+    @Test
+    void send_keylessRecordsRoundRobin() {
+        for (int i = 0; i < 8; i++) {
+            pool.send(new ProducerRecord<>("book-events", null, new byte[0]));
+        }
+
+        members.forEach(member -> assertEquals(2, member.history().size()));
+    }
+
+    @Test
+    void transactions_areRejected() {
+        assertThrows(UnsupportedOperationException.class, pool::beginTransaction);
+    }
+
+    @Test
+    void factory_createsOneProducerPerMemberWithDistinctClientIds() {
+        PooledKafkaProducerFactory<Integer, byte[]> producerFactory = new PooledKafkaProducerFactory<>(Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9",
+                ProducerConfig.CLIENT_ID_CONFIG, "books",
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, IntegerSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class), 3);
+        try {
+            // the template keeps sharing the factory's single (pooled) producer
+            KafkaTemplate<Integer, byte[]> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+            Producer<Integer, byte[]> producer = producerFactory.createProducer();
+
+            Set<String> clientIds = producer.metrics().keySet().stream()
+                    .map(MetricName::tags)
+                    .map(tags -> tags.get("client-id"))
+                    .filter(clientId -> clientId != null)
+                    .collect(Collectors.toSet());
+            // the factory numbers its producers (books-1), the pool numbers the members
+            assertEquals(3, clientIds.size());
+            assertTrue(clientIds.stream().allMatch(clientId -> clientId.startsWith("books-")));
+            assertTrue(kafkaTemplate.execute(p -> p.metrics().size()) > 0);
+        } finally {
+            producerFactory.destroy();
+        }
+    }
+}
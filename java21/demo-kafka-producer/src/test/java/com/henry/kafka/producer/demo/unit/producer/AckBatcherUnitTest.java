@@ -0,0 +1,70 @@
+package com.henry.kafka.producer.demo.unit.producer;
+
+import com.henry.kafka.producer.demo.producer.AckBatcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AckBatcherUnitTest {
+
+    AckBatcher ackBatcher;
+
+    @BeforeEach
+    void setUp() {
+        ackBatcher = new AckBatcher();
+        ackBatcher.batchSize = 3;
+    }
+
+    @Test
+    void ackIsHeldUntilTheGroupIsClosed() {
+        CompletableFuture<String> acked = ackBatcher.join(CompletableFuture.completedFuture("a"));
+
+        assertFalse(acked.isDone());
+        ackBatcher.flush();
+        assertEquals("a", acked.join());
+    }
+
+    @Test
+    void fullGroupIsReleasedOnceEverySendCompleted() {
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        CompletableFuture<String> first = ackBatcher.join(CompletableFuture.completedFuture("a"));
+        CompletableFuture<String> second = ackBatcher.join(slow);
+        CompletableFuture<String> third = ackBatcher.join(CompletableFuture.completedFuture("c"));
+
+        assertFalse(first.isDone());
+        slow.complete("b");
+        assertEquals("a", first.join());
+        assertEquals("b", second.join());
+        assertEquals("c", third.join());
+    }
+
+    @Test
+    void failedSendFailsOnlyItsOwnCaller() {
+        CompletableFuture<String> ok = ackBatcher.join(CompletableFuture.completedFuture("a"));
+        CompletableFuture<String> failed = ackBatcher.join(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+        ackBatcher.flush();
+
+        assertEquals("a", ok.join());
+        CompletionException ex = assertThrows(CompletionException.class, failed::join);
+        assertEquals("broker down", ex.getCause().getMessage());
+    }
+
+    @Test
+    void nextGroupWaitsForItsOwnClose() {
+        for (int i = 0; i < 3; i++) {
+            ackBatcher.join(CompletableFuture.completedFuture("full"));
+        }
+        CompletableFuture<String> next = ackBatcher.join(CompletableFuture.completedFuture("next"));
+
+        assertFalse(next.isDone());
+        ackBatcher.flush();
+        assertTrue(next.isDone());
+    }
+}
@@ -2,28 +2,45 @@ package com.henry.kafka.producer.demo.unit.producer;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henry.kafka.producer.demo.deadletter.DeadLetterPublisher;
 import com.henry.kafka.producer.demo.dto.BookEvent;
 import com.henry.kafka.producer.demo.producer.BookEventProducer;
+import com.henry.kafka.producer.demo.producer.ProducerMetrics;
+import com.henry.kafka.producer.demo.producer.ProducerRecordFactory;
+import com.henry.kafka.producer.demo.producer.SendLogger;
+import com.henry.kafka.producer.demo.serializer.BookEventSerializer;
+import com.henry.kafka.producer.demo.spill.SpillJournal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaOperations;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.nio.file.Path;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import com.henry.kafka.producer.demo.unit.utils.TestUtil;
 
@@ -35,16 +52,21 @@ class BookEventProducerUnitTest {
     private static final String TOPIC = "book-events";
 
     @Mock
-    KafkaTemplate<Integer, String> kafkaTemplate;
+    KafkaTemplate<Integer, byte[]> kafkaTemplate;
 
     @Spy
     ObjectMapper objectMapper = new ObjectMapper();
 
-    @InjectMocks
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     BookEventProducer eventProducer;
 
     @BeforeEach
     void setUp() {
+        SpillJournal spillJournal = new SpillJournal(false, null, 0, 0, meterRegistry);
+        eventProducer = new BookEventProducer(kafkaTemplate, new BookEventSerializer(objectMapper),
+                new ProducerMetrics(meterRegistry), new SendLogger(), spillJournal, Runnable::run,
+                new ProducerRecordFactory(), new DeadLetterPublisher(kafkaTemplate, spillJournal, meterRegistry));
         // Inject the @Value field
         ReflectionTestUtils.setField(eventProducer, "topic", TOPIC);
     }
@@ -59,20 +81,99 @@ class BookEventProducerUnitTest {
                 .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Exception Calling Kafka")));
 
         // when
-        CompletableFuture<SendResult<Integer, String>> future = eventProducer.sendBookEvent_Approach2(event);
+        CompletableFuture<SendResult<Integer, byte[]>> future = eventProducer.sendBookEvent_Approach2(event);
 
         // then
         ExecutionException ex = assertThrows(ExecutionException.class, future::get);
         assertEquals("Exception Calling Kafka", ex.getCause().getMessage());
+        assertEquals(1, meterRegistry.get(ProducerMetrics.FAILURES)
+                .tags("topic", TOPIC, "exception", "RuntimeException").counter().count());
+        assertEquals(0, meterRegistry.get(ProducerMetrics.IN_FLIGHT).gauge().value());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void sendBookEvent_Approach2_nonRetriableFailure_isDeadLettered() {
+        BookEvent event = TestUtil.BookEventRecord();
+        when(kafkaTemplate.send(isA(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Exception Calling Kafka")))
+                .thenReturn(CompletableFuture.completedFuture(sendResult(0)));
+
+        CompletableFuture<SendResult<Integer, byte[]>> future = eventProducer.sendBookEvent_Approach2(event);
+
+        assertThrows(ExecutionException.class, future::get);
+        ArgumentCaptor<ProducerRecord<Integer, byte[]>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate, times(2)).send(sent.capture());
+        ProducerRecord<Integer, byte[]> deadLetter = sent.getAllValues().get(1);
+        assertEquals(TOPIC + ".DLT", deadLetter.topic());
+        assertEquals(event.book().bookId(), deadLetter.key());
+        assertEquals(TOPIC, new String(deadLetter.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC).value()));
+        assertEquals(1, meterRegistry.get(DeadLetterPublisher.PUBLISHED).tags("topic", TOPIC).counter().count());
+    }
+
+    @Test
+    void sendBookEvent_Approach2_retriableFailure_isSpilledAndNextSendSkipsKafka(@TempDir Path spillDir) throws Exception {
+        SpillJournal spillJournal = new SpillJournal(true, spillDir, 4096, 1 << 20, meterRegistry);
+        eventProducer = new BookEventProducer(kafkaTemplate, new BookEventSerializer(objectMapper),
+                new ProducerMetrics(meterRegistry), new SendLogger(), spillJournal, Runnable::run,
+                new ProducerRecordFactory(), new DeadLetterPublisher(kafkaTemplate, spillJournal, meterRegistry));
+        ReflectionTestUtils.setField(eventProducer, "topic", TOPIC);
+        BookEvent event = TestUtil.BookEventRecord();
+        when(kafkaTemplate.send(isA(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException("Topic book-events not present in metadata")));
+
+        SendResult<Integer, byte[]> first = eventProducer.sendBookEvent_Approach2(event).get();
+        SendResult<Integer, byte[]> second = eventProducer.sendBookEvent_Approach2(event).get();
+
+        assertEquals(-1, first.getRecordMetadata().partition());
+        assertEquals(-1, second.getRecordMetadata().partition());
+        assertTrue(spillJournal.isSpilling());
+        verify(kafkaTemplate, times(1)).send(isA(ProducerRecord.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void sendBookEvents_transactional_sendsTheBatchInOneTransaction() throws Exception {
+        BookEvent event = TestUtil.BookEventRecord();
+        when(kafkaTemplate.isTransactional()).thenReturn(true);
+        when(kafkaTemplate.executeInTransaction(isA(KafkaOperations.OperationsCallback.class)))
+                .thenAnswer(invocation -> invocation.<KafkaOperations.OperationsCallback<Integer, byte[], ?>>getArgument(0)
+                        .doInOperations(kafkaTemplate));
+        when(kafkaTemplate.send(isA(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(sendResult(1)));
+
+        List<CompletableFuture<SendResult<Integer, byte[]>>> futures = eventProducer.sendBookEvents(List.of(event, event));
+
+        assertEquals(2, futures.size());
+        assertEquals(1, futures.get(1).get().getRecordMetadata().partition());
+        verify(kafkaTemplate, times(1)).executeInTransaction(isA(KafkaOperations.OperationsCallback.class));
+        verify(kafkaTemplate, times(2)).send(isA(ProducerRecord.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void sendBookEvents_transactional_abortFailsEveryEvent() {
+        BookEvent event = TestUtil.BookEventRecord();
+        when(kafkaTemplate.isTransactional()).thenReturn(true);
+        when(kafkaTemplate.executeInTransaction(isA(KafkaOperations.OperationsCallback.class)))
+                .thenThrow(new KafkaException("Transaction aborted"));
+
+        List<CompletableFuture<SendResult<Integer, byte[]>>> futures = eventProducer.sendBookEvents(List.of(event, event));
+
+        assertEquals(2, futures.size());
+        for (CompletableFuture<SendResult<Integer, byte[]>> future : futures) {
+            ExecutionException ex = assertThrows(ExecutionException.class, future::get);
+            assertEquals("Transaction aborted", ex.getCause().getMessage());
+        }
     }
 
     @Test
     void sendBookEvent_Approach2_success() throws Exception {
         // given
         BookEvent event = TestUtil.BookEventRecord();
-        String payload = objectMapper.writeValueAsString(event);
+        byte[] payload = objectMapper.writeValueAsBytes(event);
 
-        ProducerRecord<Integer, String> producerRecord =
+        ProducerRecord<Integer, byte[]> producerRecord =
                 new ProducerRecord<>(TOPIC, event.bookEventId(), payload);
 
         // fabricate metadata you expect back
@@ -83,20 +184,28 @@ class BookEventProducerUnitTest {
                 System.currentTimeMillis(),
                 null,          // checksum/deprecated
                 0,             // serialized key size
-                payload.length()
+                payload.length
         );
 
-        SendResult<Integer, String> sendResult = new SendResult<>(producerRecord, metadata);
+        SendResult<Integer, byte[]> sendResult = new SendResult<>(producerRecord, metadata);
 
         when(kafkaTemplate.send(isA(ProducerRecord.class)))
                 .thenReturn(CompletableFuture.completedFuture(sendResult));
 
         // when
-        CompletableFuture<SendResult<Integer, String>> future = eventProducer.sendBookEvent_Approach2(event);
+        CompletableFuture<SendResult<Integer, byte[]>> future = eventProducer.sendBookEvent_Approach2(event);
 
         // then
-        SendResult<Integer, String> actual = future.get();
+        SendResult<Integer, byte[]> actual = future.get();
         assertEquals(1, actual.getRecordMetadata().partition());
         assertEquals(TOPIC, actual.getRecordMetadata().topic());
+        assertEquals(1, meterRegistry.get(ProducerMetrics.SEND_ACK).tags("topic", TOPIC, "partition", "1").timer().count());
+        assertEquals(1, meterRegistry.get(ProducerMetrics.SERIALIZATION).timer().count());
+        assertEquals(payload.length, meterRegistry.get(ProducerMetrics.PAYLOAD_SIZE).summary().totalAmount());
+    }
+
+    private static SendResult<Integer, byte[]> sendResult(int partition) {
+        RecordMetadata metadata = new RecordMetadata(new TopicPartition(TOPIC, partition), 0L, 0, 0L, 0, 0);
+        return new SendResult<>(new ProducerRecord<>(TOPIC, 1, new byte[0]), metadata);
     }
 }
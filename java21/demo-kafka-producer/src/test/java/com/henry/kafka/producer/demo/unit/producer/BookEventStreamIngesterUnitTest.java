@@ -0,0 +1,86 @@
+package com.henry.kafka.producer.demo.unit.producer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henry.kafka.producer.demo.dto.BookEvent;
+import com.henry.kafka.producer.demo.dto.StreamIngestResult;
+import com.henry.kafka.producer.demo.producer.BookEventProducer;
+import com.henry.kafka.producer.demo.producer.BookEventStreamIngester;
+import com.henry.kafka.producer.demo.unit.utils.TestUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookEventStreamIngesterUnitTest {
+
+    @Mock
+    BookEventProducer bookEventProducer;
+
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    BookEventStreamIngester ingester;
+
+    @BeforeEach
+    void setUp() {
+        ingester = new BookEventStreamIngester(bookEventProducer, objectMapper);
+        ingester.maxInFlight = 2;
+    }
+
+    @Test
+    void ingest_validAndInvalidLines() throws Exception {
+        when(bookEventProducer.sendBookEvent_Approach2(isA(BookEvent.class)))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Exception Calling Kafka")));
+
+        String body = ndjson(TestUtil.BookEventRecord(), TestUtil.bookEventRecordWithInvalidBook(),
+                TestUtil.BookEventRecord(), TestUtil.bookEventRecordUpdate(), TestUtil.BookEventRecord());
+
+        StreamIngestResult result = ingester.ingest(stream(body));
+
+        assertEquals(2, result.accepted());
+        assertEquals(2, result.rejected());
+        assertEquals(1, result.failed());
+        assertEquals("[2] book.bookId - must not be null, book.bookName - must not be blank", result.errors().get(0));
+        assertEquals("[4] Only NEW event type is supported", result.errors().get(1));
+        verify(bookEventProducer, times(3)).sendBookEvent_Approach2(isA(BookEvent.class));
+    }
+
+    @Test
+    void ingest_stopsAtMalformedLine() throws Exception {
+        when(bookEventProducer.sendBookEvent_Approach2(isA(BookEvent.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        String body = ndjson(TestUtil.BookEventRecord()) + "{\"bookEventType\": \n" + ndjson(TestUtil.BookEventRecord());
+
+        StreamIngestResult result = ingester.ingest(stream(body));
+
+        assertEquals(1, result.accepted());
+        assertEquals(1, result.errors().size());
+        verify(bookEventProducer, times(1)).sendBookEvent_Approach2(isA(BookEvent.class));
+    }
+
+    private String ndjson(BookEvent... events) throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (BookEvent event : events) {
+            body.append(objectMapper.writeValueAsString(event)).append('\n');
+        }
+        return body.toString();
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,62 @@
+package com.henry.kafka.producer.demo.unit.producer;
+
+import com.henry.kafka.producer.demo.producer.ProducerMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaProducerException;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProducerMetricsUnitTest {
+
+    private static final String TOPIC = "book-events";
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    ProducerMetrics producerMetrics = new ProducerMetrics(meterRegistry);
+
+    @Test
+    void track_countsInFlightUntilAckAndTimesPerPartition() {
+        CompletableFuture<SendResult<Integer, byte[]>> send = new CompletableFuture<>();
+
+        producerMetrics.track(TOPIC, System.nanoTime(), send);
+        assertEquals(1, meterRegistry.get(ProducerMetrics.IN_FLIGHT).tag("topic", TOPIC).gauge().value());
+
+        send.complete(sendResult(2));
+        assertEquals(0, meterRegistry.get(ProducerMetrics.IN_FLIGHT).tag("topic", TOPIC).gauge().value());
+        assertEquals(1, meterRegistry.get(ProducerMetrics.SEND_ACK).tags("topic", TOPIC, "partition", "2").timer().count());
+    }
+
+    @Test
+    void track_countsFailuresByRootExceptionClass() {
+        CompletableFuture<SendResult<Integer, byte[]>> send = new CompletableFuture<>();
+
+        producerMetrics.track(TOPIC, System.nanoTime(), send);
+        send.completeExceptionally(new KafkaProducerException(
+                new ProducerRecord<>(TOPIC, 1, new byte[0]), "Send failed", new TimeoutException("Expiring 1 record(s)")));
+
+        assertEquals(1, meterRegistry.get(ProducerMetrics.FAILURES)
+                .tags("topic", TOPIC, "exception", "TimeoutException").counter().count());
+        assertEquals(0, meterRegistry.get(ProducerMetrics.IN_FLIGHT).tag("topic", TOPIC).gauge().value());
+    }
+
+    @Test
+    void recordSerialization_recordsTimeAndPayloadSize() {
+        producerMetrics.recordSerialization(TOPIC, 1_000, 120);
+        producerMetrics.recordSerialization(TOPIC, 3_000, 80);
+
+        assertEquals(2, meterRegistry.get(ProducerMetrics.SERIALIZATION).tag("topic", TOPIC).timer().count());
+        assertEquals(200, meterRegistry.get(ProducerMetrics.PAYLOAD_SIZE).tag("topic", TOPIC).summary().totalAmount());
+    }
+
+    private static SendResult<Integer, byte[]> sendResult(int partition) {
+        RecordMetadata metadata = new RecordMetadata(new TopicPartition(TOPIC, partition), 0L, 0, 0L, 0, 0);
+        return new SendResult<>(new ProducerRecord<>(TOPIC, 1, new byte[0]), metadata);
+    }
+}
@@ -0,0 +1,64 @@
+package com.henry.kafka.producer.demo.unit.producer;
+
+import com.henry.kafka.producer.demo.producer.ProducerRecordFactory;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProducerRecordFactoryUnitTest {
+
+    @Test
+    void recordCarriesTheSourceAndTheValueAsIs() {
+        byte[] value = "{}".getBytes(StandardCharsets.UTF_8);
+
+        ProducerRecord<Integer, byte[]> record =
+                new ProducerRecordFactory().create(ProducerRecordFactory.USER_API, "user-events", 101, value);
+
+        assertEquals("user-events", record.topic());
+        assertEquals(101, record.key());
+        assertSame(value, record.value());
+        assertEquals(1, record.headers().toArray().length);
+        assertArrayEquals("user-api".getBytes(StandardCharsets.UTF_8),
+                record.headers().lastHeader(ProducerRecordFactory.EVENT_SOURCE).value());
+    }
+
+    @Test
+    void configuredHeadersAreBoundPerSource() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("app.record.headers.scanner.schema-version", "2")
+                .withProperty("app.record.headers.scanner.event-source", "scanner-eu");
+
+        ProducerRecordFactory factory = new ProducerRecordFactory(environment);
+        ProducerRecord<Integer, byte[]> scanner = factory.create(ProducerRecordFactory.SCANNER, "book-events", 1, new byte[0]);
+        ProducerRecord<Integer, byte[]> userApi = factory.create(ProducerRecordFactory.USER_API, "user-events", 1, new byte[0]);
+
+        assertEquals(2, scanner.headers().toArray().length);
+        assertArrayEquals("scanner-eu".getBytes(StandardCharsets.UTF_8),
+                scanner.headers().lastHeader(ProducerRecordFactory.EVENT_SOURCE).value());
+        assertArrayEquals("2".getBytes(StandardCharsets.UTF_8), scanner.headers().lastHeader("schema-version").value());
+        assertEquals(1, userApi.headers().toArray().length);
+    }
+
+    @Test
+    void recordsShareTheHeaderInstancesButNotTheHeaderList() {
+        ProducerRecordFactory factory = new ProducerRecordFactory(Map.of(ProducerRecordFactory.SCANNER, Map.of("trace", "x")));
+        ProducerRecord<Integer, byte[]> first = factory.create(ProducerRecordFactory.SCANNER, "book-events", 1, new byte[0]);
+        ProducerRecord<Integer, byte[]> second = factory.create(ProducerRecordFactory.SCANNER, "book-events", 2, new byte[0]);
+
+        assertSame(first.headers().lastHeader("trace"), second.headers().lastHeader("trace"));
+        // a serializer or interceptor may still add to one record's headers
+        first.headers().add(new RecordHeader("added", new byte[0]));
+        assertEquals(2, second.headers().toArray().length);
+        assertThrows(IllegalStateException.class,
+                () -> factory.headers(ProducerRecordFactory.SCANNER).add(new RecordHeader("added", new byte[0])));
+    }
+}
@@ -0,0 +1,71 @@
+package com.henry.kafka.producer.demo.unit.producer;
+
+import com.henry.kafka.producer.demo.producer.SendLogger;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SendLoggerUnitTest {
+
+    @Test
+    void mode_defaultsToSummary() {
+        assertEquals(SendLogger.Mode.SUMMARY, new SendLogger().getMode());
+    }
+
+    @Test
+    void setMode_acceptsKebabCase() {
+        SendLogger sendLogger = new SendLogger();
+
+        sendLogger.setMode("per-record");
+
+        assertEquals(SendLogger.Mode.PER_RECORD, sendLogger.getMode());
+    }
+
+    @Test
+    void setMode_rejectsUnknownMode() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> new SendLogger().setMode("verbose"));
+        assertEquals("Unknown send logging mode 'verbose', expected one of summary, per-record", ex.getMessage());
+    }
+
+    @Test
+    void takeSummaries_countsPerTopicSkipsIdleTopicsAndResets() {
+        SendLogger sendLogger = new SendLogger();
+        sendLogger.failureLogsPerSecond = 1;
+
+        sendLogger.success("book-events", 1, 0, "payload", 2_000_000);
+        sendLogger.failure("book-events", 2, "payload", new RuntimeException("first"));
+        sendLogger.failure("book-events", 3, "payload", new RuntimeException("suppressed"));
+        sendLogger.success("library-events", 4, 1, "payload", 5_000_000);
+
+        List<SendLogger.Summary> first = sendLogger.takeSummaries().stream()
+                .sorted(Comparator.comparing(SendLogger.Summary::topic)).toList();
+        assertEquals(2, first.size());
+        SendLogger.Summary bookEvents = first.get(0);
+        assertEquals("book-events", bookEvents.topic());
+        assertEquals(1, bookEvents.sent());
+        assertEquals(2, bookEvents.failed());
+        assertEquals(1, bookEvents.suppressedFailureLogs());
+        assertEquals(2_000_000, bookEvents.ackP50Nanos(), 20_000);
+        SendLogger.Summary libraryEvents = first.get(1);
+        assertEquals("library-events", libraryEvents.topic());
+        assertEquals(1, libraryEvents.sent());
+        assertEquals(0, libraryEvents.failed());
+        assertEquals(5_000_000, libraryEvents.ackMaxNanos(), 50_000);
+
+        // the counters were reset, so only the topic with new traffic is reported
+        sendLogger.failure("library-events", 5, "payload", new RuntimeException("again"));
+        List<SendLogger.Summary> second = sendLogger.takeSummaries();
+        assertEquals(1, second.size());
+        assertEquals("library-events", second.get(0).topic());
+        assertEquals(0, second.get(0).sent());
+        assertEquals(1, second.get(0).failed());
+
+        // nothing since: every topic is idle
+        assertTrue(sendLogger.takeSummaries().isEmpty());
+    }
+}
@@ -0,0 +1,103 @@
+package com.henry.kafka.producer.demo.unit.producer;
+
+import com.henry.kafka.producer.demo.dto.Book;
+import com.henry.kafka.producer.demo.dto.BookEvent;
+import com.henry.kafka.producer.demo.dto.BookEventType;
+import com.henry.kafka.producer.demo.producer.BookEventProducer;
+import com.henry.kafka.producer.demo.producer.UpdateCoalescer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UpdateCoalescerUnitTest {
+
+    @Mock
+    BookEventProducer bookEventProducer;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    UpdateCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new UpdateCoalescer(bookEventProducer, meterRegistry, "book-events");
+        coalescer.enabled = true;
+    }
+
+    @Test
+    void flush_sendsOnlyTheLatestUpdatePerBookEventId() {
+        SendResult<Integer, byte[]> sendResult = new SendResult<>(null, null);
+        when(bookEventProducer.sendBookEvent_Approach2(isA(BookEvent.class)))
+                .thenReturn(CompletableFuture.completedFuture(sendResult));
+
+        List<CompletableFuture<SendResult<Integer, byte[]>>> book1 = List.of(
+                coalescer.sendUpdate(update(1, "v1")),
+                coalescer.sendUpdate(update(1, "v2")),
+                coalescer.sendUpdate(update(1, "v3")));
+        CompletableFuture<SendResult<Integer, byte[]>> book2 = coalescer.sendUpdate(update(2, "only"));
+        verify(bookEventProducer, never()).sendBookEvent_Approach2(isA(BookEvent.class));
+        assertTrue(book1.stream().noneMatch(CompletableFuture::isDone));
+
+        coalescer.flush();
+
+        ArgumentCaptor<BookEvent> sent = ArgumentCaptor.forClass(BookEvent.class);
+        verify(bookEventProducer, times(2)).sendBookEvent_Approach2(sent.capture());
+        assertEquals(List.of("v3", "only"), sent.getAllValues().stream()
+                .sorted((a, b) -> a.bookEventId() - b.bookEventId())
+                .map(event -> event.book().bookName())
+                .toList());
+        // superseded requests are acknowledged with the result of the send that replaced them
+        book1.forEach(future -> assertSame(sendResult, future.join()));
+        assertSame(sendResult, book2.join());
+        assertEquals(2, meterRegistry.get(UpdateCoalescer.COALESCED).counter().count());
+    }
+
+    @Test
+    void flush_failsEveryCoalescedRequestWhenTheSendFails() {
+        when(bookEventProducer.sendBookEvent_Approach2(isA(BookEvent.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Exception Calling Kafka")));
+
+        CompletableFuture<SendResult<Integer, byte[]>> first = coalescer.sendUpdate(update(1, "v1"));
+        CompletableFuture<SendResult<Integer, byte[]>> second = coalescer.sendUpdate(update(1, "v2"));
+        coalescer.flush();
+
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+    }
+
+    @Test
+    void sendUpdate_sendsAtOnceWhenDisabled() {
+        coalescer.enabled = false;
+        when(bookEventProducer.sendBookEvent_Approach2(isA(BookEvent.class)))
+                .thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+
+        CompletableFuture<SendResult<Integer, byte[]>> future = coalescer.sendUpdate(update(1, "v1"));
+
+        assertTrue(future.isDone());
+        assertFalse(future.isCompletedExceptionally());
+        verify(bookEventProducer, times(1)).sendBookEvent_Approach2(isA(BookEvent.class));
+    }
+
+    private static BookEvent update(int bookEventId, String bookName) {
+        return new BookEvent(bookEventId, BookEventType.UPDATE, new Book(100 + bookEventId, bookName, "Henry Xiloj"));
+    }
+}
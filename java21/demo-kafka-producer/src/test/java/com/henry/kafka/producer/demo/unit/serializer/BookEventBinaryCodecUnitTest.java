@@ -0,0 +1,102 @@
+package com.henry.kafka.producer.demo.unit.serializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henry.kafka.producer.demo.dto.Book;
+import com.henry.kafka.producer.demo.dto.BookEvent;
+import com.henry.kafka.producer.demo.dto.BookEventType;
+import com.henry.kafka.producer.demo.serializer.BookEventBinaryCodec;
+import com.henry.kafka.producer.demo.serializer.BookEventDeserializer;
+import com.henry.kafka.producer.demo.serializer.BookEventSerializer;
+import com.henry.kafka.producer.demo.unit.utils.TestUtil;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookEventBinaryCodecUnitTest {
+
+    // written to wire-format/book-events.hex, which demo-kafka-consumer's BookEventDeserializerUnitTest decodes
+    static final List<BookEvent> WIRE_FORMAT_EVENTS = List.of(
+            new BookEvent(null, BookEventType.NEW, new Book(456, "Kafka Using Spring Boot", "Henry Xiloj")),
+            new BookEvent(123, BookEventType.UPDATE, new Book(-7, "Ünïcödé 書籍 📖", "Henry Xiloj")),
+            new BookEvent(Integer.MAX_VALUE, null, new Book(Integer.MIN_VALUE, null, "")),
+            new BookEvent(-42, null, null));
+
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void roundTrip() {
+        for (BookEvent event : List.of(
+                TestUtil.BookEventRecord(),
+                TestUtil.bookEventRecordUpdate(),
+                TestUtil.bookEventRecordWithInvalidBook(),
+                new BookEvent(-42, null, null),
+                new BookEvent(Integer.MAX_VALUE, BookEventType.UPDATE,
+                        new Book(Integer.MIN_VALUE, "Ünïcödé 書籍 📖", "Henry Xiloj")))) {
+
+            assertEquals(event, BookEventBinaryCodec.decode(BookEventBinaryCodec.encode(event)));
+        }
+    }
+
+    @Test
+    void encode_isSmallerThanJson() throws Exception {
+        BookEvent event = TestUtil.bookEventRecordUpdate();
+
+        byte[] binary = BookEventBinaryCodec.encode(event);
+
+        assertEquals(BookEventBinaryCodec.SCHEMA_VERSION_1, binary[0]);
+        assertTrue(binary.length * 3 < objectMapper.writeValueAsBytes(event).length);
+    }
+
+    @Test
+    void decode_truncated() {
+        byte[] binary = BookEventBinaryCodec.encode(TestUtil.bookEventRecordUpdate());
+        byte[] truncated = Arrays.copyOf(binary, binary.length - 3);
+
+        assertThrows(SerializationException.class, () -> BookEventBinaryCodec.decode(truncated));
+    }
+
+    @Test
+    void serializer_selectsFormatPerTopic() {
+        BookEventSerializer serializer = new BookEventSerializer(objectMapper);
+        serializer.configure(Map.of(BookEventSerializer.BINARY_TOPICS_CONFIG, "book-events"), false);
+        BookEventDeserializer deserializer = new BookEventDeserializer(objectMapper);
+        BookEvent event = TestUtil.bookEventRecordUpdate();
+
+        byte[] binary = serializer.serialize("book-events", event);
+        byte[] json = serializer.serialize("user-events", event);
+
+        assertTrue(BookEventBinaryCodec.isBinary(binary));
+        assertFalse(BookEventBinaryCodec.isBinary(json));
+        assertEquals(event, deserializer.deserialize("book-events", binary));
+        assertEquals(event, deserializer.deserialize("user-events", json));
+    }
+
+    @Test
+    void serializer_matchesTheWireFormatFixture() throws Exception {
+        BookEventSerializer serializer = new BookEventSerializer(objectMapper);
+        serializer.configure(Map.of(BookEventSerializer.BINARY_TOPICS_CONFIG, "binary"), false);
+        List<String> payloads = new ArrayList<>();
+        for (BookEvent event : WIRE_FORMAT_EVENTS) {
+            payloads.add(HexFormat.of().formatHex(serializer.serialize("binary", event)));
+            payloads.add(HexFormat.of().formatHex(serializer.serialize("json", event)));
+        }
+
+        List<String> fixture = Files.readAllLines(Path.of(getClass().getResource("/wire-format/book-events.hex").toURI()))
+                .stream()
+                .filter(line -> !line.startsWith("#"))
+                .toList();
+        assertEquals(fixture, payloads);
+    }
+}
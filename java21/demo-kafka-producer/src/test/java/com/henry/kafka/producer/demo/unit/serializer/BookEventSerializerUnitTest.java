@@ -0,0 +1,48 @@
+package com.henry.kafka.producer.demo.unit.serializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henry.kafka.producer.demo.dto.Book;
+import com.henry.kafka.producer.demo.dto.BookEvent;
+import com.henry.kafka.producer.demo.dto.BookEventType;
+import com.henry.kafka.producer.demo.serializer.BookEventSerializer;
+import com.henry.kafka.producer.demo.unit.utils.TestUtil;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BookEventSerializerUnitTest {
+
+    private static final String TOPIC = "book-events";
+
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    BookEventSerializer serializer = new BookEventSerializer(objectMapper);
+
+    @Test
+    void serialize_matchesObjectMapperJson() throws Exception {
+        BookEvent event = TestUtil.bookEventRecordUpdate();
+
+        byte[] bytes = serializer.serialize(TOPIC, event);
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(event), bytes);
+        assertEquals(event, TestUtil.parseBookEventRecord(objectMapper, new String(bytes)));
+    }
+
+    @Test
+    void serialize_reusedBufferDoesNotLeakPreviousPayload() throws Exception {
+        BookEvent large = new BookEvent(1, BookEventType.NEW, new Book(1, "x".repeat(4096), "Kafka Using Spring Boot"));
+        BookEvent small = TestUtil.BookEventRecord();
+
+        serializer.serialize(TOPIC, large);
+        byte[] bytes = serializer.serialize(TOPIC, small);
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(small), bytes);
+    }
+
+    @Test
+    void serialize_null() {
+        assertNull(serializer.serialize(TOPIC, null));
+    }
+}
@@ -0,0 +1,118 @@
+package com.henry.kafka.producer.demo.unit.spill;
+
+import com.henry.kafka.producer.demo.spill.SpillJournal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.BufferExhaustedException;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.support.SendResult;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpillJournalUnitTest {
+
+    private static final int SEGMENT_BYTES = 1024;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void spill_retriableFailure_appendsAndReadsBackInOrder() throws Exception {
+        SpillJournal journal = journal(64 * SEGMENT_BYTES);
+
+        SendResult<Integer, byte[]> result = journal.spill(record(1, "a"), new TimeoutException("Expiring 1 record(s)")).get();
+        journal.spill(new ProducerRecord<>("user-events", null, null, null), null).get();
+        journal.sealActiveSegment();
+
+        assertTrue(journal.isSpilling());
+        assertEquals(-1, result.getRecordMetadata().partition());
+        List<ProducerRecord<Integer, byte[]>> records = SpillJournal.read(journal.sealedSegments().get(0));
+        assertEquals(2, records.size());
+        assertEquals("book-events", records.get(0).topic());
+        assertEquals(1, records.get(0).key());
+        assertArrayEquals("a".getBytes(StandardCharsets.UTF_8), records.get(0).value());
+        assertArrayEquals("scanner".getBytes(StandardCharsets.UTF_8), records.get(0).headers().lastHeader("event-source").value());
+        assertNull(records.get(1).key());
+        assertNull(records.get(1).value());
+    }
+
+    @Test
+    void spill_nonRetriableFailure_isNotSpilled() {
+        SpillJournal journal = journal(64 * SEGMENT_BYTES);
+
+        CompletableFuture<SendResult<Integer, byte[]>> future = journal.spill(record(1, "a"), new RecordTooLargeException("too large"));
+
+        ExecutionException ex = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(RecordTooLargeException.class, ex.getCause());
+        assertFalse(journal.isSpilling());
+    }
+
+    @Test
+    void append_rollsSegmentsAndStopsAtMaxBytes() {
+        SpillJournal journal = journal(2 * SEGMENT_BYTES);
+        String value = "x".repeat(400);
+
+        journal.append(record(1, value));
+        journal.append(record(2, value));
+        journal.append(record(3, value));
+
+        assertEquals(1, journal.sealedSegments().size());
+        assertThrows(BufferExhaustedException.class, () -> journal.append(record(4, value + value)));
+    }
+
+    @Test
+    void releaseAndFinishReplay_leavesSpillingModeWhenDrained() {
+        SpillJournal journal = journal(64 * SEGMENT_BYTES);
+        journal.append(record(1, "a"));
+
+        assertFalse(journal.finishReplay());
+        journal.sealActiveSegment();
+        journal.release(journal.sealedSegments().get(0));
+
+        assertTrue(journal.finishReplay());
+        assertFalse(journal.isSpilling());
+        assertEquals(0, journal.pendingBytes());
+    }
+
+    @Test
+    void restart_recoversSegmentsOfThePreviousRun() {
+        SpillJournal journal = journal(64 * SEGMENT_BYTES);
+        journal.append(record(1, "a"));
+        journal.destroy();
+
+        SpillJournal restarted = journal(64 * SEGMENT_BYTES);
+        restarted.append(record(2, "b"));
+        restarted.sealActiveSegment();
+
+        assertTrue(restarted.isSpilling());
+        List<Path> segments = restarted.sealedSegments();
+        assertEquals(2, segments.size());
+        assertEquals(1, SpillJournal.read(segments.get(0)).get(0).key());
+        assertEquals(2, SpillJournal.read(segments.get(1)).get(0).key());
+    }
+
+    private SpillJournal journal(long maxBytes) {
+        return new SpillJournal(true, dir, SEGMENT_BYTES, maxBytes, new SimpleMeterRegistry());
+    }
+
+    private static ProducerRecord<Integer, byte[]> record(Integer key, String value) {
+        return new ProducerRecord<>("book-events", null, key, value.getBytes(StandardCharsets.UTF_8),
+                List.of(new RecordHeader("event-source", "scanner".getBytes(StandardCharsets.UTF_8))));
+    }
+}
@@ -0,0 +1,88 @@
+package com.henry.kafka.producer.demo.unit.spill;
+
+import com.henry.kafka.producer.demo.spill.SpillJournal;
+import com.henry.kafka.producer.demo.spill.SpillReplayer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SpillReplayerUnitTest {
+
+    @TempDir
+    Path dir;
+
+    @Mock
+    KafkaTemplate<Integer, byte[]> kafkaTemplate;
+
+    SpillJournal journal;
+    SpillReplayer replayer;
+
+    @BeforeEach
+    void setUp() {
+        journal = new SpillJournal(true, dir, 4096, 1 << 20, new SimpleMeterRegistry());
+        replayer = new SpillReplayer(journal, kafkaTemplate);
+        replayer.replayAckTimeoutMs = 1000;
+        journal.append(new ProducerRecord<>("book-events", 1, new byte[]{1}));
+        journal.append(new ProducerRecord<>("book-events", 2, new byte[]{2}));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void replay_sendsInOrderAndDrainsTheJournal() {
+        when(kafkaTemplate.send(isA(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+
+        replayer.replay();
+
+        ArgumentCaptor<ProducerRecord<Integer, byte[]>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate, times(2)).send(sent.capture());
+        assertEquals(List.of(1, 2), sent.getAllValues().stream().map(ProducerRecord::key).toList());
+        assertFalse(journal.isSpilling());
+        assertTrue(journal.sealedSegments().isEmpty());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void replay_failure_stopsSendingAndKeepsTheSegmentForTheNextRound() {
+        when(kafkaTemplate.send(isA(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException("Topic book-events not present in metadata")));
+
+        replayer.replay();
+
+        verify(kafkaTemplate, times(1)).send(isA(ProducerRecord.class));
+        assertTrue(journal.isSpilling());
+        assertEquals(1, journal.sealedSegments().size());
+
+        reset(kafkaTemplate);
+        when(kafkaTemplate.send(isA(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+
+        replayer.replay();
+
+        verify(kafkaTemplate, times(2)).send(isA(ProducerRecord.class));
+        assertFalse(journal.isSpilling());
+    }
+}
@@ -0,0 +1,61 @@
+package com.henry.kafka.producer.demo.unit.validation;
+
+import com.henry.kafka.producer.demo.dto.Book;
+import com.henry.kafka.producer.demo.dto.BookEvent;
+import com.henry.kafka.producer.demo.dto.BookEventType;
+import com.henry.kafka.producer.demo.validation.BookEventValidator;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BookEventValidatorUnitTest {
+
+    private static final Validator HIBERNATE = Validation.buildDefaultValidatorFactory().getValidator();
+
+    static Stream<BookEvent> bookEvents() {
+        return Stream.of(
+                new BookEvent(null, BookEventType.NEW, new Book(1, "Kafka Deep Dive", "Henry Xiloj")),
+                new BookEvent(null, BookEventType.NEW, null),
+                new BookEvent(null, null, new Book(null, null, null)),
+                new BookEvent(7, BookEventType.UPDATE, new Book(null, "", "Henry Xiloj")),
+                new BookEvent(7, BookEventType.UPDATE, new Book(1, " \t\n", " ")),
+                // trim() keeps the em space, so @NotBlank accepts it
+                new BookEvent(null, BookEventType.NEW, new Book(1, "\u2003", " x ")),
+                new BookEvent(null, BookEventType.NEW, new Book(1, "Kafka", null)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("bookEvents")
+    void validate_matchesHibernateValidator(BookEvent bookEvent) {
+        assertEquals(hibernate(bookEvent, ""), BookEventValidator.validate(bookEvent));
+        assertEquals(hibernate(bookEvent, "[3] "), BookEventValidator.validate(bookEvent, "[3] "));
+        assertEquals(HIBERNATE.validate(bookEvent).isEmpty(), BookEventValidator.isValid(bookEvent));
+    }
+
+    @Test
+    void validate_reportsEveryViolationInPathOrder() {
+        assertEquals("book.bookAuthor - must not be blank, book.bookId - must not be null, book.bookName - must not be blank",
+                BookEventValidator.validate(new BookEvent(null, null, new Book(null, " ", null))));
+        assertNull(BookEventValidator.validate(new BookEvent(null, null, new Book(1, "a", "b"))));
+    }
+
+    // the message the controllers built from Hibernate Validator's violations
+    private static String hibernate(BookEvent bookEvent, String prefix) {
+        var violations = HIBERNATE.validate(bookEvent);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> prefix + violation.getPropertyPath() + " - " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,58 @@
+package com.henry.kafka.producer.demo.unit.view;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henry.kafka.producer.demo.dto.Book;
+import com.henry.kafka.producer.demo.dto.BookEvent;
+import com.henry.kafka.producer.demo.dto.BookEventType;
+import com.henry.kafka.producer.demo.serializer.BookEventBinaryCodec;
+import com.henry.kafka.producer.demo.view.BookView;
+import com.henry.kafka.producer.demo.view.BookViewListener;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BookViewListenerUnitTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    BookView view = new BookView(16, meterRegistry);
+    BookViewListener listener = new BookViewListener(view, new ObjectMapper(), meterRegistry);
+
+    @Test
+    void tombstonesInTheBatchAreSkipped() {
+        listener.onBatch(List.of(
+                record(0, 0, 1, BookEventBinaryCodec.encode(event(1, "First"))),
+                record(0, 1, 1, null),
+                record(0, 2, 2, BookEventBinaryCodec.encode(event(2, "Second"))),
+                record(1, 7, 3, "null".getBytes(StandardCharsets.UTF_8)),
+                record(1, 8, 4, BookEventBinaryCodec.encode(event(4, "Fourth")))));
+
+        assertEquals(new Book(1, "First", "Henry Xiloj"), view.get(1));
+        assertEquals(new Book(2, "Second", "Henry Xiloj"), view.get(2));
+        assertNull(view.get(3));
+        assertEquals(new Book(4, "Fourth", "Henry Xiloj"), view.get(4));
+        assertEquals(Map.of(0, 3L, 1, 9L), view.nextOffsets());
+        assertEquals(2.0, meterRegistry.get(BookViewListener.SKIPPED).counter().count());
+    }
+
+    @Test
+    void applyIgnoresANullEvent() {
+        view.apply(null);
+
+        assertEquals(0, view.size());
+    }
+
+    private static ConsumerRecord<Integer, byte[]> record(int partition, long offset, int key, byte[] value) {
+        return new ConsumerRecord<>("book-events", partition, offset, key, value);
+    }
+
+    private static BookEvent event(int bookId, String bookName) {
+        return new BookEvent(bookId, BookEventType.NEW, new Book(bookId, bookName, "Henry Xiloj"));
+    }
+}
@@ -0,0 +1,126 @@
+package com.henry.kafka.producer.demo.unit.view;
+
+import com.henry.kafka.producer.demo.dto.Book;
+import com.henry.kafka.producer.demo.dto.BookEvent;
+import com.henry.kafka.producer.demo.dto.BookEventType;
+import com.henry.kafka.producer.demo.view.BookView;
+import com.henry.kafka.producer.demo.view.BookViewSnapshots;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BookViewSnapshotsUnitTest {
+
+    @TempDir
+    Path dir;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void restoresBooksAndOffsets() {
+        BookView view = new BookView(16, meterRegistry);
+        for (int bookId = 0; bookId < 10_000; bookId++) {
+            view.apply(event(bookId, "Book " + bookId));
+        }
+        view.applied(0, 3_400L);
+        view.applied(2, 6_600L);
+        snapshots(view, "book-events").snapshot();
+
+        BookView restored = new BookView(16, meterRegistry);
+        snapshots(restored, "book-events");
+
+        assertEquals(10_000, restored.size());
+        assertEquals(new Book(4_242, "Book 4242", "Henry Xiloj"), restored.get(4_242));
+        assertEquals(Map.of(0, 3_400L, 2, 6_600L), restored.nextOffsets());
+    }
+
+    @Test
+    void fuzzySnapshotPlusReplayEqualsTheFullReplay() throws Exception {
+        // one partition, 200k events over 1000 books, snapshotted while the listener applies them
+        List<BookEvent> log = new ArrayList<>();
+        for (int offset = 0; offset < 200_000; offset++) {
+            log.add(event(offset % 1_000, "v" + offset));
+        }
+        BookView view = new BookView(16, meterRegistry);
+        BookViewSnapshots snapshots = snapshots(view, "book-events");
+        Thread listener = new Thread(() -> {
+            for (int offset = 0; offset < log.size(); offset++) {
+                view.apply(log.get(offset));
+                view.applied(0, offset + 1);
+            }
+        });
+        listener.start();
+        while (view.nextOffsets().isEmpty()) {
+            Thread.onSpinWait();
+        }
+        snapshots.snapshot();
+        listener.join();
+
+        BookView restored = new BookView(16, meterRegistry);
+        snapshots(restored, "book-events");
+        for (long offset = restored.nextOffset(0); offset < log.size(); offset++) {
+            restored.apply(log.get((int) offset));
+        }
+
+        for (int bookId = 0; bookId < 1_000; bookId++) {
+            assertEquals(view.get(bookId), restored.get(bookId));
+        }
+    }
+
+    @Test
+    void damagedSnapshotIsIgnored() throws Exception {
+        BookView view = new BookView(16, meterRegistry);
+        view.apply(event(1, "Kafka Deep Dive"));
+        view.applied(0, 1L);
+        snapshots(view, "book-events").snapshot();
+        Path file = dir.resolve("book-view.snapshot");
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes);
+
+        BookView restored = new BookView(16, meterRegistry);
+        snapshots(restored, "book-events");
+
+        assertNull(restored.get(1));
+        assertNull(restored.nextOffset(0));
+    }
+
+    @Test
+    void snapshotOfAnotherTopicIsIgnored() {
+        BookView view = new BookView(16, meterRegistry);
+        view.apply(event(1, "Kafka Deep Dive"));
+        view.applied(0, 1L);
+        snapshots(view, "book-events").snapshot();
+
+        BookView restored = new BookView(16, meterRegistry);
+        snapshots(restored, "book-events-v2");
+
+        assertEquals(0, restored.size());
+        assertNull(restored.nextOffset(0));
+    }
+
+    @Test
+    void nothingToSnapshotBeforeTheFirstBatch() {
+        snapshots(new BookView(16, meterRegistry), "book-events").snapshot();
+
+        assertFalse(Files.exists(dir.resolve("book-view.snapshot")));
+    }
+
+    private BookViewSnapshots snapshots(BookView view, String topic) {
+        return new BookViewSnapshots(view, topic, true, dir, meterRegistry);
+    }
+
+    private static BookEvent event(int bookId, String bookName) {
+        return new BookEvent(null, BookEventType.UPDATE, new Book(bookId, bookName, "Henry Xiloj"));
+    }
+}
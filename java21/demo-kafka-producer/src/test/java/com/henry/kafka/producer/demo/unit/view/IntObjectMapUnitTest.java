@@ -0,0 +1,79 @@
+package com.henry.kafka.producer.demo.unit.view;
+
+import com.henry.kafka.producer.demo.view.IntObjectMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IntObjectMapUnitTest {
+
+    @Test
+    void putGetAndReplace() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+
+        assertNull(map.put(0, "zero"));
+        assertNull(map.put(-7, "minus seven"));
+        assertEquals("zero", map.put(0, "nil"));
+
+        assertEquals("nil", map.get(0));
+        assertEquals("minus seven", map.get(-7));
+        assertNull(map.get(1));
+        assertEquals(2, map.size());
+        assertThrows(NullPointerException.class, () -> map.put(1, null));
+    }
+
+    @Test
+    void growsPastItsInitialCapacity() {
+        IntObjectMap<Integer> map = new IntObjectMap<>(1);
+        for (int key = 0; key < 100_000; key++) {
+            map.put(key * 31, key);
+        }
+
+        assertEquals(100_000, map.size());
+        for (int key = 0; key < 100_000; key++) {
+            assertEquals(key, map.get(key * 31));
+        }
+        Map<Integer, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(100_000, visited.size());
+    }
+
+    @Test
+    void readersNeverSeeAMissingOrForeignValue() throws Exception {
+        IntObjectMap<Integer> map = new IntObjectMap<>(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicReference<String> error = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> {
+            while (writing.get()) {
+                // key 0 is put first and must survive every resize; any value found belongs to its key
+                Integer zero = map.get(0);
+                for (int key = 1; key < 1_000 && zero != null; key++) {
+                    Integer value = map.get(key);
+                    if (value != null && value != key) {
+                        error.set("key " + key + " -> " + value);
+                    }
+                }
+                if (map.size() > 0 && zero == null) {
+                    error.set("key 0 lost");
+                }
+            }
+        });
+        map.put(0, 0);
+        reader.start();
+        for (int key = 1; key < 200_000; key++) {
+            map.put(key, key);
+        }
+        writing.set(false);
+        reader.join();
+
+        assertNull(error.get());
+    }
+}